@@ -0,0 +1,221 @@
+package com.jacocanete.autoshutdown;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for the two Pterodactyl client API endpoints the plugin uses:
+ * {@code POST /api/client/servers/<id>/power} and {@code GET /api/client/servers/<id>/resources}.
+ *
+ * Each server drives a {@link FakeStatusServer}: a start signal makes it answer status pings after
+ * the boot delay, a stop signal silences it after the stop delay. Signals that cannot change
+ * anything (a start while starting or running, a stop while stopping or offline, any signal while
+ * the other one is in progress) are counted as duplicates.
+ */
+final class FakePterodactylPanel implements AutoCloseable {
+
+    enum PowerState {
+        OFFLINE("offline"),
+        STARTING("starting"),
+        RUNNING("running"),
+        STOPPING("stopping");
+
+        private final String panelName;
+
+        PowerState(String panelName) {
+            this.panelName = panelName;
+        }
+    }
+
+    static final class Server {
+        private final String id;
+        private final FakeStatusServer status;
+        private PowerState state = PowerState.OFFLINE;
+
+        private final LongAdder startSignals = new LongAdder();
+        private final LongAdder stopSignals = new LongAdder();
+        private final LongAdder duplicateSignals = new LongAdder();
+        private final LongAdder resourceRequests = new LongAdder();
+
+        private Server(String id, FakeStatusServer status) {
+            this.id = id;
+            this.status = status;
+            status.setAnswering(false);
+        }
+
+        String getId() {
+            return id;
+        }
+
+        FakeStatusServer getStatus() {
+            return status;
+        }
+
+        synchronized PowerState getState() {
+            return state;
+        }
+
+        long getStartSignals() {
+            return startSignals.sum();
+        }
+
+        long getStopSignals() {
+            return stopSignals.sum();
+        }
+
+        long getDuplicateSignals() {
+            return duplicateSignals.sum();
+        }
+
+        long getResourceRequests() {
+            return resourceRequests.sum();
+        }
+    }
+
+    private static final String PREFIX = "/api/client/servers/";
+
+    private final Map<String, Server> servers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService powerScheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService handlerExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer httpServer;
+    private final long bootDelayMillis;
+    private final long stopDelayMillis;
+    private final long latencyMillis;
+
+    FakePterodactylPanel(long bootDelayMillis, long stopDelayMillis, long latencyMillis) throws IOException {
+        this.bootDelayMillis = bootDelayMillis;
+        this.stopDelayMillis = stopDelayMillis;
+        this.latencyMillis = latencyMillis;
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        httpServer.createContext(PREFIX, this::handle);
+        httpServer.setExecutor(handlerExecutor);
+        httpServer.start();
+    }
+
+    /** Base URL to configure as {@code pterodactyl.url}. */
+    String url() {
+        return "http://127.0.0.1:" + httpServer.getAddress().getPort();
+    }
+
+    Server addServer(String id, FakeStatusServer status) {
+        Server server = new Server(id, status);
+        servers.put(id, server);
+        return server;
+    }
+
+    Collection<Server> getServers() {
+        return servers.values();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+
+            // <id>/power or <id>/resources
+            String[] path = exchange.getRequestURI().getPath().substring(PREFIX.length()).split("/");
+            Server server = path.length == 2 ? servers.get(path[0]) : null;
+            if (server == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            if (path[1].equals("power") && exchange.getRequestMethod().equals("POST")) {
+                JsonObject body = JsonParser.parseReader(
+                    new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)).getAsJsonObject();
+                power(server, body.get("signal").getAsString());
+                exchange.sendResponseHeaders(204, -1);
+            } else if (path[1].equals("resources") && exchange.getRequestMethod().equals("GET")) {
+                server.resourceRequests.increment();
+                respond(exchange, resources(server));
+            } else {
+                exchange.sendResponseHeaders(405, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            exchange.sendResponseHeaders(400, -1);
+        }
+    }
+
+    private void power(Server server, String signal) {
+        synchronized (server) {
+            switch (signal) {
+                case "start" -> {
+                    server.startSignals.increment();
+                    if (server.state != PowerState.OFFLINE) {
+                        server.duplicateSignals.increment();
+                        return;
+                    }
+                    server.state = PowerState.STARTING;
+                    powerScheduler.schedule(() -> finish(server, PowerState.STARTING, PowerState.RUNNING),
+                        bootDelayMillis, TimeUnit.MILLISECONDS);
+                }
+                case "stop" -> {
+                    server.stopSignals.increment();
+                    if (server.state != PowerState.RUNNING) {
+                        server.duplicateSignals.increment();
+                        return;
+                    }
+                    server.state = PowerState.STOPPING;
+                    powerScheduler.schedule(() -> finish(server, PowerState.STOPPING, PowerState.OFFLINE),
+                        stopDelayMillis, TimeUnit.MILLISECONDS);
+                }
+                default -> throw new IllegalArgumentException("Unknown signal " + signal);
+            }
+        }
+    }
+
+    private void finish(Server server, PowerState from, PowerState to) {
+        synchronized (server) {
+            if (server.state == from) {
+                server.state = to;
+                server.status.setAnswering(to == PowerState.RUNNING);
+            }
+        }
+    }
+
+    private static String resources(Server server) {
+        JsonObject attributes = new JsonObject();
+        attributes.addProperty("current_state", server.getState().panelName);
+        attributes.addProperty("is_suspended", false);
+        JsonObject root = new JsonObject();
+        root.addProperty("object", "stats");
+        root.add("attributes", attributes);
+        return root.toString();
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        powerScheduler.shutdownNow();
+        handlerExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,208 @@
+package com.jacocanete.autoshutdown;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for a Minecraft server's Query (GS4) listener, on the same loopback port
+ * number as a {@link FakeStatusServer} but over UDP, as vanilla's {@code query.port} defaults to.
+ *
+ * It answers whenever the status server does, with the same delay and flap probability, so a
+ * load simulation sees a backend boot and stop the same way over either protocol. Challenge
+ * tokens are handed out per client address and expire after 30 seconds like vanilla's;
+ * {@link #rotateTokens()} forgets them all, as a restart would. Stats with an unknown token are
+ * dropped without an answer.
+ */
+final class FakeQueryServer implements AutoCloseable {
+
+    private static final long TOKEN_LIFETIME_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private record Token(int value, long issuedAtNanos) {
+    }
+
+    private final FakeStatusServer status;
+    private final DatagramSocket socket;
+    private final Map<SocketAddress, Token> tokens = new ConcurrentHashMap<>();
+    private volatile String motd = "A Minecraft Server";
+    private volatile List<String> players = List.of();
+    private volatile int maxPlayers = 100;
+
+    private final LongAdder handshakes = new LongAdder();
+    private final LongAdder stats = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    FakeQueryServer(FakeStatusServer status) throws IOException {
+        this.status = status;
+        this.socket = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), status.port()));
+        Thread.ofPlatform().daemon().name("FakeQueryServer-" + port()).start(this::receiveLoop);
+    }
+
+    int port() {
+        return socket.getLocalPort();
+    }
+
+    void setMotd(String motd) {
+        this.motd = motd;
+    }
+
+    void setPlayers(List<String> players, int maxPlayers) {
+        this.players = List.copyOf(players);
+        this.maxPlayers = maxPlayers;
+    }
+
+    /** Forgets every token handed out, so cached ones stop working. */
+    void rotateTokens() {
+        tokens.clear();
+    }
+
+    long getHandshakeCount() {
+        return handshakes.sum();
+    }
+
+    /** Stat requests received with a valid token, answered or not. */
+    long getStatCount() {
+        return stats.sum();
+    }
+
+    /** Stat requests dropped for an unknown or expired token. */
+    long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void receiveLoop() {
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(new byte[64], 64);
+            try {
+                socket.receive(packet);
+            } catch (IOException e) {
+                return; // Closed
+            }
+            long delay = status.getResponseDelayMillis();
+            if (delay > 0) {
+                Thread.startVirtualThread(() -> answerLater(packet, delay));
+            } else {
+                answer(packet);
+            }
+        }
+    }
+
+    private void answerLater(DatagramPacket packet, long delay) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        answer(packet);
+    }
+
+    private void answer(DatagramPacket packet) {
+        ByteBuffer request = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
+        if (request.remaining() < QueryProtocolCodec.HANDSHAKE_REQUEST_SIZE || request.get() != (byte) 0xFE
+            || request.get() != (byte) 0xFD) {
+            return;
+        }
+        byte type = request.get();
+        int session = request.getInt();
+        SocketAddress client = packet.getSocketAddress();
+
+        if (type == QueryProtocolCodec.TYPE_HANDSHAKE) {
+            handshakes.increment();
+            if (!isAnswering()) {
+                return;
+            }
+            Token token = new Token(ThreadLocalRandom.current().nextInt(), System.nanoTime());
+            tokens.put(client, token);
+            ByteBuffer response = header(type, session, 16);
+            QueryProtocolCodec.writeString(response, String.valueOf(token.value()));
+            send(response, client);
+        } else if (type == QueryProtocolCodec.TYPE_STAT && request.remaining() >= 4) {
+            Token token = tokens.get(client);
+            if (token == null || token.value() != request.getInt()
+                || System.nanoTime() - token.issuedAtNanos() > TOKEN_LIFETIME_NANOS) {
+                rejected.increment();
+                return;
+            }
+            stats.increment();
+            if (!isAnswering()) {
+                return;
+            }
+            send(request.remaining() >= 4 ? fullStat(session) : basicStat(session), client);
+        }
+    }
+
+    private boolean isAnswering() {
+        return status.isAnswering() && ThreadLocalRandom.current().nextDouble() >= status.getFlapProbability();
+    }
+
+    private ByteBuffer basicStat(int session) {
+        List<String> online = players;
+        ByteBuffer response = header(QueryProtocolCodec.TYPE_STAT, session, 256 + motd.length() * 4);
+        QueryProtocolCodec.writeString(response, motd);
+        QueryProtocolCodec.writeString(response, "SMP");
+        QueryProtocolCodec.writeString(response, "world");
+        QueryProtocolCodec.writeString(response, String.valueOf(online.size()));
+        QueryProtocolCodec.writeString(response, String.valueOf(maxPlayers));
+        response.order(ByteOrder.LITTLE_ENDIAN).putShort((short) port()).order(ByteOrder.BIG_ENDIAN);
+        QueryProtocolCodec.writeString(response, "127.0.0.1");
+        return response;
+    }
+
+    private ByteBuffer fullStat(int session) {
+        List<String> online = players;
+        ByteBuffer response = header(QueryProtocolCodec.TYPE_STAT, session,
+            512 + motd.length() * 4 + online.stream().mapToInt(name -> name.length() * 4 + 1).sum());
+        response.put("splitnum".getBytes()).put((byte) 0).put((byte) 0x80).put((byte) 0);
+        String[] rules = {
+            "hostname", motd,
+            "gametype", "SMP",
+            "game_id", "MINECRAFT",
+            "version", "1.21.1",
+            "plugins", "",
+            "map", "world",
+            "numplayers", String.valueOf(online.size()),
+            "maxplayers", String.valueOf(maxPlayers),
+            "hostport", String.valueOf(port()),
+            "hostip", "127.0.0.1",
+        };
+        for (String value : rules) {
+            QueryProtocolCodec.writeString(response, value);
+        }
+        response.put((byte) 0);
+        response.put((byte) 0x01).put("player_".getBytes()).put((byte) 0).put((byte) 0);
+        for (String name : online) {
+            QueryProtocolCodec.writeString(response, name);
+        }
+        response.put((byte) 0);
+        return response;
+    }
+
+    private static ByteBuffer header(byte type, int session, int capacity) {
+        return ByteBuffer.allocate(5 + capacity).put(type).putInt(session);
+    }
+
+    private void send(ByteBuffer response, SocketAddress client) {
+        try {
+            socket.send(new DatagramPacket(response.array(), response.position(), client));
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+}
@@ -0,0 +1,164 @@
+package com.jacocanete.autoshutdown;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for a Minecraft server's status endpoint on a loopback port. Status
+ * requests are answered with the current JSON payload; each connection gets its own virtual thread.
+ *
+ * For load simulations the server can be switched to not answering (down or still booting: the
+ * connection is accepted, then closed without a response), made to answer slowly, and made to
+ * flap by dropping a share of answers while up.
+ */
+final class FakeStatusServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private volatile byte[] response;
+    private volatile boolean answering = true;
+    private volatile long responseDelayMillis;
+    private volatile double flapProbability;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder answered = new LongAdder();
+
+    FakeStatusServer(String json) throws IOException {
+        setStatus(json);
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        Thread.ofPlatform().daemon().name("FakeStatusServer-" + port()).start(this::acceptLoop);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    void setStatus(String json) {
+        response = frame(json);
+    }
+
+    void setAnswering(boolean answering) {
+        this.answering = answering;
+    }
+
+    boolean isAnswering() {
+        return answering;
+    }
+
+    void setResponseDelayMillis(long responseDelayMillis) {
+        this.responseDelayMillis = responseDelayMillis;
+    }
+
+    long getResponseDelayMillis() {
+        return responseDelayMillis;
+    }
+
+    /** Share (0-1) of status requests that go unanswered even while the server is up. */
+    void setFlapProbability(double flapProbability) {
+        this.flapProbability = flapProbability;
+    }
+
+    double getFlapProbability() {
+        return flapProbability;
+    }
+
+    /** Status requests received, answered or not. */
+    long getProbeCount() {
+        return probes.sum();
+    }
+
+    long getAnsweredCount() {
+        return answered.sum();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread.startVirtualThread(() -> serve(socket));
+            } catch (IOException e) {
+                return; // Closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            skipFrame(in); // Handshake
+            skipFrame(in); // Status request
+            probes.increment();
+
+            long delay = responseDelayMillis;
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            if (!answering || ThreadLocalRandom.current().nextDouble() < flapProbability) {
+                return;
+            }
+
+            OutputStream out = socket.getOutputStream();
+            out.write(response);
+            out.flush();
+            answered.increment();
+
+            // Let the client close first, so TIME_WAIT ends up on its side of the connection
+            while (in.read() != -1) {
+                // Nothing else is expected
+            }
+        } catch (IOException e) {
+            // Client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void skipFrame(DataInputStream in) throws IOException {
+        in.skipNBytes(readVarInt(in));
+    }
+
+    private static int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+        for (int i = 0; i < 5; i++) {
+            int currentByte = in.read();
+            if (currentByte < 0) {
+                throw new IOException("Connection closed mid-frame");
+            }
+            value |= (currentByte & 0x7F) << (7 * i);
+            if ((currentByte & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarInt is too big");
+    }
+
+    /** A complete status response frame: length, packet id, then the JSON as a string. */
+    private static byte[] frame(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        int packetLength = StatusProtocolCodec.varIntSize(StatusProtocolCodec.STATUS_PACKET_ID)
+            + StatusProtocolCodec.varIntSize(bytes.length) + bytes.length;
+        ByteBuffer frame = ByteBuffer.allocate(StatusProtocolCodec.varIntSize(packetLength) + packetLength);
+        StatusProtocolCodec.writeVarInt(frame, packetLength);
+        StatusProtocolCodec.writeVarInt(frame, StatusProtocolCodec.STATUS_PACKET_ID);
+        StatusProtocolCodec.writeVarInt(frame, bytes.length);
+        frame.put(bytes);
+        return frame.array();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
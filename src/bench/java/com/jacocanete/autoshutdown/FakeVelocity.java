@@ -0,0 +1,151 @@
+package com.jacocanete.autoshutdown;
+
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import com.velocitypowered.api.scheduler.Scheduler;
+import org.slf4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Just enough of the Velocity API, built from dynamic proxies, for the plugin to load its
+ * configuration and reconcile backends outside a proxy. Tasks are accepted but never run, and
+ * every method not handled here returns null, false or zero.
+ */
+final class FakeVelocity {
+
+    private FakeVelocity() {
+    }
+
+    static ProxyServer proxyServer(Map<String, RegisteredServer> servers) {
+        Scheduler scheduler = fake(Scheduler.class, (proxy, method, args) -> fake(Scheduler.TaskBuilder.class,
+            (builder, builderMethod, builderArgs) -> builderMethod.getName().equals("schedule")
+                ? fake(ScheduledTask.class, FakeVelocity::defaults)
+                : builder));
+        CommandManager commandManager = fake(CommandManager.class, FakeVelocity::defaults);
+
+        return fake(ProxyServer.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getScheduler" -> scheduler;
+            case "getCommandManager" -> commandManager;
+            case "getServer" -> Optional.ofNullable(servers.get((String) args[0]));
+            case "getAllServers" -> servers.values();
+            case "getAllPlayers" -> List.of();
+            default -> defaults(proxy, method, args);
+        });
+    }
+
+    /** A registered server with {@code players} (otherwise blank, but for their id) players connected to it. */
+    static RegisteredServer registeredServer(String name, InetSocketAddress address, int players) {
+        ServerInfo info = new ServerInfo(name, address);
+        Collection<Player> connected = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            UUID id = UUID.randomUUID();
+            connected.add(fake(Player.class, (proxy, method, args) ->
+                method.getName().equals("getUniqueId") ? id : defaults(proxy, method, args)));
+        }
+        return fake(RegisteredServer.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getServerInfo" -> info;
+            case "getPlayersConnected" -> connected;
+            default -> defaults(proxy, method, args);
+        });
+    }
+
+    static Logger silentLogger() {
+        return fake(Logger.class, FakeVelocity::defaults);
+    }
+
+    /** Prints info, warnings and errors to stdout, slf4j-style placeholders filled in. */
+    static Logger consoleLogger() {
+        return fake(Logger.class, (proxy, method, args) -> {
+            String level = method.getName();
+            switch (level) {
+                case "info", "warn", "error" -> {
+                    System.out.println("[" + level.toUpperCase() + "] " + format(args));
+                    return null;
+                }
+                case "isInfoEnabled", "isWarnEnabled", "isErrorEnabled" -> {
+                    return true;
+                }
+                default -> {
+                    return defaults(proxy, method, args);
+                }
+            }
+        });
+    }
+
+    private static String format(Object[] args) {
+        if (args == null || args.length == 0) {
+            return "";
+        }
+        Object[] values = args.length == 2 && args[1] instanceof Object[] array
+            ? array
+            : Arrays.copyOfRange(args, 1, args.length);
+
+        StringBuilder message = new StringBuilder();
+        String pattern = String.valueOf(args[0]);
+        int next = 0;
+        int from = 0;
+        int placeholder;
+        while ((placeholder = pattern.indexOf("{}", from)) >= 0 && next < values.length) {
+            message.append(pattern, from, placeholder).append(values[next++]);
+            from = placeholder + 2;
+        }
+        message.append(pattern.substring(from));
+        if (next < values.length && values[values.length - 1] instanceof Throwable error) {
+            message.append(" ").append(error);
+        }
+        return message.toString();
+    }
+
+    static <T> T fake(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(FakeVelocity.class.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    static Object defaults(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return method.getDeclaringClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            default:
+                break;
+        }
+
+        // A proxy must return exactly the boxed primitive type, or the call fails
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return Boolean.FALSE;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0.0d;
+        } else if (type == float.class) {
+            return 0.0f;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        } else if (type == char.class) {
+            return '\0';
+        }
+        return null;
+    }
+}
@@ -0,0 +1,326 @@
+package com.jacocanete.autoshutdown;
+
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Replays join storms against the real plugin logic, with a fake panel and fake backends, and
+ * reports what it cost: power signals (and how many were redundant), status probes, panel polls
+ * and how long players waited from login until they were on the backend they asked for.
+ *
+ * Players log in over one or more waves, each asking for a random backend, stay for a random
+ * session once they get there, and give up if they never do. After the last player has left,
+ * the simulation keeps running for a cooldown so idle shutdowns show up in the numbers.
+ *
+ * With {@code proxies} above one, every proxy runs its own copy of the plugin in front of the same
+ * backends and players are spread over them, which shows what {@code coordination.mode} saves.
+ * Node ids, gossip ports and peers, and the shared coordination file are filled in per proxy.
+ *
+ * With {@code pooled=true} the backends form one autoscaled pool named {@code pool}, every player
+ * asks for the pool, and reaching any of its instances counts.
+ *
+ * Every backend also answers Query (GS4) on its port through a {@link FakeQueryServer}, so
+ * {@code status-probe.mode=query} can be compared against plain status pings.
+ *
+ * Arguments are {@code key=value} pairs. Keys with a dot are plugin configuration (e.g.
+ * {@code transfer.batch-size=10}) and override the defaults below; the rest are simulation options.
+ */
+public final class LoadSimulation {
+
+    private final Properties options;
+    private final Properties pluginOverrides;
+    private final SplittableRandom random;
+
+    private final Map<String, PlayerRun> runs = new ConcurrentHashMap<>();
+    private final LatencyHistogram joinToReady = new LatencyHistogram();
+    private final LongAdder reached = new LongAdder();
+    private final LongAdder gaveUp = new LongAdder();
+
+    /** One proxy with its own plugin instance, in front of the shared backends. */
+    private record ProxyNode(SimulatedProxy proxy, AutoShutdownPlugin plugin, List<RegisteredServer> backends,
+                             RegisteredServer pool) {
+    }
+
+    private LoadSimulation(Properties options, Properties pluginOverrides) {
+        this.options = options;
+        this.pluginOverrides = pluginOverrides;
+        this.random = new SplittableRandom(longOption("seed", 42));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Properties options = new Properties();
+        Properties pluginOverrides = new Properties();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            String key = arg.substring(0, separator);
+            (key.contains(".") ? pluginOverrides : options).setProperty(key, arg.substring(separator + 1));
+        }
+        new LoadSimulation(options, pluginOverrides).run();
+        System.exit(0);
+    }
+
+    private void run() throws IOException, InterruptedException {
+        int proxyCount = intOption("proxies", 1);
+        int backendCount = intOption("backends", 2);
+        boolean pooled = Boolean.parseBoolean(options.getProperty("pooled", "false"));
+        int playerCount = intOption("players", 2000);
+        int waves = intOption("waves", 2);
+        long waveMillis = TimeUnit.SECONDS.toMillis(longOption("wave-seconds", 10));
+        long waveGapMillis = TimeUnit.SECONDS.toMillis(longOption("wave-gap-seconds", 60));
+        long sessionMinMillis = TimeUnit.SECONDS.toMillis(longOption("session-min-seconds", 5));
+        long sessionMaxMillis = TimeUnit.SECONDS.toMillis(longOption("session-max-seconds", 30));
+        long giveUpMillis = TimeUnit.SECONDS.toMillis(longOption("give-up-seconds", 120));
+        long cooldownMillis = TimeUnit.SECONDS.toMillis(longOption("cooldown-seconds", 45));
+
+        Path dataRoot = Files.createTempDirectory("autoshutdown-sim");
+        List<FakeStatusServer> statusServers = new ArrayList<>();
+        Map<FakeStatusServer, FakeQueryServer> queryServers = new ConcurrentHashMap<>();
+        List<ProxyNode> nodes = new ArrayList<>();
+        try (FakePterodactylPanel panel = new FakePterodactylPanel(longOption("boot-delay-millis", 15_000),
+                longOption("stop-delay-millis", 3_000), longOption("panel-latency-millis", 50))) {
+
+            Properties config = new Properties();
+            config.setProperty("pterodactyl.url", panel.url());
+            config.setProperty("pterodactyl.api-key", "simulation");
+            config.setProperty("limbo-server.name", "limbo");
+            config.setProperty("auto-shutdown.enabled", "true");
+            config.setProperty("auto-shutdown.delay-seconds", "20");
+            config.setProperty("auto-shutdown.check-interval-seconds", "15");
+
+            StringJoiner names = new StringJoiner(",");
+            for (int i = 0; i < backendCount; i++) {
+                FakeStatusServer status = new FakeStatusServer(StatusPayloads.json(StatusPayloads.Layout.VANILLA, 8192, 0));
+                status.setResponseDelayMillis(longOption("status-delay-millis", 20));
+                status.setFlapProbability(Double.parseDouble(options.getProperty("flap-probability", "0.02")));
+                statusServers.add(status);
+                queryServers.put(status, new FakeQueryServer(status));
+                panel.addServer("server" + i, status);
+
+                String name = "backend" + i;
+                names.add(name);
+                config.setProperty("backend." + name + ".host", "127.0.0.1");
+                config.setProperty("backend." + name + ".port", String.valueOf(status.port()));
+                config.setProperty("backend." + name + ".pterodactyl-server-id", "server" + i);
+            }
+            config.setProperty("backends", names.toString());
+            if (pooled) {
+                config.setProperty("pools", "pool");
+                config.setProperty("pool.pool.members", names.toString());
+            }
+            config.putAll(pluginOverrides);
+
+            List<Properties> proxyConfigs = coordinate(config, proxyCount, dataRoot);
+            Logger logger = Boolean.parseBoolean(options.getProperty("verbose", "false"))
+                ? FakeVelocity.consoleLogger()
+                : FakeVelocity.silentLogger();
+            for (int p = 0; p < proxyCount; p++) {
+                SimulatedProxy proxy = new SimulatedProxy();
+                List<RegisteredServer> backends = new ArrayList<>();
+                proxy.addServer("limbo", new InetSocketAddress("127.0.0.1", 1), null);
+                for (int i = 0; i < backendCount; i++) {
+                    FakeStatusServer status = statusServers.get(i);
+                    backends.add(proxy.addServer("backend" + i, new InetSocketAddress("127.0.0.1", status.port()), status));
+                }
+                // Only ever a name to connect to; the plugin redirects to an instance
+                RegisteredServer pool = pooled ? proxy.addServer("pool", new InetSocketAddress("127.0.0.1", 1), null) : null;
+
+                Path dataDirectory = Files.createDirectories(dataRoot.resolve("proxy" + p));
+                try (OutputStream out = Files.newOutputStream(dataDirectory.resolve("config.properties"))) {
+                    proxyConfigs.get(p).store(out, "Load simulation, proxy " + p);
+                }
+                AutoShutdownPlugin plugin = new AutoShutdownPlugin(proxy.getProxyServer(), logger, dataDirectory);
+                proxy.attach(plugin);
+                plugin.onProxyInitialization(null);
+                nodes.add(new ProxyNode(proxy, plugin, backends, pool));
+            }
+
+            CountDownLatch finished = new CountDownLatch(playerCount);
+            replay(nodes, playerCount, waves, waveMillis, waveGapMillis, sessionMinMillis, sessionMaxMillis,
+                giveUpMillis, finished);
+
+            long lastLoginMillis = (waves - 1) * (waveMillis + waveGapMillis) + waveMillis;
+            if (!finished.await(lastLoginMillis + giveUpMillis + sessionMaxMillis + 60_000, TimeUnit.MILLISECONDS)) {
+                System.out.println("Warning: not every simulated player finished in time");
+            }
+            Thread.sleep(cooldownMillis);
+
+            report(nodes, panel, queryServers, playerCount, waves, backendCount);
+        } finally {
+            for (ProxyNode node : nodes) {
+                node.plugin().onProxyShutdown(null);
+                node.proxy().close();
+            }
+            for (FakeQueryServer query : queryServers.values()) {
+                query.close();
+            }
+            for (FakeStatusServer status : statusServers) {
+                status.close();
+            }
+            try (Stream<Path> files = Files.walk(dataRoot)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /** Gives every proxy its own node id, and for gossip its own port with all the others as peers. */
+    private static List<Properties> coordinate(Properties config, int proxyCount, Path dataRoot) throws IOException {
+        String mode = config.getProperty("coordination.mode", "none");
+        List<Integer> ports = new ArrayList<>();
+        if (mode.equalsIgnoreCase("gossip")) {
+            for (int p = 0; p < proxyCount; p++) {
+                try (DatagramSocket probe = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+                    ports.add(probe.getLocalPort());
+                }
+            }
+        }
+
+        List<Properties> configs = new ArrayList<>();
+        for (int p = 0; p < proxyCount; p++) {
+            Properties proxyConfig = new Properties();
+            proxyConfig.putAll(config);
+            proxyConfig.setProperty("coordination.node-id", "proxy" + p);
+            if (mode.equalsIgnoreCase("gossip")) {
+                StringJoiner peers = new StringJoiner(",");
+                for (int other = 0; other < proxyCount; other++) {
+                    if (other != p) {
+                        peers.add("127.0.0.1:" + ports.get(other));
+                    }
+                }
+                proxyConfig.setProperty("coordination.bind-address", "127.0.0.1");
+                proxyConfig.setProperty("coordination.port", String.valueOf(ports.get(p)));
+                proxyConfig.setProperty("coordination.peers", peers.toString());
+            } else if (mode.equalsIgnoreCase("file") && !config.containsKey("coordination.file")) {
+                proxyConfig.setProperty("coordination.file", dataRoot.resolve("coordination.json").toString());
+            }
+            configs.add(proxyConfig);
+        }
+        return configs;
+    }
+
+    private void replay(List<ProxyNode> nodes, int playerCount, int waves,
+                        long waveMillis, long waveGapMillis, long sessionMinMillis, long sessionMaxMillis,
+                        long giveUpMillis, CountDownLatch finished) {
+        for (ProxyNode node : nodes) {
+            SimulatedProxy proxy = node.proxy();
+            proxy.onArrival((player, server) -> {
+                PlayerRun run = runs.get(player.getName());
+                boolean there = run != null && (server == run.wanted
+                    || (run.wanted == node.pool() && node.backends().contains(server)));
+                if (!there || !run.arrived.compareAndSet(false, true)) {
+                    return;
+                }
+                joinToReady.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - run.loginNanos));
+                reached.increment();
+                proxy.getExecutor().schedule(() -> {
+                    proxy.disconnect(player);
+                    finished.countDown();
+                }, run.sessionMillis, TimeUnit.MILLISECONDS);
+            });
+        }
+
+        for (int i = 0; i < playerCount; i++) {
+            int wave = i % waves;
+            long at = wave * (waveMillis + waveGapMillis) + random.nextLong(Math.max(1, waveMillis));
+            ProxyNode node = nodes.get(random.nextInt(nodes.size()));
+            SimulatedProxy proxy = node.proxy();
+            RegisteredServer wanted = node.pool() != null
+                ? node.pool()
+                : node.backends().get(random.nextInt(node.backends().size()));
+            PlayerRun run = new PlayerRun(wanted,
+                sessionMinMillis + random.nextLong(Math.max(1, sessionMaxMillis - sessionMinMillis)));
+            String name = "Player" + i;
+            runs.put(name, run);
+
+            proxy.getExecutor().schedule(() -> {
+                run.loginNanos = System.nanoTime();
+                SimulatedProxy.SimPlayer player = proxy.login(name, run.wanted);
+                proxy.getExecutor().schedule(() -> {
+                    if (run.arrived.compareAndSet(false, true)) {
+                        gaveUp.increment();
+                        proxy.disconnect(player);
+                        finished.countDown();
+                    }
+                }, giveUpMillis, TimeUnit.MILLISECONDS);
+            }, at, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static final class PlayerRun {
+        private final RegisteredServer wanted;
+        private final long sessionMillis;
+        private final AtomicBoolean arrived = new AtomicBoolean();
+        private volatile long loginNanos;
+
+        private PlayerRun(RegisteredServer wanted, long sessionMillis) {
+            this.wanted = wanted;
+            this.sessionMillis = sessionMillis;
+        }
+    }
+
+    private void report(List<ProxyNode> nodes, FakePterodactylPanel panel, Map<FakeStatusServer, FakeQueryServer> queryServers,
+                        int playerCount, int waves, int backendCount) {
+        System.out.printf("%n== Load simulation: %d logins in %d wave(s) over %d backend(s) and %d proxy(s), coordination %s ==%n",
+            playerCount, waves, backendCount, nodes.size(), nodes.get(0).plugin().getCoordinator().getMode());
+        System.out.printf("Players: %d reached their backend, %d gave up waiting%n", reached.sum(), gaveUp.sum());
+        System.out.printf("Join-to-ready: p50 %d ms, p90 %d ms, p99 %d ms, max %d ms%n",
+            joinToReady.percentile(50), joinToReady.percentile(90), joinToReady.percentile(99), joinToReady.getMax());
+        System.out.printf("Failed connection attempts: %d, plugin errors: %d%n",
+            nodes.stream().mapToLong(node -> node.proxy().getFailedConnections()).sum(),
+            nodes.stream().mapToLong(node -> node.proxy().getPluginErrors()).sum());
+        for (BackendPool pool : nodes.get(0).plugin().getPools()) {
+            System.out.printf("Pool %s at the end: %s%n", pool.getName(), pool.describe());
+        }
+
+        System.out.printf("%n%-10s %7s %7s %10s %13s %12s %12s %10s%n",
+            "server", "starts", "stops", "duplicate", "status-probes", "query-stats", "panel-polls", "state");
+        for (FakePterodactylPanel.Server server : panel.getServers().stream()
+                .sorted(Comparator.comparing(FakePterodactylPanel.Server::getId)).toList()) {
+            System.out.printf("%-10s %7d %7d %10d %13d %12d %12d %10s%n",
+                server.getId(), server.getStartSignals(), server.getStopSignals(), server.getDuplicateSignals(),
+                server.getStatus().getProbeCount(), queryServers.get(server.getStatus()).getStatCount(),
+                server.getResourceRequests(), server.getState());
+        }
+
+        System.out.println();
+        for (int p = 0; p < nodes.size(); p++) {
+            PterodactylAPI api = nodes.get(p).plugin().getPterodactylAPI();
+            System.out.printf("Panel client, proxy %d: %d attempts, %d failed, %d retries, %d status polls dropped by the rate limit%n",
+                p, api.getRequestAttempts(), api.getFailedAttempts(),
+                api.getRetries(), api.getRateLimiter().getDroppedCount());
+        }
+    }
+
+    private int intOption(String key, int defaultValue) {
+        return Integer.parseInt(options.getProperty(key, String.valueOf(defaultValue)));
+    }
+
+    private long longOption(String key, long defaultValue) {
+        return Long.parseLong(options.getProperty(key, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,99 @@
+package com.jacocanete.autoshutdown;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full status ping round-trips through {@link StatusPingEngine} against an in-process fake
+ * server on loopback: connect, request, read and decode the frame, close. The concurrent variant
+ * shows how the single selector thread copes with many probes in flight.
+ *
+ * The {@code query} variants ask the same fake server for a Query basic stat through
+ * {@link QueryClient} instead: one datagram each way, with the challenge token cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PingBenchmark {
+
+    private static final String HOST = "127.0.0.1";
+    private static final int TIMEOUT_MS = 5000;
+
+    @Param({"0", "16384"})
+    public int faviconBytes;
+
+    private FakeStatusServer statusServer;
+    private StatusPingEngine engine;
+    private FakeQueryServer queryServer;
+    private TimerWheel timers;
+    private QueryClient queryClient;
+    private InetSocketAddress queryAddress;
+
+    @Setup
+    public void setup() throws IOException {
+        statusServer = new FakeStatusServer(StatusPayloads.json(StatusPayloads.Layout.VANILLA, faviconBytes, 10));
+        engine = new StatusPingEngine();
+        if (!roundTrip().hasStatus()) {
+            throw new IllegalStateException("Fake status server did not answer");
+        }
+
+        queryServer = new FakeQueryServer(statusServer);
+        queryServer.setPlayers(List.of("Alice", "Bob", "Carol"), 20);
+        timers = new TimerWheel(10, 512, FakeVelocity.silentLogger());
+        queryClient = new QueryClient(timers, FakeVelocity.silentLogger());
+        queryAddress = new InetSocketAddress(HOST, queryServer.port());
+        if (query().online() != 3) {
+            throw new IllegalStateException("Fake query server did not answer");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        engine.shutdown();
+        queryClient.close();
+        timers.stop();
+        queryServer.close();
+        statusServer.close();
+    }
+
+    @Benchmark
+    public PingResult roundTrip() {
+        return engine.ping(HOST, statusServer.port(), TIMEOUT_MS).join();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public PingResult roundTripConcurrent() {
+        return engine.ping(HOST, statusServer.port(), TIMEOUT_MS).join();
+    }
+
+    @Benchmark
+    public QueryResult query() {
+        return queryClient.basicStat(queryAddress, TIMEOUT_MS).join();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public QueryResult queryConcurrent() {
+        return queryClient.basicStat(queryAddress, TIMEOUT_MS).join();
+    }
+}
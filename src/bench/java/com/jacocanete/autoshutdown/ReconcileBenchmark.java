@@ -0,0 +1,118 @@
+package com.jacocanete.autoshutdown;
+
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * One periodic auto-shutdown sweep ({@code checkForAutoShutdown}) over many backends, on a real
+ * plugin instance loaded from a generated configuration. Every fourth backend has players on it;
+ * the rest are up, empty and already counting down. Status answers come from a long-lived cache
+ * entry, so this measures the decision path rather than network I/O.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReconcileBenchmark {
+
+    private static final int OCCUPIED_EVERY = 4;
+    private static final long SETTLE_TIMEOUT_MS = 10_000;
+
+    @Param({"10", "100", "1000"})
+    public int backendCount;
+
+    private FakeStatusServer statusServer;
+    private Path dataDirectory;
+    private AutoShutdownPlugin plugin;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        statusServer = new FakeStatusServer(StatusPayloads.json(StatusPayloads.Layout.VANILLA, 0, 0));
+        dataDirectory = Files.createTempDirectory("autoshutdown-bench");
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", statusServer.port());
+
+        Properties config = new Properties();
+        config.setProperty("pterodactyl.url", "http://127.0.0.1:9"); // Nothing listens; panel calls fail fast
+        config.setProperty("pterodactyl.api-key", "benchmark");
+        config.setProperty("pterodactyl.max-attempts", "1");
+        config.setProperty("auto-shutdown.enabled", "true");
+        config.setProperty("auto-shutdown.delay-seconds", "3600");
+        config.setProperty("status-cache.ttl-millis", String.valueOf(TimeUnit.HOURS.toMillis(1)));
+        config.setProperty("limbo-server.name", "limbo");
+
+        Map<String, RegisteredServer> servers = new LinkedHashMap<>();
+        StringJoiner names = new StringJoiner(",");
+        for (int i = 0; i < backendCount; i++) {
+            String name = "backend" + i;
+            names.add(name);
+            config.setProperty("backend." + name + ".host", address.getHostString());
+            config.setProperty("backend." + name + ".port", String.valueOf(address.getPort()));
+            config.setProperty("backend." + name + ".pterodactyl-server-id", "server" + i);
+            servers.put(name, FakeVelocity.registeredServer(name, address, i % OCCUPIED_EVERY == 0 ? 3 : 0));
+        }
+        config.setProperty("backends", names.toString());
+        try (OutputStream out = Files.newOutputStream(dataDirectory.resolve("config.properties"))) {
+            config.store(out, null);
+        }
+
+        plugin = new AutoShutdownPlugin(FakeVelocity.proxyServer(servers), FakeVelocity.silentLogger(), dataDirectory);
+        plugin.onProxyInitialization(null);
+        if (plugin.getBackends().size() != backendCount) {
+            throw new IllegalStateException("Plugin did not load the generated configuration");
+        }
+        awaitSettled();
+    }
+
+    /** Waits for the reconciliation done on load, so the sweeps measure the steady state. */
+    private void awaitSettled() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SETTLE_TIMEOUT_MS;
+        while (!plugin.getBackends().all().stream().allMatch(ManagedBackend::isReady)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Backends did not come up against the fake status server");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        plugin.onProxyShutdown(null);
+        statusServer.close();
+        try (Stream<Path> files = Files.walk(dataDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void sweep() {
+        plugin.checkForAutoShutdown();
+    }
+}
@@ -0,0 +1,322 @@
+package com.jacocanete.autoshutdown;
+
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.connection.PostLoginEvent;
+import com.velocitypowered.api.event.player.PlayerChooseInitialServerEvent;
+import com.velocitypowered.api.event.player.ServerConnectedEvent;
+import com.velocitypowered.api.event.player.ServerPreConnectEvent;
+import com.velocitypowered.api.proxy.ConnectionRequestBuilder;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import com.velocitypowered.api.scheduler.Scheduler;
+
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * A small working model of a Velocity proxy for load simulations. Players log in, are routed
+ * through the plugin's event handlers in the order Velocity fires them, connect between servers
+ * and disconnect, and scheduled tasks really run. A connection to a backend succeeds only while
+ * its fake status server is answering; the fallback (limbo) server always accepts.
+ */
+final class SimulatedProxy implements AutoCloseable {
+
+    final class SimPlayer {
+        private final UUID id = UUID.randomUUID();
+        private final String name;
+        private final Player handle;
+        private volatile RegisteredServer current;
+        private volatile boolean active = true;
+
+        private SimPlayer(String name) {
+            this.name = name;
+            this.handle = FakeVelocity.fake(Player.class, (proxy, method, args) -> switch (method.getName()) {
+                case "getUsername" -> this.name;
+                case "getUniqueId" -> id;
+                case "isActive" -> active;
+                case "getCurrentServer" -> Optional.ofNullable(current).map(this::connection);
+                case "createConnectionRequest" -> connectionRequest((RegisteredServer) args[0]);
+                default -> FakeVelocity.defaults(proxy, method, args);
+            });
+        }
+
+        String getName() {
+            return name;
+        }
+
+        RegisteredServer getCurrentServer() {
+            return current;
+        }
+
+        private ServerConnection connection(RegisteredServer server) {
+            return FakeVelocity.fake(ServerConnection.class, (proxy, method, args) -> switch (method.getName()) {
+                case "getServer" -> server;
+                case "getServerInfo" -> server.getServerInfo();
+                case "getPlayer" -> handle;
+                default -> FakeVelocity.defaults(proxy, method, args);
+            });
+        }
+
+        private ConnectionRequestBuilder connectionRequest(RegisteredServer target) {
+            return FakeVelocity.fake(ConnectionRequestBuilder.class, (proxy, method, args) -> switch (method.getName()) {
+                case "getServer" -> target;
+                case "connect" -> connect(this, target);
+                case "connectWithIndication" -> connect(this, target).thenApply(ConnectionRequestBuilder.Result::isSuccessful);
+                case "fireAndForget" -> {
+                    connect(this, target);
+                    yield null;
+                }
+                default -> FakeVelocity.defaults(proxy, method, args);
+            });
+        }
+    }
+
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "SimulatedProxy");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, RegisteredServer> servers = new ConcurrentHashMap<>();
+    private final Map<RegisteredServer, Set<Player>> connected = new ConcurrentHashMap<>();
+    private final Map<RegisteredServer, FakeStatusServer> statusServers = new ConcurrentHashMap<>();
+    private final Map<UUID, SimPlayer> playersById = new ConcurrentHashMap<>();
+    private final Map<String, SimPlayer> playersByName = new ConcurrentHashMap<>();
+    private final LongAdder failedConnections = new LongAdder();
+    private final LongAdder pluginErrors = new LongAdder();
+    private final ProxyServer proxy;
+
+    private volatile AutoShutdownPlugin plugin;
+    private volatile RegisteredServer fallback;
+    private volatile BiConsumer<SimPlayer, RegisteredServer> arrivalListener = (player, server) -> { };
+
+    SimulatedProxy() {
+        Scheduler scheduler = FakeVelocity.fake(Scheduler.class, (proxy, method, args) ->
+            method.getName().equals("buildTask") ? new TaskBuilder((Runnable) args[1]).handle : FakeVelocity.defaults(proxy, method, args));
+        CommandManager commandManager = FakeVelocity.fake(CommandManager.class, FakeVelocity::defaults);
+
+        proxy = FakeVelocity.fake(ProxyServer.class, (self, method, args) -> switch (method.getName()) {
+            case "getScheduler" -> scheduler;
+            case "getCommandManager" -> commandManager;
+            case "getServer" -> Optional.ofNullable(servers.get((String) args[0]));
+            case "getAllServers" -> List.copyOf(servers.values());
+            case "getPlayer" -> Optional.ofNullable(args[0] instanceof UUID id ? playersById.get(id) : playersByName.get((String) args[0]))
+                .map(player -> player.handle);
+            case "getAllPlayers" -> playersById.values().stream().map(player -> player.handle).toList();
+            case "getPlayerCount" -> playersById.size();
+            default -> FakeVelocity.defaults(self, method, args);
+        });
+    }
+
+    ProxyServer getProxyServer() {
+        return proxy;
+    }
+
+    ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    void attach(AutoShutdownPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    void onArrival(BiConsumer<SimPlayer, RegisteredServer> listener) {
+        this.arrivalListener = listener;
+    }
+
+    /** Registers a server; with a null status server it always accepts players and becomes the fallback. */
+    RegisteredServer addServer(String name, InetSocketAddress address, FakeStatusServer status) {
+        Set<Player> players = ConcurrentHashMap.newKeySet();
+        ServerInfo info = new ServerInfo(name, address);
+        RegisteredServer server = FakeVelocity.fake(RegisteredServer.class, (self, method, args) -> switch (method.getName()) {
+            case "getServerInfo" -> info;
+            case "getPlayersConnected" -> List.copyOf(players);
+            default -> FakeVelocity.defaults(self, method, args);
+        });
+        servers.put(name, server);
+        connected.put(server, players);
+        if (status != null) {
+            statusServers.put(server, status);
+        } else {
+            fallback = server;
+        }
+        return server;
+    }
+
+    long getFailedConnections() {
+        return failedConnections.sum();
+    }
+
+    /** Exceptions thrown out of the plugin's event handlers and scheduled tasks. */
+    long getPluginErrors() {
+        return pluginErrors.sum();
+    }
+
+    /** Runs plugin code the way Velocity does: an exception is logged, and the proxy carries on. */
+    private void fire(Runnable handler) {
+        try {
+            handler.run();
+        } catch (RuntimeException e) {
+            pluginErrors.increment();
+            e.printStackTrace();
+        }
+    }
+
+    /** Logs a player in with {@code wanted} as their initial server, firing the events Velocity would. */
+    SimPlayer login(String name, RegisteredServer wanted) {
+        SimPlayer player = new SimPlayer(name);
+        playersById.put(player.id, player);
+        playersByName.put(name, player);
+
+        fire(() -> plugin.onPlayerJoin(new PostLoginEvent(player.handle)));
+        PlayerChooseInitialServerEvent choose = new PlayerChooseInitialServerEvent(player.handle, wanted);
+        fire(() -> plugin.onChooseInitialServer(choose));
+        RegisteredServer initial = choose.getInitialServer().orElse(fallback);
+
+        // Velocity moves on to the next server in its try list, which is limbo here
+        connect(player, initial).thenAccept(result -> {
+            if (!result.isSuccessful() && initial != fallback) {
+                connect(player, fallback);
+            }
+        });
+        return player;
+    }
+
+    void disconnect(SimPlayer player) {
+        synchronized (player) {
+            if (!player.active) {
+                return;
+            }
+            player.active = false;
+        }
+        fire(() -> plugin.onPlayerDisconnect(
+            new DisconnectEvent(player.handle, DisconnectEvent.LoginStatus.SUCCESSFUL_LOGIN)));
+        RegisteredServer current = player.current;
+        if (current != null) {
+            connected.get(current).remove(player.handle);
+        }
+        playersById.remove(player.id);
+        playersByName.remove(player.name);
+    }
+
+    private CompletableFuture<ConnectionRequestBuilder.Result> connect(SimPlayer player, RegisteredServer requested) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (!player.active) {
+                return result(requested, ConnectionRequestBuilder.Status.CONNECTION_CANCELLED);
+            }
+
+            // The plugin may redirect the connection (pools) or deny it
+            ServerPreConnectEvent preConnect = new ServerPreConnectEvent(player.handle, requested);
+            fire(() -> plugin.onServerPreConnect(preConnect));
+            RegisteredServer target = preConnect.getResult().getServer().orElse(null);
+            if (target == null) {
+                return result(requested, ConnectionRequestBuilder.Status.CONNECTION_CANCELLED);
+            }
+            if (player.current == target) {
+                return result(target, ConnectionRequestBuilder.Status.ALREADY_CONNECTED);
+            }
+            FakeStatusServer status = statusServers.get(target);
+            if (status != null && !status.isAnswering()) {
+                failedConnections.increment();
+                return result(target, ConnectionRequestBuilder.Status.SERVER_DISCONNECTED);
+            }
+
+            RegisteredServer previous;
+            synchronized (player) {
+                if (!player.active) {
+                    return result(target, ConnectionRequestBuilder.Status.CONNECTION_CANCELLED);
+                }
+                previous = player.current;
+                connected.get(target).add(player.handle);
+                player.current = target;
+            }
+            // Like Velocity, the event fires while the player is still listed on the previous server
+            fire(() -> plugin.onServerConnected(new ServerConnectedEvent(player.handle, target, previous)));
+            if (previous != null) {
+                connected.get(previous).remove(player.handle);
+            }
+            arrivalListener.accept(player, target);
+            return result(target, ConnectionRequestBuilder.Status.SUCCESS);
+        }, executor);
+    }
+
+    private static ConnectionRequestBuilder.Result result(RegisteredServer target, ConnectionRequestBuilder.Status status) {
+        return FakeVelocity.fake(ConnectionRequestBuilder.Result.class, (proxy, method, args) -> switch (method.getName()) {
+            case "isSuccessful" -> status == ConnectionRequestBuilder.Status.SUCCESS;
+            case "getStatus" -> status;
+            case "getReasonComponent" -> Optional.empty();
+            case "getAttemptedConnection" -> target;
+            default -> FakeVelocity.defaults(proxy, method, args);
+        });
+    }
+
+    /** Velocity's task builder over the simulation's executor. */
+    private final class TaskBuilder {
+        private final Runnable task;
+        private final Scheduler.TaskBuilder handle;
+        private long delayMs;
+        private long repeatMs;
+
+        private TaskBuilder(Runnable task) {
+            this.task = task;
+            this.handle = FakeVelocity.fake(Scheduler.TaskBuilder.class, this::invoke);
+        }
+
+        private Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "delay" -> delayMs = toMillis(args);
+                case "repeat" -> repeatMs = toMillis(args);
+                case "clearDelay" -> delayMs = 0;
+                case "clearRepeat" -> repeatMs = 0;
+                case "schedule" -> {
+                    return schedule();
+                }
+                default -> {
+                    return FakeVelocity.defaults(proxy, method, args);
+                }
+            }
+            return proxy;
+        }
+
+        private static long toMillis(Object[] args) {
+            return args.length == 1 ? ((Duration) args[0]).toMillis() : ((TimeUnit) args[1]).toMillis((Long) args[0]);
+        }
+
+        private ScheduledTask schedule() {
+            Runnable guarded = () -> fire(task);
+            Future<?> future = repeatMs > 0
+                ? executor.scheduleAtFixedRate(guarded, delayMs, repeatMs, TimeUnit.MILLISECONDS)
+                : executor.schedule(guarded, delayMs, TimeUnit.MILLISECONDS);
+            return FakeVelocity.fake(ScheduledTask.class, (proxy, method, args) -> {
+                if (method.getName().equals("cancel")) {
+                    future.cancel(false);
+                    return null;
+                }
+                return FakeVelocity.defaults(proxy, method, args);
+            });
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,91 @@
+package com.jacocanete.autoshutdown;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status response parsing: the streaming player-count reader, the full snapshot parse used for
+ * the server list, and the String/indexOf parser the streaming reader replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatusParseBenchmark {
+
+    /** Decoded favicon image size in bytes; 0 for a server without one. */
+    @Param({"0", "16384", "65536"})
+    public int faviconBytes;
+
+    @Param({"VANILLA", "FAVICON_FIRST"})
+    public String layout;
+
+    private ByteBuffer payload;
+
+    @Setup
+    public void setup() {
+        payload = StatusPayloads.payload(StatusPayloads.Layout.valueOf(layout), faviconBytes, 37);
+        if (StatusResponseParser.parsePlayerCount(payload).online() != 37 || legacyIndexOf() != 37) {
+            throw new IllegalStateException("Parsers disagree on the benchmark payload");
+        }
+    }
+
+    @Benchmark
+    public PlayerCountResult streamingPlayerCount() {
+        return StatusResponseParser.parsePlayerCount(payload);
+    }
+
+    @Benchmark
+    public StatusSnapshot snapshot() {
+        return StatusResponseParser.parseSnapshot(payload);
+    }
+
+    /** What the plugin did before: decode the whole payload to a String, then search it. */
+    @Benchmark
+    public int legacyIndexOf() {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.duplicate().get(bytes);
+        return legacyParsePlayerCount(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    /** The original PlayerCountChecker.parsePlayerCount, unchanged. */
+    private static int legacyParsePlayerCount(String jsonResponse) {
+        try {
+            // Simple JSON parsing to get player count
+            // Look for "online":<number> in the players object
+            int playersIndex = jsonResponse.indexOf("\"players\":");
+            if (playersIndex != -1) {
+                int onlineIndex = jsonResponse.indexOf("\"online\":", playersIndex);
+                if (onlineIndex != -1) {
+                    onlineIndex += 9; // Move past "online":
+                    int commaIndex = jsonResponse.indexOf(",", onlineIndex);
+                    int braceIndex = jsonResponse.indexOf("}", onlineIndex);
+
+                    int endIndex = (commaIndex != -1 && commaIndex < braceIndex) ? commaIndex : braceIndex;
+                    if (endIndex != -1) {
+                        String countStr = jsonResponse.substring(onlineIndex, endIndex).trim();
+                        return Integer.parseInt(countStr);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Fall back to 0 if parsing fails
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.jacocanete.autoshutdown;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Realistic status response payloads for the benchmarks: a formatted MOTD, a player sample and
+ * an optional favicon of the given size. Vanilla servers send the favicon after the players;
+ * some proxies and modded servers put large fields first, which is the parser's worst case.
+ */
+final class StatusPayloads {
+
+    enum Layout {
+        VANILLA,
+        FAVICON_FIRST
+    }
+
+    private StatusPayloads() {
+    }
+
+    static String json(Layout layout, int faviconBytes, int online) {
+        JsonObject root = new JsonObject();
+        if (layout == Layout.FAVICON_FIRST && faviconBytes > 0) {
+            root.addProperty("favicon", favicon(faviconBytes));
+        }
+
+        JsonObject description = new JsonObject();
+        description.addProperty("text", "");
+        JsonArray extra = new JsonArray();
+        for (String part : new String[] {"A Minecraft Server", " - ", "now with auto-shutdown"}) {
+            JsonObject component = new JsonObject();
+            component.addProperty("text", part);
+            component.addProperty("color", "gold");
+            component.addProperty("bold", true);
+            extra.add(component);
+        }
+        description.add("extra", extra);
+        root.add("description", description);
+
+        JsonObject players = new JsonObject();
+        players.addProperty("max", 100);
+        players.addProperty("online", online);
+        JsonArray sample = new JsonArray();
+        SplittableRandom random = new SplittableRandom(online);
+        for (int i = 0; i < Math.min(online, 12); i++) {
+            JsonObject player = new JsonObject();
+            player.addProperty("name", "Player" + i);
+            player.addProperty("id", new UUID(random.nextLong(), random.nextLong()).toString());
+            sample.add(player);
+        }
+        players.add("sample", sample);
+        root.add("players", players);
+
+        JsonObject version = new JsonObject();
+        version.addProperty("name", "Paper 1.21.1");
+        version.addProperty("protocol", 767);
+        root.add("version", version);
+
+        if (layout == Layout.VANILLA && faviconBytes > 0) {
+            root.addProperty("favicon", favicon(faviconBytes));
+        }
+        root.addProperty("enforcesSecureChat", true);
+        return root.toString();
+    }
+
+    static ByteBuffer payload(Layout layout, int faviconBytes, int online) {
+        return ByteBuffer.wrap(json(layout, faviconBytes, online).getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+    }
+
+    /** A PNG data URI whose image is {@code bytes} long, as a server would send it. */
+    private static String favicon(int bytes) {
+        byte[] image = new byte[bytes];
+        new SplittableRandom(bytes).nextBytes(image);
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(image);
+    }
+}
@@ -0,0 +1,118 @@
+package com.jacocanete.autoshutdown;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-arming one of many pending timeouts (cancel it, schedule its replacement), which is what
+ * every join, leave and startup poll does to a backend's timer. {@code wheel} is the plugin's
+ * {@link TimerWheel}. {@code velocity} copies what Velocity's scheduler does for a one-shot task,
+ * since its implementation is not on this classpath: a daemon single-thread scheduled executor
+ * with the default policy, so a cancelled task stays queued until its delay runs out, and the
+ * task tracked in a per-plugin set under a lock while it is pending.
+ *
+ * All timers are minutes out, so nothing fires during a run and the cost measured is the
+ * bookkeeping alone. Cancelled executor tasks therefore pile up as they would in Velocity; both
+ * timers are rebuilt every iteration so that pile does not outgrow the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimerBenchmark {
+
+    private static final Runnable NOTHING = () -> { };
+    private static final long MIN_DELAY_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final long MAX_DELAY_MS = TimeUnit.MINUTES.toMillis(30);
+
+    @Param({"wheel", "velocity"})
+    public String timer;
+
+    @Param({"10000"})
+    public int pendingTimers;
+
+    private TimerWheel wheel;
+    private ScheduledExecutorService scheduler;
+    private Set<Object> pluginTasks;
+    private Object[] handles;
+    private SplittableRandom random;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        random = new SplittableRandom(42);
+        handles = new Object[pendingTimers];
+        if (timer.equals("wheel")) {
+            wheel = new TimerWheel(10, 512, FakeVelocity.silentLogger());
+        } else {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("Velocity Task Scheduler Timer").factory());
+            pluginTasks = new HashSet<>();
+        }
+        for (int i = 0; i < pendingTimers; i++) {
+            handles[i] = schedule();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public Object rearm() {
+        int slot = next;
+        next = slot + 1 == pendingTimers ? 0 : slot + 1;
+        cancel(handles[slot]);
+        return handles[slot] = schedule();
+    }
+
+    private Object schedule() {
+        long delayMs = random.nextLong(MIN_DELAY_MS, MAX_DELAY_MS);
+        if (wheel != null) {
+            return wheel.schedule(NOTHING, delayMs, TimeUnit.MILLISECONDS);
+        }
+        ScheduledFuture<?> future = scheduler.schedule(NOTHING, delayMs, TimeUnit.MILLISECONDS);
+        synchronized (pluginTasks) {
+            pluginTasks.add(future);
+        }
+        return future;
+    }
+
+    private void cancel(Object handle) {
+        if (handle instanceof TimerWheel.Timeout timeout) {
+            timeout.cancel();
+            return;
+        }
+        ((ScheduledFuture<?>) handle).cancel(false);
+        synchronized (pluginTasks) {
+            pluginTasks.remove(handle);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.jacocanete.autoshutdown;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VarInt encoding, decoding and sizing in {@link StatusProtocolCodec}, per value, for each
+ * encoded width. Status pings mostly see 1- and 2-byte values; 5 bytes is the worst case.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VarIntBenchmark {
+
+    private static final int VALUES = 1024;
+
+    @Param({"1", "2", "3", "5"})
+    public int width;
+
+    private final int[] values = new int[VALUES];
+    private ByteBuffer buffer;
+    private int encodedLength;
+
+    @Setup
+    public void setup() {
+        // Values whose VarInt is exactly `width` bytes long
+        long low = width == 1 ? 0 : 1L << (7 * (width - 1));
+        long high = Math.min(1L << (7 * width), Integer.MAX_VALUE + 1L);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = (int) random.nextLong(low, high);
+        }
+
+        buffer = ByteBuffer.allocate(VALUES * 5);
+        for (int value : values) {
+            StatusProtocolCodec.writeVarInt(buffer, value);
+        }
+        encodedLength = buffer.position();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public ByteBuffer encode() {
+        buffer.clear();
+        for (int value : values) {
+            StatusProtocolCodec.writeVarInt(buffer, value);
+        }
+        return buffer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int decode() throws IOException {
+        buffer.limit(encodedLength).position(0);
+        int sum = 0;
+        for (int i = 0; i < VALUES; i++) {
+            sum += StatusProtocolCodec.readVarInt(buffer);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public int size() {
+        int sum = 0;
+        for (int value : values) {
+            sum += StatusProtocolCodec.varIntSize(value);
+        }
+        return sum;
+    }
+}
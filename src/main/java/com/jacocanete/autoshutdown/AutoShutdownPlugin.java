@@ -4,23 +4,42 @@ import com.google.inject.Inject;
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.command.SimpleCommand;
 import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
 import com.velocitypowered.api.event.connection.PostLoginEvent;
+import com.velocitypowered.api.event.player.PlayerChooseInitialServerEvent;
+import com.velocitypowered.api.event.player.ServerConnectedEvent;
+import com.velocitypowered.api.event.player.ServerPreConnectEvent;
 import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyPingEvent;
 import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
 import com.velocitypowered.api.plugin.Plugin;
 import com.velocitypowered.api.plugin.annotation.DataDirectory;
+import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.ServerConnection;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.server.ServerPing;
+import com.velocitypowered.api.util.Favicon;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.serializer.gson.GsonComponentSerializer;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetSocketAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.UUID;
 import com.velocitypowered.api.scheduler.ScheduledTask;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -33,24 +52,49 @@ import java.util.stream.Collectors;
 )
 public class AutoShutdownPlugin {
 
+    /** How often each pool's scaler looks at the load. */
+    private static final long POOL_EVALUATE_SECONDS = 5;
+    /** Timer resolution; one wheel turn covers TIMER_TICK_MILLIS * TIMER_BUCKETS. */
+    private static final long TIMER_TICK_MILLIS = 10;
+    private static final int TIMER_BUCKETS = 512;
+
     private final ProxyServer server;
     private final Logger logger;
     private final Path dataDirectory;
 
     private PterodactylAPI pterodactylAPI;
-    private String mainServerName;
-    private String limboServerName;
-    private String mainServerHost;
-    private int mainServerPort;
-    private String pterodactylServerId;
-    private boolean startupInProgress = false;
-
-    private boolean autoShutdownEnabled;
-    private int autoShutdownDelay;
+    /** Kept across reloads, so a reload neither resets the panel quota nor closes the circuit. */
+    private PanelRateLimiter rateLimiter;
+    private CircuitBreaker circuitBreaker;
+    private BlockingIoExecutor ioExecutor;
+    /** Ungated virtual threads for panel calls waiting on rate-limiter tokens. */
+    private ExecutorService panelExecutor;
+    private TimerWheel timers;
+    /** Created the first time query mode is configured, then kept across reloads. */
+    private QueryClient queryClient;
+    private volatile int queryTimeoutMillis;
+    private StatusCache statusCache;
+    private StatusSnapshotStore snapshotStore;
+    private DemandPredictor demandPredictor;
+    private LifecycleJournal journal;
+    private MetricsServer metricsServer;
+    private volatile ProxyCoordinator coordinator = new StandaloneCoordinator();
+    private ProxyCoordinator.Settings coordinationSettings;
+    /** Used when coordination.node-id is not set; stays the same across reloads. */
+    private final String defaultNodeId = UUID.randomUUID().toString().substring(0, 8);
+    private volatile boolean serverListSnapshotsEnabled;
+    private volatile String serverListBackendName;
+    private volatile TransferQueue.Settings transferSettings;
+    private volatile BackendRegistry backends = new BackendRegistry(List.of());
+    private volatile List<BackendPool> pools = List.of();
+    /** Kept across reloads: it follows players, not configuration. */
+    private final PresenceIndex presence = new PresenceIndex();
+    private int presenceReconcileInterval;
+
     private int autoShutdownCheckInterval;
-    private long lastPlayerLeftTime = 0;
     private ScheduledTask autoShutdownTask;
-    private ScheduledTask startupMonitoringTask;
+    private ScheduledTask poolTask;
+    private ScheduledTask presenceTask;
     private volatile boolean isShuttingDown = false;
 
     @Inject
@@ -60,6 +104,67 @@ public class AutoShutdownPlugin {
         this.dataDirectory = dataDirectory;
     }
 
+    ProxyServer getServer() {
+        return server;
+    }
+
+    Logger getLogger() {
+        return logger;
+    }
+
+    PterodactylAPI getPterodactylAPI() {
+        return pterodactylAPI;
+    }
+
+    PresenceIndex getPresence() {
+        return presence;
+    }
+
+    TimerWheel getTimers() {
+        return timers;
+    }
+
+    StatusCache getStatusCache() {
+        return statusCache;
+    }
+
+    /** Null until query mode has been configured. */
+    QueryClient getQueryClient() {
+        return queryClient;
+    }
+
+    BackendRegistry getBackends() {
+        return backends;
+    }
+
+    List<BackendPool> getPools() {
+        return pools;
+    }
+
+    ProxyCoordinator getCoordinator() {
+        return coordinator;
+    }
+
+    LifecycleJournal getJournal() {
+        return journal;
+    }
+
+    DemandPredictor getDemandPredictor() {
+        return demandPredictor;
+    }
+
+    StatusSnapshotStore getSnapshotStore() {
+        return snapshotStore;
+    }
+
+    TransferQueue.Settings getTransferSettings() {
+        return transferSettings;
+    }
+
+    boolean isShuttingDown() {
+        return isShuttingDown;
+    }
+
     @Subscribe
     public void onProxyInitialization(ProxyInitializeEvent event) {
         logger.info("AutoShutdown plugin is starting...");
@@ -85,167 +190,203 @@ public class AutoShutdownPlugin {
             autoShutdownTask.cancel();
             autoShutdownTask = null;
         }
-        if (startupMonitoringTask != null) {
-            startupMonitoringTask.cancel();
-            startupMonitoringTask = null;
+        if (poolTask != null) {
+            poolTask.cancel();
+            poolTask = null;
+        }
+        if (presenceTask != null) {
+            presenceTask.cancel();
+            presenceTask = null;
+        }
+        for (ManagedBackend backend : backends.all()) {
+            backend.shutdown();
+        }
+        if (queryClient != null) {
+            queryClient.close();
+        }
+        if (timers != null) {
+            timers.stop();
         }
 
-        // Reset flags
-        startupInProgress = false;
-        lastPlayerLeftTime = 0;
-
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        coordinator.stop();
         if (pterodactylAPI != null) {
             pterodactylAPI.shutdown();
         }
+        if (panelExecutor != null) {
+            panelExecutor.shutdownNow();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        if (ioExecutor != null) {
+            ioExecutor.shutdown(5, TimeUnit.SECONDS);
+        }
+        StatusPingEngine.shutdownShared();
 
         logger.info("AutoShutdown plugin shutdown complete");
     }
 
     @Subscribe
     public void onPlayerJoin(PostLoginEvent event) {
-        String playerName = event.getPlayer().getUsername();
-        logger.info("Player '{}' joined the proxy, checking main server status...", playerName);
-
-        if (startupInProgress) {
-            logger.info("Server startup in progress, connecting '{}' to limbo server", playerName);
-            event.getPlayer().sendMessage(
-                Component.text("Server is starting up, please wait...")
-                    .color(NamedTextColor.YELLOW)
-            );
-            return;
+        Player player = event.getPlayer();
+        logger.info("Player '{}' joined the proxy, checking backend status...", player.getUsername());
+
+        for (ManagedBackend backend : backends.all()) {
+            if (backend.getConfig().startOnLogin()) {
+                backend.requestStartupOnLogin(player);
+            }
         }
+    }
 
-        // Check if main server is online
-        server.getScheduler()
-            .buildTask(this, () -> {
-                boolean isOnline = ServerPinger.isServerOnline(mainServerHost, mainServerPort);
+    /**
+     * Sends players whose initial server is a backend we know to be down straight to its limbo
+     * server, instead of letting Velocity try the backend and wait out the connect timeout. Only
+     * the in-memory lifecycle state is consulted here; the startup itself runs asynchronously.
+     * A pool, or any of its instances, as the initial server gets the instance the pool picks.
+     */
+    @Subscribe
+    public void onChooseInitialServer(PlayerChooseInitialServerEvent event) {
+        event.getInitialServer().ifPresent(initial -> {
+            BackendPool pool = poolFor(initial);
+            if (pool == null) {
+                return;
+            }
+            RegisteredServer placed = pool.place(event.getPlayer()).getRegisteredServer();
+            if (placed != null) {
+                event.setInitialServer(placed);
+            }
+        });
 
-                if (!isOnline) {
-                    logger.info("Main server is offline, triggering startup for player '{}'", playerName);
-                    startMainServer(playerName);
-                } else {
-                    logger.info("Main server is online, player '{}' can connect normally", playerName);
-                }
-            })
-            .schedule();
+        event.getInitialServer().flatMap(backends::get).ifPresent(backend -> {
+            if (backend.isReady()) {
+                return;
+            }
+            RegisteredServer limbo = server.getServer(backend.getConfig().limboServerName()).orElse(null);
+            if (limbo == null) {
+                return;
+            }
+
+            Player player = event.getPlayer();
+            logger.info("Server '{}' is {}, sending '{}' to limbo server '{}'",
+                backend.getName(), backend.getState(), player.getUsername(), limbo.getServerInfo().getName());
+            event.setInitialServer(limbo);
+            backend.parkInLimbo(player);
+        });
     }
 
-    private void startMainServer(String playerName) {
-        if (startupInProgress) {
+    /**
+     * While the backend behind the server list is asleep or booting, answers pings with the last
+     * status it reported, plus a marker line saying so. Only the in-memory snapshot is used: a
+     * server-list ping never causes a connection to the backend.
+     */
+    @Subscribe
+    public void onProxyPing(ProxyPingEvent event) {
+        if (!serverListSnapshotsEnabled) {
             return;
         }
-
-        startupInProgress = true;
-
-        // Cancel any existing startup monitoring
-        if (startupMonitoringTask != null) {
-            startupMonitoringTask.cancel();
+        ManagedBackend backend = serverListBackend();
+        if (backend == null || backend.isReady()) {
+            return;
         }
-
-        logger.info("Player '{}' triggered server startup - limbo plugin will handle connection", playerName);
-
-        // Start the server via Pterodactyl API
-        pterodactylAPI.startServer(pterodactylServerId)
-            .thenAccept(success -> {
-                if (success) {
-                    logger.info("Successfully sent start command to main server");
-
-                    // Notify player AFTER API call succeeds
-                    server.getPlayer(playerName).ifPresent(player -> {
-                        player.sendMessage(
-                            Component.text("Main server is offline. Starting server...")
-                                .color(NamedTextColor.YELLOW)
-                        );
-                    });
-
-                    // Wait for server to come online (check every 5 seconds for up to 2 minutes)
-                    startupMonitoringTask = server.getScheduler()
-                        .buildTask(this, new ServerStartupChecker(playerName))
-                        .delay(5, TimeUnit.SECONDS)
-                        .schedule();
-                } else {
-                    logger.error("Failed to start main server via Pterodactyl API");
-                    startupInProgress = false;
-
-                    server.getPlayer(playerName).ifPresent(player -> {
-                        player.sendMessage(
-                            Component.text("Failed to start main server. Please contact an administrator.")
-                                .color(NamedTextColor.RED)
-                        );
-                    });
-                }
-            });
-    }
-
-    private class ServerStartupChecker implements Runnable {
-        private final String playerName;
-        private int attempts = 0;
-        private final int maxAttempts = 24; // 2 minutes with 5-second intervals
-
-        public ServerStartupChecker(String playerName) {
-            this.playerName = playerName;
+        StatusSnapshot snapshot = snapshotStore.get(backend.getName());
+        if (snapshot == null) {
+            return;
         }
 
-        @Override
-        public void run() {
-            // Stop if plugin is shutting down
-            if (isShuttingDown) {
-                startupInProgress = false;
-                startupMonitoringTask = null;
-                return;
+        String marker = backend.getState() == BackendState.STARTING
+            ? "Starting up, join to be sent over when it is ready"
+            : "Sleeping, join to wake it up";
+        ServerPing ping = event.getPing();
+        try {
+            Component description = GsonComponentSerializer.gson().deserialize(snapshot.descriptionJson())
+                .append(Component.newline())
+                .append(Component.text(marker).color(NamedTextColor.GRAY));
+
+            // Keep the proxy's protocol, which already matches the client, and show the backend's version name
+            ServerPing.Builder builder = ping.asBuilder()
+                .description(description)
+                .version(new ServerPing.Version(ping.getVersion().getProtocol(), snapshot.versionName()))
+                .maximumPlayers(snapshot.maxPlayers());
+            if (snapshot.favicon() != null) {
+                builder.favicon(new Favicon(snapshot.favicon()));
             }
+            event.setPing(builder.build());
+        } catch (RuntimeException e) {
+            logger.debug("Cached status for '{}' could not be served: {}", backend.getName(), e.toString());
+        }
+    }
 
-            attempts++;
-
-            boolean isOnline = ServerPinger.isServerOnline(mainServerHost, mainServerPort);
-
-            if (isOnline) {
-                logger.info("Main server is now online!");
-                startupInProgress = false;
-                startupMonitoringTask = null; // Clear the reference
+    private ManagedBackend serverListBackend() {
+        BackendRegistry registry = backends;
+        if (serverListBackendName != null && !serverListBackendName.isBlank()) {
+            return registry.get(serverListBackendName).orElse(null);
+        }
+        return registry.all().stream().findFirst().orElse(null);
+    }
 
-                server.getPlayer(playerName).ifPresent(player -> {
-                    player.sendMessage(
-                        Component.text("Server is online! Preparing to connect you...")
-                            .color(NamedTextColor.GREEN)
-                    );
-                });
+    @Subscribe
+    public void onServerPreConnect(ServerPreConnectEvent event) {
+        if (!event.getResult().isAllowed()) {
+            return;
+        }
 
-                // Task will automatically stop since it's not rescheduled
+        // Connecting to a pool by its own name picks an instance; naming an instance keeps it
+        event.getResult().getServer().ifPresent(target -> {
+            BackendPool pool = poolFor(target);
+            if (pool == null || backends.get(target).isPresent()) {
                 return;
             }
-
-            // Check if player is still online - if not, stop monitoring
-            if (server.getPlayer(playerName).isEmpty()) {
-                logger.info("Player '{}' disconnected, stopping server startup monitoring", playerName);
-                startupInProgress = false;
-                startupMonitoringTask = null;
-                return;
+            RegisteredServer placed = pool.place(event.getPlayer()).getRegisteredServer();
+            if (placed != null) {
+                event.setResult(ServerPreConnectEvent.ServerResult.allowed(placed));
             }
+        });
 
-            if (attempts >= maxAttempts) {
-                logger.error("Server failed to start within the timeout period");
-                startupInProgress = false;
-                startupMonitoringTask = null;
-
-                server.getPlayer(playerName).ifPresent(player -> {
-                    player.sendMessage(
-                        Component.text("Server startup timed out. Please contact an administrator.")
-                            .color(NamedTextColor.RED)
-                    );
-                });
+        // Backends that start on login were already handled in onPlayerJoin
+        event.getResult().getServer()
+            .flatMap(backends::get)
+            .filter(backend -> !backend.getConfig().startOnLogin())
+            .ifPresent(backend -> backend.requestStartup(event.getPlayer()));
+    }
 
-                return;
-            }
+    @Subscribe
+    public void onServerConnected(ServerConnectedEvent event) {
+        // First, so the backend being left already counts without this player
+        presence.move(event.getPlayer().getUniqueId(), event.getServer().getServerInfo().getName());
+
+        // Limbo is not the end of the way; a placement only counts until the instance is reached
+        backends.get(event.getServer())
+            .map(ManagedBackend::getPool)
+            .ifPresent(pool -> pool.forget(event.getPlayer().getUniqueId()));
+        backends.get(event.getServer()).ifPresent(backend -> {
+            backend.getTransferQueue().remove(event.getPlayer().getUniqueId());
+            backend.onOccupied();
+        });
+
+        // Switched away from a managed backend
+        event.getPreviousServer()
+            .flatMap(backends::get)
+            .ifPresent(backend -> backend.onPlayerLeft(event.getPlayer()));
+    }
 
-            // Only reschedule if not shutting down and task hasn't been cancelled
-            if (!isShuttingDown && startupMonitoringTask != null) {
-                startupMonitoringTask = server.getScheduler()
-                    .buildTask(AutoShutdownPlugin.this, this)
-                    .delay(5, TimeUnit.SECONDS)
-                    .schedule();
-            }
+    @Subscribe
+    public void onPlayerDisconnect(DisconnectEvent event) {
+        Player player = event.getPlayer();
+        presence.remove(player.getUniqueId());
+        for (ManagedBackend backend : backends.all()) {
+            backend.getTransferQueue().remove(player.getUniqueId());
+            backend.forgetLogin(player.getUniqueId());
         }
+        for (BackendPool pool : pools) {
+            pool.forget(player.getUniqueId());
+        }
+        player.getCurrentServer()
+            .map(ServerConnection::getServer)
+            .flatMap(backends::get)
+            .ifPresent(backend -> backend.onPlayerLeft(player));
     }
 
     private void loadConfig() throws IOException {
@@ -284,26 +425,242 @@ public class AutoShutdownPlugin {
 
         String pterodactylUrl = config.getProperty("pterodactyl.url");
         String pterodactylApiKey = config.getProperty("pterodactyl.api-key");
-        pterodactylServerId = config.getProperty("pterodactyl.server-id");
-        mainServerName = config.getProperty("main-server.name");
-        mainServerHost = config.getProperty("main-server.host");
-        mainServerPort = Integer.parseInt(config.getProperty("main-server.port"));
-        limboServerName = config.getProperty("limbo-server.name");
 
         // Auto-shutdown settings
-        autoShutdownEnabled = Boolean.parseBoolean(config.getProperty("auto-shutdown.enabled", "false"));
-        autoShutdownDelay = Integer.parseInt(config.getProperty("auto-shutdown.delay-seconds", "300"));
         autoShutdownCheckInterval = Integer.parseInt(config.getProperty("auto-shutdown.check-interval-seconds", "60"));
-
-        if (pterodactylUrl == null || pterodactylApiKey == null || pterodactylServerId == null ||
-            mainServerName == null || mainServerHost == null || limboServerName == null) {
+        presenceReconcileInterval = Integer.parseInt(config.getProperty("presence.reconcile-seconds", "120"));
+
+        // Status cache settings
+        long statusCacheTtl = Long.parseLong(config.getProperty("status-cache.ttl-millis", "3000"));
+        long statusCacheOfflineTtl = Long.parseLong(config.getProperty("status-cache.offline-ttl-millis",
+            String.valueOf(statusCacheTtl)));
+        int pingTimeout = Integer.parseInt(config.getProperty("status-cache.ping-timeout-millis", "5000"));
+
+        // Status probe settings: ping, or Query with the status ping as fallback
+        String probeMode = config.getProperty("status-probe.mode", "ping").trim();
+        if (!probeMode.equalsIgnoreCase("ping") && !probeMode.equalsIgnoreCase("query")) {
+            throw new IOException("Unknown status-probe.mode '" + probeMode + "', expected ping or query");
+        }
+        boolean queryMode = probeMode.equalsIgnoreCase("query");
+        queryTimeoutMillis = Integer.parseInt(config.getProperty("status-probe.query-timeout-millis", "1000"));
+
+        // Pterodactyl client resilience settings
+        RetryPolicy retryPolicy = new RetryPolicy(
+            Integer.parseInt(config.getProperty("pterodactyl.max-attempts", "4")),
+            Long.parseLong(config.getProperty("pterodactyl.retry-base-millis", "500")),
+            Long.parseLong(config.getProperty("pterodactyl.retry-max-millis", "10000")));
+        int circuitFailureThreshold = Integer.parseInt(config.getProperty("pterodactyl.circuit-failure-threshold", "5"));
+        long circuitOpenMillis =
+            TimeUnit.SECONDS.toMillis(Long.parseLong(config.getProperty("pterodactyl.circuit-open-seconds", "30")));
+        int rateLimitPerMinute = Integer.parseInt(config.getProperty("pterodactyl.rate-limit-per-minute", "60"));
+        int rateLimitBurst = Integer.parseInt(config.getProperty("pterodactyl.rate-limit-burst", "10"));
+        int maxQueuedStatusPolls = Integer.parseInt(config.getProperty("pterodactyl.max-queued-status-polls", "8"));
+
+        // Server list settings
+        serverListSnapshotsEnabled = Boolean.parseBoolean(config.getProperty("server-list.cached-status", "true"));
+        serverListBackendName = config.getProperty("server-list.backend");
+
+        // Predictive pre-warming settings
+        DemandPredictor.Settings predictionSettings = new DemandPredictor.Settings(
+            Boolean.parseBoolean(config.getProperty("prediction.enabled", "false")),
+            TimeUnit.DAYS.toMillis(Long.parseLong(config.getProperty("prediction.half-life-days", "14"))),
+            Double.parseDouble(config.getProperty("prediction.prewarm-threshold", "0.5")),
+            TimeUnit.MINUTES.toMillis(Long.parseLong(config.getProperty("prediction.prewarm-lead-minutes", "5"))),
+            Double.parseDouble(config.getProperty("prediction.hold-threshold", "0.5")),
+            TimeUnit.MINUTES.toMillis(Long.parseLong(config.getProperty("prediction.hold-minutes", "15"))));
+
+        // Transfer queue settings: how fast waiting players are moved onto a backend once it is up
+        transferSettings = new TransferQueue.Settings(
+            Integer.parseInt(config.getProperty("transfer.batch-size", "5")),
+            Long.parseLong(config.getProperty("transfer.batch-interval-millis", "1000")),
+            Integer.parseInt(config.getProperty("transfer.max-attempts", "3")));
+
+        // Multi-proxy coordination settings
+        ProxyCoordinator.Settings coordination = parseCoordinationSettings(config);
+
+        // Blocking I/O settings (kept across reloads, the executor is created once)
+        int blockingIoConcurrency = Integer.parseInt(config.getProperty("blocking-io.max-concurrency", "16"));
+
+        if (pterodactylUrl == null || pterodactylApiKey == null) {
             throw new IOException("Missing required configuration values!");
         }
 
-        pterodactylAPI = new PterodactylAPI(pterodactylUrl, pterodactylApiKey);
+        List<BackendConfig> backendConfigs = BackendConfig.parseAll(config);
+        List<PoolConfig> poolConfigs = PoolConfig.parseAll(config, backendConfigs);
+
+        if (ioExecutor == null) {
+            ioExecutor = new BlockingIoExecutor(blockingIoConcurrency);
+        }
+        if (timers == null) {
+            timers = new TimerWheel(TIMER_TICK_MILLIS, TIMER_BUCKETS, logger);
+        }
+        if (snapshotStore == null) {
+            snapshotStore = new StatusSnapshotStore(dataDirectory.resolve("status-snapshots.json"), ioExecutor, logger);
+            snapshotStore.load();
+        }
+        if (journal == null) {
+            journal = new LifecycleJournal(dataDirectory.resolve("lifecycle.journal"), ioExecutor, logger);
+            journal.open();
+        }
+        if (demandPredictor == null) {
+            demandPredictor = new DemandPredictor(dataDirectory.resolve("demand-profiles.json"), ioExecutor, logger,
+                predictionSettings);
+            demandPredictor.load();
+        } else {
+            demandPredictor.setSettings(predictionSettings);
+        }
+        if (panelExecutor == null) {
+            panelExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("AutoShutdown-Panel-", 0).factory());
+        }
+        if (rateLimiter == null) {
+            rateLimiter = new PanelRateLimiter(rateLimitPerMinute, rateLimitBurst, maxQueuedStatusPolls);
+        } else {
+            rateLimiter.setLimits(rateLimitPerMinute, rateLimitBurst, maxQueuedStatusPolls);
+        }
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker(circuitFailureThreshold, circuitOpenMillis);
+        } else {
+            circuitBreaker.setLimits(circuitFailureThreshold, circuitOpenMillis);
+        }
+        // Calls already under way finish on the old client, against the same limiter and breaker
+        PterodactylAPI previousAPI = pterodactylAPI;
+        pterodactylAPI = new PterodactylAPI(pterodactylUrl, pterodactylApiKey, ioExecutor, panelExecutor, timers, logger,
+            retryPolicy, circuitBreaker, rateLimiter);
+        if (previousAPI != null) {
+            previousAPI.shutdown();
+        }
+        if (queryMode && queryClient == null) {
+            queryClient = new QueryClient(timers, logger);
+        }
+        statusCache = new StatusCache(statusCacheTtl, statusCacheOfflineTtl, pingTimeout,
+            queryMode ? queryClient : null, queryTimeoutMillis, logger);
+        restartCoordinator(coordination);
+
+        List<ManagedBackend> managedBackends = new ArrayList<>();
+        for (BackendConfig backendConfig : backendConfigs) {
+            managedBackends.add(new ManagedBackend(this, backendConfig));
+        }
+        BackendRegistry registry = new BackendRegistry(managedBackends);
+
+        // Pool membership decides how a backend is restored, so pools come first
+        List<BackendPool> managedPools = new ArrayList<>();
+        for (PoolConfig poolConfig : poolConfigs) {
+            List<ManagedBackend> members = new ArrayList<>();
+            for (String member : poolConfig.members()) {
+                members.add(registry.get(member).orElseThrow());
+            }
+            managedPools.add(new BackendPool(this, poolConfig, members));
+        }
+        for (ManagedBackend backend : managedBackends) {
+            backend.restore(journal.get(backend.getName()));
+        }
+        backends = registry;
+        pools = List.copyOf(managedPools);
+
+        // Player counts come from events from here on; start them from what Velocity has now
+        for (ManagedBackend backend : managedBackends) {
+            RegisteredServer registeredServer = backend.getRegisteredServer();
+            if (registeredServer != null) {
+                presence.reset(backend.getName(), registeredServer.getPlayersConnected());
+            }
+        }
+
+        // Learn each backend's real state now, so login routing does not act on the OFFLINE default
+        for (ManagedBackend backend : managedBackends) {
+            backend.reconcile();
+        }
 
         // Validate configuration
         validateConfiguration();
+
+        restartMetricsServer(config);
+    }
+
+    private ProxyCoordinator.Settings parseCoordinationSettings(Properties config) throws IOException {
+        ProxyCoordinator.Mode mode = ProxyCoordinator.Mode.valueOf(
+            config.getProperty("coordination.mode", "none").trim().toUpperCase());
+
+        List<InetSocketAddress> peers = new ArrayList<>();
+        for (String peer : config.getProperty("coordination.peers", "").split(",")) {
+            peer = peer.trim();
+            if (peer.isEmpty()) {
+                continue;
+            }
+            int separator = peer.lastIndexOf(':');
+            if (separator < 1) {
+                throw new IOException("Invalid coordination peer '" + peer + "', expected host:port");
+            }
+            peers.add(new InetSocketAddress(peer.substring(0, separator), Integer.parseInt(peer.substring(separator + 1))));
+        }
+
+        String file = config.getProperty("coordination.file");
+        if (mode == ProxyCoordinator.Mode.FILE && (file == null || file.isBlank())) {
+            throw new IOException("coordination.file is required when coordination.mode=file");
+        }
+
+        return new ProxyCoordinator.Settings(
+            mode,
+            config.getProperty("coordination.node-id", defaultNodeId),
+            Long.parseLong(config.getProperty("coordination.heartbeat-millis", "1000")),
+            Long.parseLong(config.getProperty("coordination.node-timeout-millis", "5000")),
+            TimeUnit.SECONDS.toMillis(Long.parseLong(config.getProperty("coordination.lease-seconds", "180"))),
+            new InetSocketAddress(config.getProperty("coordination.bind-address", "0.0.0.0"),
+                Integer.parseInt(config.getProperty("coordination.port", "25580"))),
+            peers,
+            config.getProperty("coordination.secret"),
+            Long.parseLong(config.getProperty("coordination.settle-millis", "250")),
+            file == null || file.isBlank() ? null : dataDirectory.resolve(file.trim()));
+    }
+
+    /**
+     * Keeps the running coordinator if its settings are unchanged, so a reload does not drop the
+     * leases of starts and stops in progress. One that can not start leaves this proxy uncoordinated.
+     */
+    private void restartCoordinator(ProxyCoordinator.Settings settings) {
+        if (settings.equals(coordinationSettings)) {
+            return;
+        }
+        coordinator.stop();
+        coordinationSettings = settings;
+
+        ProxyCoordinator next = new StandaloneCoordinator();
+        try {
+            ProxyCoordinator created = ProxyCoordinator.create(settings, this::localPlayerCounts, ioExecutor, timers, logger);
+            created.start();
+            next = created;
+        } catch (IOException e) {
+            logger.error("Failed to start {} coordination, this proxy will act alone: {}", settings.mode(), e.toString());
+        }
+        coordinator = next;
+    }
+
+    private Map<String, Integer> localPlayerCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (ManagedBackend backend : backends.all()) {
+            counts.put(backend.getName(), backend.getLocalPlayerCount());
+        }
+        return counts;
+    }
+
+    /** (Re)starts the optional Prometheus endpoint; a port that cannot be bound does not fail the load. */
+    private void restartMetricsServer(Properties config) {
+        if (metricsServer != null) {
+            metricsServer.stop();
+            metricsServer = null;
+        }
+        if (!Boolean.parseBoolean(config.getProperty("metrics.enabled", "false"))) {
+            return;
+        }
+
+        String bindAddress = config.getProperty("metrics.bind-address", "127.0.0.1");
+        int port = Integer.parseInt(config.getProperty("metrics.port", "9225"));
+        MetricsServer metrics = new MetricsServer(this);
+        try {
+            metrics.start(bindAddress, port);
+            metricsServer = metrics;
+        } catch (IOException e) {
+            logger.error("Failed to start metrics endpoint on {}:{}: {}", bindAddress, port, e.toString());
+        }
     }
 
     private void logRegisteredServers() {
@@ -319,115 +676,134 @@ public class AutoShutdownPlugin {
 
     private void validateConfiguration() {
         logger.info("Validating Pterodactyl API configuration...");
-        logger.info("Panel URL: {}", pterodactylServerId != null ? "Configured" : "NOT SET");
-        logger.info("API Key: {}", pterodactylServerId != null ? "Configured (hidden)" : "NOT SET");
-        logger.info("Server ID: {}", pterodactylServerId != null ? pterodactylServerId : "NOT SET");
-
-        // Test API connection
-        pterodactylAPI.getServerStatus(pterodactylServerId)
-            .thenAccept(status -> {
-                if (status != null && !status.equals("offline")) {
-                    logger.info("✓ Pterodactyl API connection successful - Server status: {}", status);
-                } else {
-                    logger.warn("⚠ Pterodactyl API connection issues - check API key and server ID");
-                }
-            })
-            .exceptionally(throwable -> {
-                logger.error("✗ Pterodactyl API connection failed - check URL, API key, and server ID");
-                return null;
-            });
+        logger.info("Managed backends: {}", backends.size());
+
+        for (ManagedBackend backend : backends.all()) {
+            String serverId = backend.getConfig().pterodactylServerId();
+            logger.info("Backend '{}' -> Pterodactyl server ID: {}", backend.getName(), serverId);
+
+            // Test API connection
+            pterodactylAPI.getServerStatus(serverId)
+                .thenAccept(status -> {
+                    if (status != null && !status.equals("offline")) {
+                        logger.info("✓ Pterodactyl API connection successful for '{}' - Server status: {}",
+                            backend.getName(), status);
+                    } else {
+                        logger.warn("⚠ Pterodactyl API connection issues for '{}' - check API key and server ID",
+                            backend.getName());
+                    }
+                })
+                .exceptionally(throwable -> {
+                    logger.error("✗ Pterodactyl API connection failed for '{}' - check URL, API key, and server ID",
+                        backend.getName());
+                    return null;
+                });
+        }
     }
 
     private void validateServerNames() {
-        // Check main server
-        RegisteredServer mainServer = server.getServer(mainServerName).orElse(null);
-        if (mainServer != null) {
-            logger.info("✓ Main server '{}' found in Velocity configuration", mainServerName);
-        } else {
-            logger.error("✗ Main server '{}' NOT found in Velocity configuration!", mainServerName);
-            logger.error("Available servers: {}", server.getAllServers().stream()
-                .map(s -> s.getServerInfo().getName())
-                .collect(Collectors.joining(", ")));
-        }
+        for (ManagedBackend backend : backends.all()) {
+            // Check managed server
+            if (backend.getRegisteredServer() != null) {
+                logger.info("✓ Server '{}' found in Velocity configuration", backend.getName());
+            } else {
+                logger.error("✗ Server '{}' NOT found in Velocity configuration!", backend.getName());
+                logger.error("Available servers: {}", server.getAllServers().stream()
+                    .map(s -> s.getServerInfo().getName())
+                    .collect(Collectors.joining(", ")));
+            }
 
-        // Check limbo server
-        RegisteredServer limboServer = server.getServer(limboServerName).orElse(null);
-        if (limboServer != null) {
-            logger.info("✓ Limbo server '{}' found in Velocity configuration", limboServerName);
-        } else {
-            logger.warn("⚠ Limbo server '{}' NOT found in Velocity configuration", limboServerName);
+            // Check limbo server
+            String limboServerName = backend.getConfig().limboServerName();
+            RegisteredServer limboServer = server.getServer(limboServerName).orElse(null);
+            if (limboServer != null) {
+                logger.info("✓ Limbo server '{}' found in Velocity configuration", limboServerName);
+            } else {
+                logger.warn("⚠ Limbo server '{}' NOT found in Velocity configuration", limboServerName);
+            }
         }
     }
 
     private void startAutoShutdownMonitoring() {
-        if (!autoShutdownEnabled) {
+        // Events keep the player counts; this only catches any they missed
+        presenceTask = server.getScheduler()
+            .buildTask(this, this::reconcilePresence)
+            .repeat(presenceReconcileInterval, TimeUnit.SECONDS)
+            .schedule();
+
+        if (!pools.isEmpty()) {
+            logger.info("Scaling {} pool(s) every {}s", pools.size(), POOL_EVALUATE_SECONDS);
+            poolTask = server.getScheduler()
+                .buildTask(this, this::evaluatePools)
+                .repeat(POOL_EVALUATE_SECONDS, TimeUnit.SECONDS)
+                .schedule();
+        }
+
+        long enabledCount = backends.all().stream()
+            .filter(backend -> backend.getConfig().autoShutdownEnabled())
+            .count();
+        if (enabledCount == 0) {
             logger.info("Auto-shutdown is disabled");
             return;
         }
 
-        logger.info("Starting auto-shutdown monitoring (delay: {}s, check interval: {}s)",
-                   autoShutdownDelay, autoShutdownCheckInterval);
-        logger.info("Will monitor '{}' server for empty status", mainServerName);
+        logger.info("Starting auto-shutdown monitoring for {} backend(s) (reconcile interval: {}s)",
+                   enabledCount, autoShutdownCheckInterval);
 
+        // Connect/disconnect events drive the idle timers; this one task only catches anything they
+        // missed, for every backend at once
         autoShutdownTask = server.getScheduler()
             .buildTask(this, this::checkForAutoShutdown)
             .repeat(autoShutdownCheckInterval, TimeUnit.SECONDS)
             .schedule();
     }
 
-    private void checkForAutoShutdown() {
-        if (!autoShutdownEnabled || isShuttingDown) {
+    private void evaluatePools() {
+        if (isShuttingDown) {
             return;
         }
-
-        // Check if main server is online first
-        boolean mainServerOnline = ServerPinger.isServerOnline(mainServerHost, mainServerPort);
-        if (!mainServerOnline) {
-            return; // Server is already offline
+        for (BackendPool pool : pools) {
+            try {
+                pool.evaluate();
+            } catch (RuntimeException e) {
+                logger.error("Scaling pool '{}' failed", pool.getName(), e);
+            }
         }
+    }
 
-        // Get player count from proxy for the main server
-        RegisteredServer mainServer = server.getServer(mainServerName).orElse(null);
-        int playerCount = PlayerCountChecker.getPlayerCountFromProxy(mainServer);
-
-        if (playerCount > 0) {
-            // Players are online, reset timer
-            if (lastPlayerLeftTime != 0) {
-                logger.info("Players detected on main server ({}), cancelling auto-shutdown", playerCount);
-            } else {
-                logger.debug("Main server has {} players online, auto-shutdown not needed", playerCount);
-            }
-            lastPlayerLeftTime = 0;
+    private void reconcilePresence() {
+        if (isShuttingDown) {
             return;
         }
+        for (ManagedBackend backend : backends.all()) {
+            RegisteredServer registeredServer = backend.getRegisteredServer();
+            if (registeredServer != null && presence.reconcile(backend.getName(), registeredServer.getPlayersConnected())) {
+                logger.warn("Player count for '{}' had drifted from Velocity's, corrected to {}",
+                    backend.getName(), backend.getLocalPlayerCount());
+            }
+        }
+    }
 
-        // No players online
-        long currentTime = System.currentTimeMillis();
+    /** The pool a server belongs to, whether it is named after the pool or is one of its instances. */
+    private BackendPool poolFor(RegisteredServer registeredServer) {
+        String name = registeredServer.getServerInfo().getName();
+        for (BackendPool pool : pools) {
+            if (pool.getName().equalsIgnoreCase(name)) {
+                return pool;
+            }
+        }
+        return backends.get(name).map(ManagedBackend::getPool).orElse(null);
+    }
 
-        if (lastPlayerLeftTime == 0) {
-            // First time we detected empty server
-            lastPlayerLeftTime = currentTime;
-            logger.info("Main server is empty (0 players), starting auto-shutdown timer ({} seconds)", autoShutdownDelay);
+    /** One reconciliation sweep over every backend; package-private so the benchmarks can drive it. */
+    void checkForAutoShutdown() {
+        if (isShuttingDown) {
             return;
         }
 
-        // Check if enough time has passed
-        long timeSinceEmpty = (currentTime - lastPlayerLeftTime) / 1000;
-        if (timeSinceEmpty >= autoShutdownDelay) {
-            logger.info("No players in server, shutting down now (empty for {} seconds)", timeSinceEmpty);
-
-            pterodactylAPI.stopServer(pterodactylServerId)
-                .thenAccept(success -> {
-                    if (success) {
-                        logger.info("Successfully sent shutdown command to main server via Pterodactyl API");
-                        lastPlayerLeftTime = 0; // Reset timer
-                    } else {
-                        logger.error("Failed to shutdown main server via Pterodactyl API - check credentials and server ID");
-                    }
-                });
-        } else {
-            long timeRemaining = autoShutdownDelay - timeSinceEmpty;
-            logger.info("No players in server, shutting down in {} seconds", timeRemaining);
+        for (ManagedBackend backend : backends.all()) {
+            backend.reconcile();
+            backend.maybePrewarm();
         }
     }
 
@@ -455,16 +831,22 @@ public class AutoShutdownPlugin {
 
             switch (args[0].toLowerCase()) {
                 case "shutdown":
-                    handleShutdownCommand(source);
+                    handleShutdownCommand(source, args);
                     break;
                 case "reload":
                     handleReloadCommand(source);
                     break;
                 case "status":
-                    handleStatusCommand(source);
+                    handleStatusCommand(source, args);
                     break;
                 case "timer":
-                    handleTimerCommand(source);
+                    handleTimerCommand(source, args);
+                    break;
+                case "stats":
+                    handleStatsCommand(source, args);
+                    break;
+                case "predict":
+                    handlePredictCommand(source, args);
                     break;
                 default:
                     sendHelp(source);
@@ -472,28 +854,53 @@ public class AutoShutdownPlugin {
             }
         }
 
-        private void handleShutdownCommand(CommandSource source) {
-            source.sendMessage(Component.text("Initiating immediate server shutdown in 5 seconds...")
+        /**
+         * Resolves the optional backend argument. Without one, every backend is selected.
+         * Returns null (after telling the source) if the named backend does not exist.
+         */
+        private Collection<ManagedBackend> selectBackends(CommandSource source, String[] args) {
+            if (args.length < 2) {
+                return backends.all();
+            }
+            ManagedBackend backend = backends.get(args[1]).orElse(null);
+            if (backend == null) {
+                source.sendMessage(Component.text("Unknown backend '" + args[1] + "'")
+                    .color(NamedTextColor.RED));
+                return null;
+            }
+            return List.of(backend);
+        }
+
+        private void handleShutdownCommand(CommandSource source, String[] args) {
+            if (args.length < 2 && backends.size() > 1) {
+                source.sendMessage(Component.text("Usage: /autoshutdown shutdown <backend>")
+                    .color(NamedTextColor.RED));
+                return;
+            }
+            Collection<ManagedBackend> selected = selectBackends(source, args);
+            if (selected == null || selected.isEmpty()) {
+                return;
+            }
+            ManagedBackend backend = selected.iterator().next();
+
+            source.sendMessage(Component.text("Initiating immediate shutdown of '" + backend.getName() + "' in 5 seconds...")
                 .color(NamedTextColor.YELLOW));
-            logger.info("Immediate shutdown commanded by {}", source);
-
-            server.getScheduler()
-                .buildTask(AutoShutdownPlugin.this, () -> {
-                    pterodactylAPI.stopServer(pterodactylServerId)
-                        .thenAccept(success -> {
-                            if (success) {
-                                logger.info("Manual shutdown command sent successfully");
-                                source.sendMessage(Component.text("Shutdown command sent to server")
-                                    .color(NamedTextColor.GREEN));
-                            } else {
-                                logger.error("Manual shutdown command failed");
-                                source.sendMessage(Component.text("Failed to shutdown server - check API connection")
-                                    .color(NamedTextColor.RED));
-                            }
-                        });
-                })
-                .delay(5, TimeUnit.SECONDS)
-                .schedule();
+            logger.info("Immediate shutdown of '{}' commanded by {}", backend.getName(), source);
+
+            timers.schedule(() -> {
+                backend.stopServer()
+                    .thenAccept(success -> {
+                        if (success) {
+                            logger.info("Manual shutdown command sent successfully");
+                            source.sendMessage(Component.text("Shutdown command sent to server")
+                                .color(NamedTextColor.GREEN));
+                        } else {
+                            logger.error("Manual shutdown command failed");
+                            source.sendMessage(Component.text("Failed to shutdown server - check API connection")
+                                .color(NamedTextColor.RED));
+                        }
+                    });
+            }, 5, TimeUnit.SECONDS);
         }
 
         private void handleReloadCommand(CommandSource source) {
@@ -505,6 +912,17 @@ public class AutoShutdownPlugin {
                 if (autoShutdownTask != null) {
                     autoShutdownTask.cancel();
                 }
+                if (poolTask != null) {
+                    poolTask.cancel();
+                    poolTask = null;
+                }
+                if (presenceTask != null) {
+                    presenceTask.cancel();
+                    presenceTask = null;
+                }
+                for (ManagedBackend backend : backends.all()) {
+                    backend.shutdown();
+                }
 
                 // Reload config
                 loadConfig();
@@ -523,89 +941,271 @@ public class AutoShutdownPlugin {
             }
         }
 
-        private void handleStatusCommand(CommandSource source) {
+        private void handleStatusCommand(CommandSource source, String[] args) {
+            Collection<ManagedBackend> selected = selectBackends(source, args);
+            if (selected == null) {
+                return;
+            }
+
             source.sendMessage(Component.text("=== AutoShutdown Status ===").color(NamedTextColor.GOLD));
+            source.sendMessage(Component.text("Pterodactyl API circuit: " + pterodactylAPI.getCircuitState())
+                .color(pterodactylAPI.getCircuitState() == CircuitBreaker.State.CLOSED ? NamedTextColor.GREEN : NamedTextColor.RED));
+            PanelRateLimiter limiter = pterodactylAPI.getRateLimiter();
+            source.sendMessage(Component.text(String.format("Pterodactyl API queue: %d waiting, avg wait %.0fms, max %dms, %d polls dropped",
+                    limiter.getQueueDepth(), limiter.getAverageWaitMillis(), limiter.getMaxWaitMillis(), limiter.getDroppedCount()))
+                .color(NamedTextColor.GRAY));
+            source.sendMessage(Component.text("Blocking I/O in flight: " + ioExecutor.getInFlightCount()
+                    + " (" + ioExecutor.getWaitingCount() + " waiting)")
+                .color(NamedTextColor.GRAY));
+            source.sendMessage(Component.text("Timers pending: " + timers.getPendingCount())
+                .color(NamedTextColor.GRAY));
+            if (queryClient != null) {
+                source.sendMessage(Component.text("Query: " + queryClient.getRequestCount() + " datagrams sent, "
+                        + queryClient.getTimeoutCount() + " timed out, " + queryClient.getCachedTokenCount() + " token(s) cached")
+                    .color(NamedTextColor.GRAY));
+            }
+            if (coordinator.getMode() != ProxyCoordinator.Mode.NONE) {
+                source.sendMessage(Component.text("Coordination: " + coordinator.getMode() + " as '" + coordinator.getNodeId()
+                        + "', " + coordinator.getLivePeerCount() + " other proxy(s) live")
+                    .color(NamedTextColor.GRAY));
+            }
+            for (BackendPool pool : pools) {
+                source.sendMessage(Component.text("[" + pool.getName() + "] Pool: " + pool.describe())
+                    .color(NamedTextColor.AQUA));
+            }
+            for (ManagedBackend backend : selected) {
+                sendBackendStatus(source, backend);
+            }
+        }
+
+        private void sendBackendStatus(CommandSource source, ManagedBackend backend) {
+            BackendConfig config = backend.getConfig();
+            String prefix = "[" + backend.getName() + "] ";
 
             // Show configuration details
-            source.sendMessage(Component.text("Checking: " + mainServerHost + ":" + mainServerPort)
+            source.sendMessage(Component.text(prefix + "Checking: " + config.host() + ":" + config.port())
                 .color(NamedTextColor.GRAY));
 
-            RegisteredServer mainServer = server.getServer(mainServerName).orElse(null);
-            int playerCount = PlayerCountChecker.getPlayerCountFromProxy(mainServer);
-
-            source.sendMessage(Component.text("Players: " + playerCount).color(NamedTextColor.BLUE));
-            source.sendMessage(Component.text("Auto-shutdown: " + (autoShutdownEnabled ? "ENABLED" : "DISABLED"))
-                .color(autoShutdownEnabled ? NamedTextColor.GREEN : NamedTextColor.RED));
+            if (coordinator.getMode() == ProxyCoordinator.Mode.NONE) {
+                source.sendMessage(Component.text("Players: " + backend.getPlayerCount()).color(NamedTextColor.BLUE));
+            } else {
+                String holder = coordinator.getLeaseHolder(backend.getName());
+                source.sendMessage(Component.text("Players: " + backend.getLocalPlayerCount() + " here, "
+                        + coordinator.getRemotePlayerCount(backend.getName()) + " on other proxies")
+                    .color(NamedTextColor.BLUE));
+                source.sendMessage(Component.text("Power lease: " + (holder == null ? "free" : "held by '" + holder + "'"))
+                    .color(NamedTextColor.GRAY));
+            }
+            source.sendMessage(Component.text("Waiting to transfer: " + backend.getTransferQueue().size())
+                .color(NamedTextColor.BLUE));
+            if (backend.getPool() != null) {
+                source.sendMessage(Component.text("Auto-shutdown: by pool '" + backend.getPool().getName() + "'"
+                        + (backend.getPool().isDraining(backend) ? ", DRAINING" : ""))
+                    .color(NamedTextColor.AQUA));
+            } else {
+                source.sendMessage(Component.text("Auto-shutdown: " + (config.autoShutdownEnabled() ? "ENABLED" : "DISABLED"))
+                    .color(config.autoShutdownEnabled() ? NamedTextColor.GREEN : NamedTextColor.RED));
+            }
 
             // Debug info
-            if (mainServer != null) {
-                String actualHost = mainServer.getServerInfo().getAddress().getHostString();
-                int actualPort = mainServer.getServerInfo().getAddress().getPort();
+            RegisteredServer registeredServer = backend.getRegisteredServer();
+            if (registeredServer != null) {
+                String actualHost = registeredServer.getServerInfo().getAddress().getHostString();
+                int actualPort = registeredServer.getServerInfo().getAddress().getPort();
                 source.sendMessage(Component.text("Velocity config: " + actualHost + ":" + actualPort)
                     .color(NamedTextColor.GRAY));
             }
 
-            // Check server status asynchronously to avoid blocking
-            source.sendMessage(Component.text("Checking server status...").color(NamedTextColor.YELLOW));
+            logger.info("Checking server status: {}:{}", config.host(), config.port());
 
-            server.getScheduler()
-                .buildTask(AutoShutdownPlugin.this, () -> {
-                    logger.info("Checking server status: {}:{}", mainServerHost, mainServerPort);
+            // A single probe answers both the TCP and the Minecraft ping question
+            backend.ping()
+                .thenAccept(result -> {
+                    logger.info("TCP connection test for '{}': {}", backend.getName(),
+                        result.reachable() ? "SUCCESS" : "FAILED");
 
-                    // First check basic TCP connection
-                    boolean canConnect = ServerPinger.canConnect(mainServerHost, mainServerPort, 2000);
-                    logger.info("TCP connection test: {}", canConnect ? "SUCCESS" : "FAILED");
+                    if (!result.reachable()) {
+                        source.sendMessage(Component.text(prefix + "OFFLINE (no TCP connection)")
+                            .color(NamedTextColor.RED));
+                        return;
+                    }
 
-                    if (!canConnect) {
-                        source.sendMessage(Component.text("Main Server: OFFLINE (no TCP connection)")
+                    boolean serverOnline = result.hasStatus();
+                    logger.info("Minecraft ping test for '{}': {} ({} ms)", backend.getName(),
+                        serverOnline ? "SUCCESS" : "FAILED", result.latencyMs());
+
+                    if (result.query() != null) {
+                        source.sendMessage(Component.text(prefix + "ONLINE (Query)").color(NamedTextColor.GREEN));
+                        sendQueryDetails(source, backend);
+                    } else if (serverOnline) {
+                        source.sendMessage(Component.text(prefix + "ONLINE").color(NamedTextColor.GREEN));
+                    } else {
+                        source.sendMessage(Component.text(prefix + "OFFLINE (port open, no status response)")
                             .color(NamedTextColor.RED));
+                    }
+                });
+        }
+
+        /** Version and player names from a full stat; only asked for here, never on the hot path. */
+        private void sendQueryDetails(CommandSource source, ManagedBackend backend) {
+            BackendConfig config = backend.getConfig();
+            queryClient.fullStat(new InetSocketAddress(config.host(), config.queryPort()), queryTimeoutMillis)
+                .whenComplete((query, error) -> {
+                    if (error != null) {
+                        source.sendMessage(Component.text("[" + backend.getName() + "] Full stat failed: " + error.getMessage())
+                            .color(NamedTextColor.GRAY));
                         return;
                     }
+                    source.sendMessage(Component.text("[" + backend.getName() + "] " + query.version() + ", "
+                            + query.online() + "/" + query.max() + " players"
+                            + (query.players().isEmpty() ? "" : ": " + String.join(", ", query.players())))
+                        .color(NamedTextColor.GRAY));
+                });
+        }
 
-                    // Then try full MC ping
-                    boolean serverOnline = ServerPinger.isServerOnline(mainServerHost, mainServerPort, 2000);
-                    logger.info("Minecraft ping test: {}", serverOnline ? "SUCCESS" : "FAILED");
+        private void handleTimerCommand(CommandSource source, String[] args) {
+            Collection<ManagedBackend> selected = selectBackends(source, args);
+            if (selected == null) {
+                return;
+            }
 
-                    source.sendMessage(Component.text("Main Server: " + (serverOnline ? "ONLINE" : "OFFLINE"))
-                        .color(serverOnline ? NamedTextColor.GREEN : NamedTextColor.RED));
-                })
-                .schedule();
+            for (ManagedBackend backend : selected) {
+                sendBackendTimer(source, backend);
+            }
         }
 
-        private void handleTimerCommand(CommandSource source) {
-            if (!autoShutdownEnabled) {
-                source.sendMessage(Component.text("Auto-shutdown is disabled").color(NamedTextColor.RED));
+        private void sendBackendTimer(CommandSource source, ManagedBackend backend) {
+            String prefix = "[" + backend.getName() + "] ";
+            if (!backend.getConfig().autoShutdownEnabled()) {
+                source.sendMessage(Component.text(prefix + "Auto-shutdown is disabled").color(NamedTextColor.RED));
                 return;
             }
 
+            long lastPlayerLeftTime = backend.getLastPlayerLeftTime();
             if (lastPlayerLeftTime == 0) {
-                source.sendMessage(Component.text("No shutdown timer active - players are online or server is offline")
+                source.sendMessage(Component.text(prefix + "No shutdown timer active - players are online or server is offline")
                     .color(NamedTextColor.BLUE));
                 return;
             }
 
             long timeSinceEmpty = (System.currentTimeMillis() - lastPlayerLeftTime) / 1000;
-            long timeRemaining = autoShutdownDelay - timeSinceEmpty;
+            long timeRemaining = backend.getConfig().autoShutdownDelay() - timeSinceEmpty;
 
             if (timeRemaining > 0) {
-                source.sendMessage(Component.text("Server will shutdown in " + timeRemaining + " seconds")
+                source.sendMessage(Component.text(prefix + "Server will shutdown in " + timeRemaining + " seconds")
                     .color(NamedTextColor.YELLOW));
             } else {
-                source.sendMessage(Component.text("Shutdown should be imminent...")
+                source.sendMessage(Component.text(prefix + "Shutdown should be imminent...")
                     .color(NamedTextColor.RED));
             }
         }
 
+        private void handleStatsCommand(CommandSource source, String[] args) {
+            Collection<ManagedBackend> selected = selectBackends(source, args);
+            if (selected == null) {
+                return;
+            }
+
+            source.sendMessage(Component.text("=== AutoShutdown Stats (since proxy start) ===").color(NamedTextColor.GOLD));
+            long totalAsleepMs = 0;
+            for (ManagedBackend backend : selected) {
+                BackendStats stats = backend.getStats();
+                String prefix = "[" + backend.getName() + "] ";
+                sendHistogram(source, prefix + "Trigger -> API ack", stats.getTriggerToAck());
+                sendHistogram(source, prefix + "API ack -> ready", stats.getAckToReady());
+                sendHistogram(source, prefix + "Ready -> player connected", stats.getReadyToConnected());
+                sendHistogram(source, prefix + "Status ping", stats.getPing());
+                sendHistogram(source, prefix + "Idle before stop", stats.getIdleBeforeStop());
+
+                long asleepMs = backend.getAsleepMillis();
+                totalAsleepMs += asleepMs;
+                source.sendMessage(Component.text(prefix + String.format("Saved server-hours: %.2f", asleepMs / 3_600_000.0))
+                    .color(NamedTextColor.GREEN));
+            }
+            if (selected.size() > 1) {
+                source.sendMessage(Component.text(String.format("Total saved server-hours: %.2f", totalAsleepMs / 3_600_000.0))
+                    .color(NamedTextColor.GREEN));
+            }
+        }
+
+        private void sendHistogram(CommandSource source, String label, LatencyHistogram histogram) {
+            long count = histogram.getCount();
+            if (count == 0) {
+                source.sendMessage(Component.text(label + ": no samples").color(NamedTextColor.GRAY));
+                return;
+            }
+            source.sendMessage(Component.text(String.format("%s: p50 %s, p95 %s, p99 %s, max %s (n=%d)", label,
+                    formatDuration(histogram.percentile(50)), formatDuration(histogram.percentile(95)),
+                    formatDuration(histogram.percentile(99)), formatDuration(histogram.getMax()), count))
+                .color(NamedTextColor.BLUE));
+        }
+
+        private String formatDuration(long millis) {
+            if (millis < 10_000) {
+                return millis + "ms";
+            }
+            if (millis < 600_000) {
+                return String.format("%.1fs", millis / 1000.0);
+            }
+            return String.format("%.1fmin", millis / 60_000.0);
+        }
+
+        private void handlePredictCommand(CommandSource source, String[] args) {
+            Collection<ManagedBackend> selected = selectBackends(source, args);
+            if (selected == null) {
+                return;
+            }
+
+            DemandPredictor.Settings settings = demandPredictor.getSettings();
+            source.sendMessage(Component.text("=== AutoShutdown Prediction ===").color(NamedTextColor.GOLD));
+            source.sendMessage(Component.text("Pre-warming: " + (settings.enabled() ? "ENABLED" : "DISABLED (learning only)"))
+                .color(settings.enabled() ? NamedTextColor.GREEN : NamedTextColor.RED));
+            for (ManagedBackend backend : selected) {
+                sendBackendPrediction(source, backend);
+            }
+        }
+
+        private void sendBackendPrediction(CommandSource source, ManagedBackend backend) {
+            String prefix = "[" + backend.getName() + "] ";
+            DemandProfile profile = demandPredictor.profile(backend.getName());
+
+            source.sendMessage(Component.text(prefix + "Pre-warms: " + formatHitRate(profile.getPrewarmHits(), profile.getPrewarmMisses())
+                    + ", cold starts: " + profile.getColdStarts())
+                .color(NamedTextColor.BLUE));
+            source.sendMessage(Component.text(prefix + "Shutdown holds: " + formatHitRate(profile.getHoldHits(), profile.getHoldMisses()))
+                .color(NamedTextColor.BLUE));
+
+            StringBuilder outlook = new StringBuilder(prefix + "Next hours:");
+            long now = System.currentTimeMillis();
+            for (int hour = 0; hour < 6; hour++) {
+                long at = now + TimeUnit.HOURS.toMillis(hour);
+                outlook.append(String.format(" +%dh %.0f%%", hour, demandPredictor.score(backend.getName(), at) * 100));
+            }
+            source.sendMessage(Component.text(outlook.toString()).color(NamedTextColor.GRAY));
+        }
+
+        private String formatHitRate(long hits, long misses) {
+            long total = hits + misses;
+            if (total == 0) {
+                return "none yet";
+            }
+            return String.format("%d hit / %d miss (%.0f%% hit rate)", hits, misses, hits * 100.0 / total);
+        }
+
         private void sendHelp(CommandSource source) {
             source.sendMessage(Component.text("=== AutoShutdown Commands ===").color(NamedTextColor.GOLD));
-            source.sendMessage(Component.text("/autoshutdown shutdown - Immediately shutdown server (5s delay)")
+            source.sendMessage(Component.text("/autoshutdown shutdown [backend] - Immediately shutdown server (5s delay)")
                 .color(NamedTextColor.GRAY));
             source.sendMessage(Component.text("/autoshutdown reload - Reload plugin configuration")
                 .color(NamedTextColor.GRAY));
-            source.sendMessage(Component.text("/autoshutdown status - Show server and plugin status")
+            source.sendMessage(Component.text("/autoshutdown status [backend] - Show server and plugin status")
+                .color(NamedTextColor.GRAY));
+            source.sendMessage(Component.text("/autoshutdown timer [backend] - Show time until auto-shutdown")
+                .color(NamedTextColor.GRAY));
+            source.sendMessage(Component.text("/autoshutdown stats [backend] - Show cold-start, ping and idle timings and saved server-hours")
                 .color(NamedTextColor.GRAY));
-            source.sendMessage(Component.text("/autoshutdown timer - Show time until auto-shutdown")
+            source.sendMessage(Component.text("/autoshutdown predict [backend] - Show learned demand and pre-warm hit rates")
                 .color(NamedTextColor.GRAY));
         }
     }
-}
\ No newline at end of file
+}
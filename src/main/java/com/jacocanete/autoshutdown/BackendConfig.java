@@ -0,0 +1,88 @@
+package com.jacocanete.autoshutdown;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Settings for one sleepable backend: the Velocity server it is registered as, where to ping it
+ * (and, in query mode, the UDP port its Query listens on), and which Pterodactyl server powers it.
+ *
+ * Backends are listed in {@code backends=a,b,c} with their settings under {@code backend.<name>.*}.
+ * Without a {@code backends} key the legacy {@code main-server.*} settings describe a single backend.
+ */
+public record BackendConfig(
+    String name,
+    String host,
+    int port,
+    int queryPort,
+    String pterodactylServerId,
+    String limboServerName,
+    boolean autoShutdownEnabled,
+    int autoShutdownDelay,
+    boolean startOnLogin,
+    int startupTimeoutSeconds
+) {
+
+    public static List<BackendConfig> parseAll(Properties config) throws IOException {
+        String defaultLimbo = config.getProperty("limbo-server.name");
+        boolean defaultEnabled = Boolean.parseBoolean(config.getProperty("auto-shutdown.enabled", "false"));
+        int defaultDelay = Integer.parseInt(config.getProperty("auto-shutdown.delay-seconds", "300"));
+        int defaultStartupTimeout = Integer.parseInt(config.getProperty("startup.timeout-seconds", "120"));
+
+        List<BackendConfig> backends = new ArrayList<>();
+        String backendList = config.getProperty("backends");
+
+        if (backendList == null || backendList.isBlank()) {
+            String name = config.getProperty("main-server.name");
+            String host = config.getProperty("main-server.host");
+            String port = config.getProperty("main-server.port");
+            String serverId = config.getProperty("pterodactyl.server-id");
+            if (name == null || host == null || port == null || serverId == null || defaultLimbo == null) {
+                throw new IOException("Missing required configuration values!");
+            }
+
+            // The single legacy backend keeps its old behaviour of starting on any login
+            backends.add(new BackendConfig(name, host, Integer.parseInt(port),
+                Integer.parseInt(config.getProperty("main-server.query-port", port)), serverId, defaultLimbo,
+                defaultEnabled, defaultDelay, true, defaultStartupTimeout));
+            return backends;
+        }
+
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : backendList.split(",")) {
+            if (!name.isBlank()) {
+                names.add(name.trim());
+            }
+        }
+
+        for (String name : names) {
+            String prefix = "backend." + name + ".";
+            String host = config.getProperty(prefix + "host");
+            String port = config.getProperty(prefix + "port");
+            String serverId = config.getProperty(prefix + "pterodactyl-server-id");
+            String limbo = config.getProperty(prefix + "limbo-server", defaultLimbo);
+            if (host == null || port == null || serverId == null || limbo == null) {
+                throw new IOException("Missing required configuration values for backend '" + name + "'!");
+            }
+
+            backends.add(new BackendConfig(
+                name,
+                host,
+                Integer.parseInt(port),
+                // Vanilla's query.port defaults to the game port
+                Integer.parseInt(config.getProperty(prefix + "query-port", port)),
+                serverId,
+                limbo,
+                Boolean.parseBoolean(config.getProperty(prefix + "auto-shutdown", String.valueOf(defaultEnabled))),
+                Integer.parseInt(config.getProperty(prefix + "delay-seconds", String.valueOf(defaultDelay))),
+                Boolean.parseBoolean(config.getProperty(prefix + "start-on-login", "false")),
+                Integer.parseInt(config.getProperty(prefix + "startup-timeout-seconds", String.valueOf(defaultStartupTimeout)))
+            ));
+        }
+        return backends;
+    }
+}
@@ -0,0 +1,312 @@
+package com.jacocanete.autoshutdown;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A logical server backed by several identical backends (instances), scaled on player load.
+ *
+ * Load is the average number of players per instance that is up or on its way up, counting
+ * players still waiting in limbo for one. When it reaches the scale-up watermark another instance
+ * is started. Once it has stayed below the scale-down watermark for {@code scale-down-seconds},
+ * the least-loaded instance is drained (its players are moved to the others) and stopped when
+ * empty. The gap between the watermarks, that delay and a cooldown after every scaling action keep
+ * the pool from flapping. Members never stop on their own idle timers; the pool decides.
+ *
+ * Joining players go to the least-loaded running instance that is not draining. Players already
+ * sent to an instance but not yet on it count towards its load, so a join storm is spread out
+ * instead of piling onto whichever instance looked emptiest first.
+ */
+public class BackendPool {
+
+    private final PoolConfig config;
+    private final List<ManagedBackend> members;
+    private final Logger logger;
+
+    /** Guarded by {@code this}, like everything below. */
+    private final Set<ManagedBackend> draining = new HashSet<>();
+    private final Map<UUID, ManagedBackend> placements = new HashMap<>();
+    private final Map<ManagedBackend, Integer> pending = new HashMap<>();
+    private long lastScaleMillis;
+    private long belowSinceMillis;
+
+    public BackendPool(AutoShutdownPlugin plugin, PoolConfig config, List<ManagedBackend> members) {
+        this.config = config;
+        this.members = List.copyOf(members);
+        this.logger = plugin.getLogger();
+        for (ManagedBackend member : members) {
+            member.setPool(this);
+        }
+    }
+
+    public String getName() {
+        return config.name();
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    public List<ManagedBackend> getMembers() {
+        return members;
+    }
+
+    /**
+     * Picks the instance for a joining player: the least-loaded running one, else one that is
+     * already starting and not yet at the scale-up watermark, else one that is down (which the
+     * caller then starts as usual). A join storm on a sleeping pool is so spread over as many
+     * cold starts as it needs, instead of queueing behind the first.
+     */
+    public synchronized ManagedBackend place(Player player) {
+        ManagedBackend chosen = leastLoaded(null);
+        if (chosen == null) {
+            chosen = members.stream().filter(this::isComingUp)
+                .min((a, b) -> Integer.compare(load(a), load(b)))
+                .orElse(null);
+        }
+        if ((chosen == null || (!chosen.isReady() && load(chosen) >= config.scaleUpPlayers())) && !draining.isEmpty()) {
+            // Better to take a draining instance back than to wait for a cold start
+            chosen = draining.stream().min((a, b) -> Integer.compare(load(a), load(b))).orElseThrow();
+            draining.remove(chosen);
+            logger.info("Pool '{}': taking '{}' back from draining for '{}'", getName(), chosen.getName(), player.getUsername());
+        }
+        if (chosen == null || (!chosen.isReady() && load(chosen) >= config.scaleUpPlayers() && activeCount() < config.maxInstances())) {
+            ManagedBackend offline = members.stream()
+                .filter(member -> member.getState() == BackendState.OFFLINE && !isComingUp(member))
+                .findFirst()
+                .orElse(null);
+            if (offline != null) {
+                chosen = offline;
+            } else if (chosen == null) {
+                chosen = members.get(0);
+            }
+        }
+        assign(player.getUniqueId(), chosen);
+        return chosen;
+    }
+
+    private int activeCount() {
+        int active = 0;
+        for (ManagedBackend member : members) {
+            if ((member.isReady() && !draining.contains(member)) || isComingUp(member)) {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    /** Starting, or still offline but already picked for someone, whose join is about to start it. */
+    private boolean isComingUp(ManagedBackend member) {
+        return member.isStartupInProgress()
+            || (member.getState() == BackendState.OFFLINE && pending.getOrDefault(member, 0) > 0);
+    }
+
+    /** The player reached a server, or left; either way they no longer count as on their way. */
+    public synchronized void forget(UUID playerId) {
+        ManagedBackend placed = placements.remove(playerId);
+        if (placed != null) {
+            pending.merge(placed, -1, Integer::sum);
+        }
+    }
+
+    public synchronized boolean isDraining(ManagedBackend member) {
+        return draining.contains(member);
+    }
+
+    /** One scaling decision; called periodically. */
+    public void evaluate() {
+        evaluate(System.currentTimeMillis());
+    }
+
+    /** As {@link #evaluate()}, as of {@code now}, so tests can step through the delays. */
+    synchronized void evaluate(long now) {
+        finishDraining();
+
+        int running = 0;
+        int starting = 0;
+        int demand = 0;
+        for (ManagedBackend member : members) {
+            demand += member.getTransferQueue().size();
+            if (member.isReady()) {
+                demand += member.getPlayerCount();
+                if (!draining.contains(member)) {
+                    running++;
+                }
+            } else if (member.isStartupInProgress()) {
+                starting++;
+            }
+        }
+        int active = running + starting;
+
+        if (active < config.minInstances()) {
+            startInstance("below the minimum of " + config.minInstances() + " instance(s)");
+            return;
+        }
+        if (active == 0) {
+            return; // Asleep; the next join starts an instance through the usual path
+        }
+
+        double average = (double) demand / active;
+        if (average >= config.scaleUpPlayers()) {
+            belowSinceMillis = 0;
+            if (now - lastScaleMillis < TimeUnit.SECONDS.toMillis(config.cooldownSeconds())) {
+                return;
+            }
+            if (!draining.isEmpty()) {
+                ManagedBackend reclaimed = draining.iterator().next();
+                draining.remove(reclaimed);
+                lastScaleMillis = now;
+                logger.info("Pool '{}': {} players per instance, taking '{}' back from draining",
+                    getName(), format(average), reclaimed.getName());
+            } else if (active < config.maxInstances()
+                && startInstance(format(average) + " players per instance reached " + format(config.scaleUpPlayers()))) {
+                lastScaleMillis = now;
+            }
+            return;
+        }
+
+        if (average >= config.scaleDownPlayers() || running <= config.minInstances() || starting > 0) {
+            belowSinceMillis = 0;
+            return;
+        }
+        if (belowSinceMillis == 0) {
+            belowSinceMillis = now;
+        }
+        if (now - belowSinceMillis < TimeUnit.SECONDS.toMillis(config.scaleDownSeconds())
+            || now - lastScaleMillis < TimeUnit.SECONDS.toMillis(config.cooldownSeconds())) {
+            return;
+        }
+        // The instances that remain must not end up above the scale-up watermark straight away, and
+        // the last one only goes once nobody is on it
+        if (active > 1 ? (double) demand / (active - 1) >= config.scaleUpPlayers() : demand > 0) {
+            return;
+        }
+
+        ManagedBackend victim = leastLoaded(null);
+        if (victim != null) {
+            belowSinceMillis = 0;
+            lastScaleMillis = now;
+            logger.info("Pool '{}': {} players per instance below {} for {}s, draining '{}'", getName(), format(average),
+                format(config.scaleDownPlayers()), config.scaleDownSeconds(), victim.getName());
+            drain(victim);
+        }
+    }
+
+    /** Moves this proxy's players off {@code victim} onto the other instances; it is stopped once empty. */
+    private void drain(ManagedBackend victim) {
+        draining.add(victim);
+        RegisteredServer registeredServer = victim.getRegisteredServer();
+        if (registeredServer == null) {
+            return;
+        }
+
+        Set<ManagedBackend> targets = new HashSet<>();
+        for (Player player : registeredServer.getPlayersConnected()) {
+            ManagedBackend target = leastLoaded(victim);
+            if (target == null) {
+                break;
+            }
+            assign(player.getUniqueId(), target);
+            player.sendMessage(Component.text("This server is being scaled down, moving you to " + target.getName() + "...")
+                .color(NamedTextColor.YELLOW));
+            target.getTransferQueue().add(player);
+            targets.add(target);
+        }
+        for (ManagedBackend target : targets) {
+            target.getTransferQueue().drain();
+        }
+        finishDraining();
+    }
+
+    private void finishDraining() {
+        List<ManagedBackend> done = new ArrayList<>();
+        for (ManagedBackend member : draining) {
+            if (!member.isReady()) {
+                done.add(member); // Went down some other way
+            } else if (member.getPlayerCount() == 0) {
+                done.add(member);
+                logger.info("Pool '{}': '{}' is drained, stopping it", getName(), member.getName());
+                member.stopServer().thenAccept(success -> {
+                    if (!success) {
+                        logger.warn("Pool '{}': failed to stop drained instance '{}'", getName(), member.getName());
+                    }
+                });
+            }
+        }
+        done.forEach(draining::remove);
+    }
+
+    private boolean startInstance(String reason) {
+        for (ManagedBackend member : members) {
+            if (member.getState() == BackendState.OFFLINE) {
+                logger.info("Pool '{}': starting '{}', {}", getName(), member.getName(), reason);
+                member.startForPool();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The running, non-draining instance with the fewest players and placements, other than {@code excluded}. */
+    private ManagedBackend leastLoaded(ManagedBackend excluded) {
+        ManagedBackend best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (ManagedBackend member : members) {
+            if (member == excluded || !member.isReady() || draining.contains(member)) {
+                continue;
+            }
+            int load = load(member);
+            if (load < bestLoad) {
+                best = member;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private int load(ManagedBackend member) {
+        return member.getPlayerCount() + pending.getOrDefault(member, 0);
+    }
+
+    private void assign(UUID playerId, ManagedBackend member) {
+        ManagedBackend previous = placements.put(playerId, member);
+        if (previous != null) {
+            pending.merge(previous, -1, Integer::sum);
+        }
+        pending.merge(member, 1, Integer::sum);
+    }
+
+    /** One line for /autoshutdown status. */
+    public synchronized String describe() {
+        int running = 0;
+        int starting = 0;
+        int players = 0;
+        for (ManagedBackend member : members) {
+            if (member.isReady()) {
+                running++;
+                players += member.getPlayerCount();
+            } else if (member.isStartupInProgress()) {
+                starting++;
+            }
+        }
+        return String.format("%d/%d running (%d draining), %d starting, %d players; scale up at %s, down at %s per instance",
+            running, members.size(), draining.size(), starting, players,
+            format(config.scaleUpPlayers()), format(config.scaleDownPlayers()));
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.format("%.1f", value);
+    }
+}
@@ -0,0 +1,50 @@
+package com.jacocanete.autoshutdown;
+
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * All managed backends, looked up by their Velocity server name (case-insensitive).
+ * The registry is rebuilt on reload and never mutated afterwards, so lookups need no locking.
+ */
+public class BackendRegistry {
+
+    private final Map<String, ManagedBackend> backends;
+
+    public BackendRegistry(Collection<ManagedBackend> backends) {
+        Map<String, ManagedBackend> byName = new LinkedHashMap<>();
+        for (ManagedBackend backend : backends) {
+            byName.put(key(backend.getName()), backend);
+        }
+        this.backends = Collections.unmodifiableMap(byName);
+    }
+
+    public Optional<ManagedBackend> get(String name) {
+        return Optional.ofNullable(backends.get(key(name)));
+    }
+
+    public Optional<ManagedBackend> get(RegisteredServer registeredServer) {
+        if (registeredServer == null) {
+            return Optional.empty();
+        }
+        return get(registeredServer.getServerInfo().getName());
+    }
+
+    public Collection<ManagedBackend> all() {
+        return backends.values();
+    }
+
+    public int size() {
+        return backends.size();
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,20 @@
+package com.jacocanete.autoshutdown;
+
+/**
+ * Lifecycle phases of a managed backend.
+ *
+ * <pre>
+ * OFFLINE -> STARTING -> ONLINE <-> IDLE -> STOPPING -> OFFLINE
+ * </pre>
+ *
+ * A failed or timed-out start goes back to OFFLINE, and a failed stop goes back to IDLE.
+ * Reconciliation may also move a backend straight to ONLINE or OFFLINE when what the
+ * backend reports disagrees with the state we hold.
+ */
+public enum BackendState {
+    OFFLINE,
+    STARTING,
+    ONLINE,
+    IDLE,
+    STOPPING
+}
@@ -0,0 +1,64 @@
+package com.jacocanete.autoshutdown;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timing statistics for one backend since the proxy started: the stages of a cold start, how
+ * long status pings take, how long the backend sat idle before being stopped, and how much
+ * time it has spent asleep.
+ */
+public class BackendStats {
+
+    /** From the start being triggered to the panel accepting the start signal. */
+    private final LatencyHistogram triggerToAck = new LatencyHistogram();
+    /** From the panel accepting the start signal to the backend answering status pings. */
+    private final LatencyHistogram ackToReady = new LatencyHistogram();
+    /** From the backend becoming ready to the first player arriving on it. */
+    private final LatencyHistogram readyToConnected = new LatencyHistogram();
+    private final LatencyHistogram ping = new LatencyHistogram();
+    private final LatencyHistogram idleBeforeStop = new LatencyHistogram();
+    private final LongAdder asleepMillis = new LongAdder();
+    /** When these stats started counting: the proxy start, or the reload that replaced the backend. */
+    private final long startedAtMillis = System.currentTimeMillis();
+
+    public LatencyHistogram getTriggerToAck() {
+        return triggerToAck;
+    }
+
+    public LatencyHistogram getAckToReady() {
+        return ackToReady;
+    }
+
+    public LatencyHistogram getReadyToConnected() {
+        return readyToConnected;
+    }
+
+    public LatencyHistogram getPing() {
+        return ping;
+    }
+
+    public LatencyHistogram getIdleBeforeStop() {
+        return idleBeforeStop;
+    }
+
+    /**
+     * Counts an offline period that ended at {@code untilMillis}. Only the part since these stats
+     * started counting is added: a period restored from the journal may have begun long before.
+     */
+    void addAsleep(long sinceMillis, long untilMillis) {
+        long millis = untilMillis - Math.max(sinceMillis, startedAtMillis);
+        if (millis > 0) {
+            asleepMillis.add(millis);
+        }
+    }
+
+    /** Completed offline periods only; see {@link ManagedBackend#getAsleepMillis} for the current one too. */
+    public long getAsleepMillis() {
+        return asleepMillis.sum();
+    }
+
+    /** Completed offline periods plus the current one, asleep since {@code sinceMillis}. */
+    long getAsleepMillis(long sinceMillis) {
+        return asleepMillis.sum() + Math.max(0, System.currentTimeMillis() - Math.max(sinceMillis, startedAtMillis));
+    }
+}
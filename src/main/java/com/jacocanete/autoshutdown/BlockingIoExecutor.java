@@ -0,0 +1,85 @@
+package com.jacocanete.autoshutdown;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Plugin-owned executor for blocking I/O such as Pterodactyl HTTP calls.
+ *
+ * Every task gets its own virtual thread, so a slow panel parks cheap virtual threads instead
+ * of the common ForkJoin pool or Velocity's scheduler. A semaphore caps how many tasks may do
+ * their blocking work at the same time; the rest wait (on their own virtual thread) for a permit.
+ */
+public class BlockingIoExecutor {
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public BlockingIoExecutor(int maxConcurrency) {
+        ThreadFactory threadFactory = Thread.ofVirtual().name("AutoShutdown-IO-", 0).factory();
+        this.executor = Executors.newThreadPerTaskExecutor(threadFactory);
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        inFlight.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    permits.acquire();
+                    try {
+                        future.complete(task.get());
+                    } finally {
+                        permits.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            future.completeExceptionally(new CompletionException("Executor is shut down", e));
+        }
+        return future;
+    }
+
+    /** Tasks submitted and not yet finished, including those waiting for a permit. */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /** Tasks currently waiting for a permit. */
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Stops accepting work and gives running tasks a moment to finish before interrupting them.
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeout, unit)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
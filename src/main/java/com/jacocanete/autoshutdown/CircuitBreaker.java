@@ -0,0 +1,77 @@
+package com.jacocanete.autoshutdown;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consecutive-failure circuit breaker for the panel API.
+ *
+ * After {@code failureThreshold} failures in a row the circuit opens and calls fail fast for
+ * {@code openDurationMs}. After that a single trial call is let through (half-open); its
+ * outcome either closes the circuit again or re-opens it for another full period.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private volatile int failureThreshold;
+    private volatile long openDurationNanos;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    /** 0 while closed, otherwise the nanoTime the circuit opened at. */
+    private final AtomicLong openedAt = new AtomicLong();
+    private final AtomicLong trialStartedAt = new AtomicLong();
+
+    public CircuitBreaker(int failureThreshold, long openDurationMs) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+    }
+
+    /** Applies new limits on reload; an open circuit stays open. */
+    public void setLimits(int failureThreshold, long openDurationMs) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+    }
+
+    /** Returns whether a call may be made right now. */
+    public boolean allowRequest() {
+        long opened = openedAt.get();
+        if (opened == 0) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        if (now - opened < openDurationNanos) {
+            return false;
+        }
+
+        // Half-open: exactly one caller gets the trial, and it expires like the open period does
+        long trial = trialStartedAt.get();
+        if (trial != 0 && now - trial < openDurationNanos) {
+            return false;
+        }
+        return trialStartedAt.compareAndSet(trial, now);
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        openedAt.set(0);
+        trialStartedAt.set(0);
+    }
+
+    public void recordFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold || openedAt.get() != 0) {
+            openedAt.set(System.nanoTime());
+            trialStartedAt.set(0);
+        }
+    }
+
+    public State getState() {
+        long opened = openedAt.get();
+        if (opened == 0) {
+            return State.CLOSED;
+        }
+        return System.nanoTime() - opened < openDurationNanos ? State.OPEN : State.HALF_OPEN;
+    }
+}
@@ -0,0 +1,132 @@
+package com.jacocanete.autoshutdown;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What one proxy knows about the others: each one's player counts and the leases it holds, as
+ * last heard from it, plus the leases held here. Shared by both coordinator transports.
+ *
+ * Competing claims on a lease are settled the same way on every proxy: the earliest claim wins,
+ * and on a tie the lowest node id. Since every proxy ends up seeing the same claims, they all
+ * agree on the holder once the claims have reached them.
+ */
+final class ClusterView {
+
+    /** A claim on a backend's lease; {@code claimedAt} is on the holder's clock, {@code expiresAt} on ours. */
+    record Lease(long claimedAt, long expiresAt) {
+    }
+
+    /** Another proxy as last heard from, at {@code heardAt} on our clock. */
+    record Peer(long heardAt, Map<String, Integer> counts, Map<String, Lease> leases) {
+    }
+
+    private final String self;
+    private final long nodeTimeoutMillis;
+    private final long leaseMillis;
+
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+    private final Map<String, Lease> ownLeases = new ConcurrentHashMap<>();
+
+    ClusterView(String self, long nodeTimeoutMillis, long leaseMillis) {
+        this.self = self;
+        this.nodeTimeoutMillis = nodeTimeoutMillis;
+        this.leaseMillis = leaseMillis;
+    }
+
+    void updatePeer(String nodeId, Peer peer) {
+        if (!nodeId.equals(self)) {
+            peers.put(nodeId, peer);
+        }
+    }
+
+    void removePeer(String nodeId) {
+        peers.remove(nodeId);
+    }
+
+    /** Replaces everything known about other proxies, for transports that always see all of them. */
+    void replacePeers(Map<String, Peer> current) {
+        peers.keySet().retainAll(current.keySet());
+        current.forEach(this::updatePeer);
+    }
+
+    int remotePlayerCount(String backendName) {
+        long now = System.currentTimeMillis();
+        int total = 0;
+        for (Peer peer : peers.values()) {
+            if (isLive(peer, now)) {
+                total += peer.counts().getOrDefault(backendName, 0);
+            }
+        }
+        return total;
+    }
+
+    int livePeerCount() {
+        long now = System.currentTimeMillis();
+        int live = 0;
+        for (Peer peer : peers.values()) {
+            if (isLive(peer, now)) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    /** The node whose claim on {@code backendName} wins, or null if there is no live claim. */
+    String holder(String backendName) {
+        long now = System.currentTimeMillis();
+        String holder = null;
+        Lease winning = null;
+
+        Lease own = ownLeases.get(backendName);
+        if (own != null && own.expiresAt() > now) {
+            holder = self;
+            winning = own;
+        }
+        for (Map.Entry<String, Peer> entry : peers.entrySet()) {
+            if (!isLive(entry.getValue(), now)) {
+                continue;
+            }
+            Lease lease = entry.getValue().leases().get(backendName);
+            if (lease == null || lease.expiresAt() <= now) {
+                continue;
+            }
+            if (winning == null
+                || lease.claimedAt() < winning.claimedAt()
+                || (lease.claimedAt() == winning.claimedAt() && entry.getKey().compareTo(holder) < 0)) {
+                holder = entry.getKey();
+                winning = lease;
+            }
+        }
+        return holder;
+    }
+
+    /** Claims or renews the lease here. A renewal keeps the original claim time, and with it its priority. */
+    void claim(String backendName) {
+        long now = System.currentTimeMillis();
+        ownLeases.compute(backendName, (name, existing) -> new Lease(
+            existing != null && existing.expiresAt() > now ? existing.claimedAt() : now,
+            now + leaseMillis));
+    }
+
+    /** Returns whether a lease was actually held here. */
+    boolean release(String backendName) {
+        return ownLeases.remove(backendName) != null;
+    }
+
+    void releaseAll() {
+        ownLeases.clear();
+    }
+
+    /** Unexpired leases held here, to publish to the other proxies. */
+    Map<String, Lease> ownLeases() {
+        long now = System.currentTimeMillis();
+        ownLeases.values().removeIf(lease -> lease.expiresAt() <= now);
+        return new HashMap<>(ownLeases);
+    }
+
+    private boolean isLive(Peer peer, long now) {
+        return now - peer.heardAt() <= nodeTimeoutMillis;
+    }
+}
@@ -0,0 +1,167 @@
+package com.jacocanete.autoshutdown;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Learns when each backend is wanted and turns that into two decisions: start a sleeping backend
+ * shortly before likely demand, and keep an idle one up a while longer if someone is likely to
+ * join soon. Profiles are kept in {@code demand-profiles.json} in the data directory.
+ */
+public class DemandPredictor {
+
+    public record Settings(
+        boolean enabled,
+        long halfLifeMillis,
+        double prewarmThreshold,
+        long prewarmLeadMillis,
+        double holdThreshold,
+        long holdMillis
+    ) {
+    }
+
+    private static final Type FILE_TYPE = new TypeToken<Map<String, DemandProfile>>() { }.getType();
+
+    private final Path file;
+    private final BlockingIoExecutor ioExecutor;
+    private final Logger logger;
+    private final Gson gson = new Gson();
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final ConcurrentHashMap<String, DemandProfile> profiles = new ConcurrentHashMap<>();
+    private final AtomicBoolean savePending = new AtomicBoolean();
+    private volatile Settings settings;
+
+    public DemandPredictor(Path file, BlockingIoExecutor ioExecutor, Logger logger, Settings settings) {
+        this.file = file;
+        this.ioExecutor = ioExecutor;
+        this.logger = logger;
+        this.settings = settings;
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public void setSettings(Settings settings) {
+        this.settings = settings;
+    }
+
+    public DemandProfile profile(String backendName) {
+        return profiles.computeIfAbsent(backendName.toLowerCase(), name -> new DemandProfile());
+    }
+
+    /** Hour-of-week bucket (Monday 00:00 = 0) in the proxy's local time, which is when players keep their habits. */
+    int bucketOf(long millis) {
+        ZonedDateTime time = Instant.ofEpochMilli(millis).atZone(zone);
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+
+    public void recordDemand(String backendName) {
+        long now = System.currentTimeMillis();
+        if (profile(backendName).recordDemand(now, bucketOf(now), settings.halfLifeMillis())) {
+            scheduleSave();
+        }
+    }
+
+    public void recordColdStart(String backendName) {
+        profile(backendName).onColdStart();
+        scheduleSave();
+    }
+
+    public void recordHold(String backendName) {
+        profile(backendName).onHold();
+    }
+
+    public void recordStopping(String backendName) {
+        profile(backendName).onStopping();
+        scheduleSave();
+    }
+
+    public double score(String backendName, long atMillis) {
+        return profile(backendName).score(bucketOf(atMillis), System.currentTimeMillis(), settings.halfLifeMillis());
+    }
+
+    /**
+     * True (once per target hour) if demand is likely within the prewarm lead time, so a sleeping
+     * backend should be started now.
+     */
+    public boolean shouldPrewarm(String backendName) {
+        Settings current = settings;
+        if (!current.enabled()) {
+            return false;
+        }
+        long target = System.currentTimeMillis() + current.prewarmLeadMillis();
+        if (score(backendName, target) < current.prewarmThreshold()) {
+            return false;
+        }
+        return profile(backendName).claimPrewarm(TimeUnit.MILLISECONDS.toHours(target));
+    }
+
+    /** True if someone is likely to join within the hold window, so an idle backend should stay up. */
+    public boolean shouldHold(String backendName) {
+        Settings current = settings;
+        if (!current.enabled()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        double likelihood = Math.max(score(backendName, now), score(backendName, now + current.holdMillis()));
+        return likelihood >= current.holdThreshold();
+    }
+
+    public void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, DemandProfile> loaded = gson.fromJson(reader, FILE_TYPE);
+            if (loaded != null) {
+                profiles.putAll(loaded);
+            }
+            logger.info("Loaded demand profiles for {} backend(s)", profiles.size());
+        } catch (IOException | JsonParseException e) {
+            logger.warn("Ignoring unreadable demand profiles {}: {}", file, e.toString());
+        }
+    }
+
+    private void scheduleSave() {
+        if (savePending.compareAndSet(false, true)) {
+            ioExecutor.supply(() -> {
+                savePending.set(false);
+                save();
+                return null;
+            });
+        }
+    }
+
+    private synchronized void save() {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                gson.toJson(new TreeMap<>(profiles), FILE_TYPE, writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to save demand profiles {}: {}", file, e.toString());
+        }
+    }
+}
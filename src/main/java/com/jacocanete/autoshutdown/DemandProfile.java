@@ -0,0 +1,125 @@
+package com.jacocanete.autoshutdown;
+
+/**
+ * When players tend to want one backend, as an hour-of-week histogram with exponential decay,
+ * plus how well the predictions made from it have worked out.
+ *
+ * Each bucket gains at most 1 per real hour in which there was demand, and all buckets decay
+ * together with the configured half-life. Divided by the value a bucket converges to when it sees
+ * demand every single week, that gives a score between 0 and 1 that reads as "how likely is
+ * someone to show up in this hour".
+ *
+ * Instances are written to disk by {@link DemandPredictor} with Gson; transient fields only
+ * describe the current run.
+ */
+public class DemandProfile {
+
+    static final int BUCKETS = 7 * 24;
+
+    private double[] weights = new double[BUCKETS];
+    private long decayedAtMillis;
+    private long lastDemandHour = -1;
+
+    private long prewarmHits;
+    private long prewarmMisses;
+    private long holdHits;
+    private long holdMisses;
+    private long coldStarts;
+
+    private transient boolean prewarmPending;
+    private transient boolean holdPending;
+    private transient long lastPrewarmHour = -1;
+
+    /**
+     * Records demand in the given bucket. Returns true if the histogram changed, which only
+     * happens the first time in each real hour.
+     */
+    synchronized boolean recordDemand(long nowMillis, int bucket, long halfLifeMillis) {
+        if (prewarmPending) {
+            prewarmPending = false;
+            prewarmHits++;
+        }
+        if (holdPending) {
+            holdPending = false;
+            holdHits++;
+        }
+
+        long hour = nowMillis / 3_600_000L;
+        if (hour == lastDemandHour) {
+            return false;
+        }
+        lastDemandHour = hour;
+
+        double factor = decayFactor(nowMillis, halfLifeMillis);
+        for (int i = 0; i < BUCKETS; i++) {
+            weights[i] *= factor;
+        }
+        decayedAtMillis = nowMillis;
+        weights[bucket] += 1;
+        return true;
+    }
+
+    /** Likelihood of demand in the bucket, from 0 to 1. */
+    synchronized double score(int bucket, long nowMillis, long halfLifeMillis) {
+        double weekly = Math.pow(0.5, 7 * 86_400_000.0 / halfLifeMillis);
+        double steadyState = 1 / (1 - weekly);
+        return Math.min(1, weights[bucket] * decayFactor(nowMillis, halfLifeMillis) / steadyState);
+    }
+
+    private double decayFactor(long nowMillis, long halfLifeMillis) {
+        if (decayedAtMillis == 0 || nowMillis <= decayedAtMillis) {
+            return 1;
+        }
+        return Math.pow(0.5, (nowMillis - decayedAtMillis) / (double) halfLifeMillis);
+    }
+
+    /** Claims the prewarm for the given real hour; false if one was already done for it. */
+    synchronized boolean claimPrewarm(long targetHour) {
+        if (targetHour == lastPrewarmHour) {
+            return false;
+        }
+        lastPrewarmHour = targetHour;
+        prewarmPending = true;
+        return true;
+    }
+
+    synchronized void onColdStart() {
+        coldStarts++;
+    }
+
+    synchronized void onHold() {
+        holdPending = true;
+    }
+
+    /** The backend is being stopped: anything predicted for this run did not happen. */
+    synchronized void onStopping() {
+        if (prewarmPending) {
+            prewarmPending = false;
+            prewarmMisses++;
+        }
+        if (holdPending) {
+            holdPending = false;
+            holdMisses++;
+        }
+    }
+
+    synchronized long getPrewarmHits() {
+        return prewarmHits;
+    }
+
+    synchronized long getPrewarmMisses() {
+        return prewarmMisses;
+    }
+
+    synchronized long getHoldHits() {
+        return holdHits;
+    }
+
+    synchronized long getHoldMisses() {
+        return holdMisses;
+    }
+
+    synchronized long getColdStarts() {
+        return coldStarts;
+    }
+}
@@ -0,0 +1,226 @@
+package com.jacocanete.autoshutdown;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coordination for proxies on one host, through a JSON file they all read and rewrite under an
+ * exclusive {@link FileLock}. Each proxy keeps its own entry current (heartbeat time, player
+ * counts, leases held) and picks up everyone else's on the way. Because every change happens
+ * under the lock, a lease is granted or refused on the spot, without the settle delay gossip needs.
+ *
+ * The OS holds file locks per process, not per channel, so proxies sharing a JVM (as in the load
+ * simulation) also queue on an in-process lock per file. If the file cannot be used at all, leases
+ * are granted anyway and the proxy acts as if it were alone.
+ */
+public class FileLockCoordinator implements ProxyCoordinator {
+
+    private static final Type FILE_TYPE = new TypeToken<Map<String, Entry>>() { }.getType();
+    private static final Map<Path, Object> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    /** One proxy's entry in the file; times are wall-clock, which every proxy on the host shares. */
+    private record Entry(long heartbeat, Map<String, Integer> counts, Map<String, ClusterView.Lease> leases) {
+    }
+
+    private final Settings settings;
+    private final Supplier<Map<String, Integer>> localCounts;
+    private final BlockingIoExecutor ioExecutor;
+    private final Logger logger;
+    private final ClusterView view;
+    private final Path file;
+    private final Gson gson = new Gson();
+
+    private Thread thread;
+    private volatile boolean running;
+
+    public FileLockCoordinator(Settings settings, Supplier<Map<String, Integer>> localCounts,
+                               BlockingIoExecutor ioExecutor, Logger logger) {
+        this.settings = settings;
+        this.localCounts = localCounts;
+        this.ioExecutor = ioExecutor;
+        this.logger = logger;
+        this.view = new ClusterView(settings.nodeId(), settings.nodeTimeoutMillis(), settings.leaseMillis());
+        this.file = settings.file().toAbsolutePath().normalize();
+    }
+
+    @Override
+    public Mode getMode() {
+        return Mode.FILE;
+    }
+
+    @Override
+    public String getNodeId() {
+        return settings.nodeId();
+    }
+
+    @Override
+    public void start() throws IOException {
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        running = true;
+        exchange(null);
+        thread = Thread.ofPlatform().daemon().name("AutoShutdown-Coordination").start(this::run);
+        logger.info("Coordinating through {} as node '{}'", file, settings.nodeId());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        thread.interrupt();
+        view.releaseAll();
+        try {
+            exchange(null); // Removes our entry
+        } catch (IOException e) {
+            logger.warn("Failed to leave coordination file {}: {}", file, e.toString());
+        }
+    }
+
+    @Override
+    public int getRemotePlayerCount(String backendName) {
+        return view.remotePlayerCount(backendName);
+    }
+
+    @Override
+    public int getLivePeerCount() {
+        return view.livePeerCount();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquire(String backendName) {
+        return ioExecutor.supply(() -> {
+            try {
+                return exchange(backendName);
+            } catch (IOException e) {
+                logger.warn("Coordination file {} is unavailable, acting alone on '{}': {}", file, backendName, e.toString());
+                return true;
+            }
+        });
+    }
+
+    @Override
+    public void release(String backendName) {
+        if (view.release(backendName) && running) {
+            ioExecutor.supply(() -> {
+                try {
+                    exchange(null);
+                } catch (IOException e) {
+                    logger.debug("Failed to publish lease release for '{}': {}", backendName, e.toString());
+                }
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public String getLeaseHolder(String backendName) {
+        return view.holder(backendName);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(settings.heartbeatMillis());
+                exchange(null);
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Coordination heartbeat failed: {}", e.toString());
+            }
+        }
+    }
+
+    /**
+     * Under the lock: reads every proxy's entry, optionally tries to claim {@code claimBackend},
+     * and writes our own entry back (or removes it once stopped). Returns whether the claim, if
+     * any, was granted.
+     */
+    private boolean exchange(String claimBackend) throws IOException {
+        Object processLock = PROCESS_LOCKS.computeIfAbsent(file, path -> new Object());
+        synchronized (processLock) {
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                channel.lock(); // Released when the channel closes
+                long now = System.currentTimeMillis();
+                Map<String, Entry> entries = read(channel);
+                entries.values().removeIf(entry -> now - entry.heartbeat() > settings.nodeTimeoutMillis());
+
+                Map<String, ClusterView.Peer> peers = new HashMap<>();
+                entries.forEach((nodeId, entry) -> peers.put(nodeId, new ClusterView.Peer(entry.heartbeat(),
+                    entry.counts() == null ? Map.of() : entry.counts(),
+                    entry.leases() == null ? Map.of() : entry.leases())));
+                peers.remove(settings.nodeId());
+                view.replacePeers(peers);
+
+                boolean granted = true;
+                if (claimBackend != null) {
+                    String holder = view.holder(claimBackend);
+                    granted = holder == null || holder.equals(settings.nodeId());
+                    if (granted) {
+                        view.claim(claimBackend);
+                    }
+                }
+
+                if (running) {
+                    entries.put(settings.nodeId(), new Entry(now, localCounts.get(), view.ownLeases()));
+                } else {
+                    entries.remove(settings.nodeId());
+                }
+                write(channel, entries);
+                return granted;
+            }
+        }
+    }
+
+    private Map<String, Entry> read(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        Map<String, Entry> entries = new HashMap<>();
+        if (buffer.position() == 0) {
+            return entries;
+        }
+        try {
+            Map<String, Entry> loaded = gson.fromJson(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8),
+                FILE_TYPE);
+            if (loaded != null) {
+                entries.putAll(loaded);
+            }
+        } catch (JsonParseException e) {
+            logger.warn("Ignoring unreadable coordination file {}: {}", file, e.toString());
+        }
+        return entries;
+    }
+
+    private void write(FileChannel channel, Map<String, Entry> entries) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(gson.toJson(entries, FILE_TYPE).getBytes(StandardCharsets.UTF_8));
+        channel.truncate(0);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, buffer.position());
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.jacocanete.autoshutdown;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coordination over UDP. Every heartbeat interval, each proxy sends its player counts and the
+ * leases it holds to every peer as one small JSON datagram, prefixed with an HMAC-SHA256 of it when
+ * a secret is configured (anything that does not verify is dropped). A proxy that has not been
+ * heard from for the node timeout no longer counts, and neither do its leases.
+ *
+ * There is no lock to take, so a lease is claimed optimistically: the claim goes out to every
+ * peer at once and is only confirmed if no earlier claim has turned up after the settle delay,
+ * which must comfortably exceed the round trip between proxies.
+ *
+ * One daemon thread does all the receiving and the periodic sending; claims and releases are
+ * sent straight from the caller, as a UDP send never blocks for long.
+ */
+public class GossipCoordinator implements ProxyCoordinator {
+
+    private static final int MAX_DATAGRAM_BYTES = 65_507;
+    private static final int MAC_BYTES = 32;
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    /** A lease on the wire: the remaining time instead of an expiry, so clocks need not agree. */
+    private record WireLease(long claimedAt, long remainingMillis) {
+    }
+
+    private record Heartbeat(String node, long incarnation, long sequence, boolean leaving,
+                             Map<String, Integer> counts, Map<String, WireLease> leases) {
+    }
+
+    /** Newest heartbeat seen from a node; UDP may deliver an older one after it. */
+    private record Version(long incarnation, long sequence) {
+    }
+
+    private final Settings settings;
+    private final Supplier<Map<String, Integer>> localCounts;
+    private final TimerWheel timers;
+    private final Logger logger;
+    private final ClusterView view;
+    private final Gson gson = new Gson();
+    private final SecretKeySpec key;
+
+    /** Tells our own restarts apart, so a restarted proxy's heartbeats are not taken for stale ones. */
+    private final long incarnation = System.currentTimeMillis();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Version> versions = new HashMap<>();
+    private final AtomicLong droppedPackets = new AtomicLong();
+
+    private DatagramSocket socket;
+    private Thread thread;
+    private volatile boolean running;
+    private boolean duplicateIdWarned;
+
+    public GossipCoordinator(Settings settings, Supplier<Map<String, Integer>> localCounts, TimerWheel timers,
+                             Logger logger) {
+        this.settings = settings;
+        this.localCounts = localCounts;
+        this.timers = timers;
+        this.logger = logger;
+        this.view = new ClusterView(settings.nodeId(), settings.nodeTimeoutMillis(), settings.leaseMillis());
+        this.key = settings.secret() == null || settings.secret().isEmpty()
+            ? null
+            : new SecretKeySpec(settings.secret().getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+    }
+
+    @Override
+    public Mode getMode() {
+        return Mode.GOSSIP;
+    }
+
+    @Override
+    public String getNodeId() {
+        return settings.nodeId();
+    }
+
+    /** Datagrams that were unsigned, badly signed or unreadable. */
+    public long getDroppedPackets() {
+        return droppedPackets.get();
+    }
+
+    @Override
+    public void start() throws IOException {
+        socket = new DatagramSocket(settings.bindAddress());
+        running = true;
+        thread = Thread.ofPlatform().daemon().name("AutoShutdown-Gossip").start(this::run);
+        logger.info("Coordinating with {} peer(s) over UDP on {} as node '{}'",
+            settings.peers().size(), settings.bindAddress(), settings.nodeId());
+        if (key == null) {
+            logger.warn("coordination.secret is not set, gossip packets are not authenticated");
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        view.releaseAll();
+        publish(true);
+        socket.close();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public int getRemotePlayerCount(String backendName) {
+        return view.remotePlayerCount(backendName);
+    }
+
+    @Override
+    public int getLivePeerCount() {
+        return view.livePeerCount();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquire(String backendName) {
+        String holder = view.holder(backendName);
+        if (holder != null && !holder.equals(settings.nodeId())) {
+            return CompletableFuture.completedFuture(false);
+        }
+        view.claim(backendName);
+        if (holder != null) {
+            return CompletableFuture.completedFuture(true); // A renewal; the claim was settled before
+        }
+
+        publish(false);
+        CompletableFuture<Boolean> settled = new CompletableFuture<>();
+        TimerWheel.Timeout timeout = timers.schedule(() -> settled.complete(settleClaim(backendName)),
+            settings.settleMillis(), TimeUnit.MILLISECONDS);
+        if (timeout.isCancelled()) {
+            // The wheel is stopped, so the plugin is shutting down
+            view.release(backendName);
+            settled.complete(false);
+        }
+        return settled;
+    }
+
+    private boolean settleClaim(String backendName) {
+        if (settings.nodeId().equals(view.holder(backendName))) {
+            return true;
+        }
+        // An earlier claim from another proxy arrived meanwhile; ours is dropped from the next heartbeat
+        view.release(backendName);
+        return false;
+    }
+
+    @Override
+    public void release(String backendName) {
+        if (view.release(backendName) && running) {
+            publish(false);
+        }
+    }
+
+    @Override
+    public String getLeaseHolder(String backendName) {
+        return view.holder(backendName);
+    }
+
+    private void run() {
+        byte[] buffer = new byte[MAX_DATAGRAM_BYTES];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        long nextHeartbeat = 0;
+
+        while (running) {
+            long now = System.currentTimeMillis();
+            if (now >= nextHeartbeat) {
+                publish(false);
+                nextHeartbeat = now + settings.heartbeatMillis();
+            }
+            try {
+                socket.setSoTimeout((int) Math.max(1, nextHeartbeat - now));
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+                receive(packet);
+            } catch (SocketTimeoutException e) {
+                // Time for the next heartbeat
+            } catch (IOException | RuntimeException e) {
+                if (running) {
+                    logger.debug("Gossip receive failed: {}", e.toString());
+                }
+            }
+        }
+    }
+
+    private void publish(boolean leaving) {
+        long now = System.currentTimeMillis();
+        Map<String, WireLease> leases = new HashMap<>();
+        Map<String, Integer> counts;
+        try {
+            counts = leaving ? Map.of() : localCounts.get();
+        } catch (RuntimeException e) {
+            logger.debug("Could not count local players for gossip: {}", e.toString());
+            return;
+        }
+        view.ownLeases().forEach((backendName, lease) ->
+            leases.put(backendName, new WireLease(lease.claimedAt(), lease.expiresAt() - now)));
+
+        Heartbeat heartbeat = new Heartbeat(settings.nodeId(), incarnation, sequence.incrementAndGet(), leaving,
+            counts, leases);
+        byte[] payload = sign(gson.toJson(heartbeat).getBytes(StandardCharsets.UTF_8));
+        if (payload.length > MAX_DATAGRAM_BYTES) {
+            logger.warn("Gossip heartbeat of {} bytes does not fit in a datagram, not sent", payload.length);
+            return;
+        }
+
+        for (InetSocketAddress peer : settings.peers()) {
+            try {
+                socket.send(new DatagramPacket(payload, payload.length, peer));
+            } catch (IOException e) {
+                logger.debug("Gossip send to {} failed: {}", peer, e.toString());
+            }
+        }
+    }
+
+    private void receive(DatagramPacket packet) {
+        byte[] json = verify(packet.getData(), packet.getOffset(), packet.getLength());
+        Heartbeat heartbeat;
+        try {
+            heartbeat = json == null ? null : gson.fromJson(new String(json, StandardCharsets.UTF_8), Heartbeat.class);
+        } catch (JsonParseException e) {
+            heartbeat = null;
+        }
+        if (heartbeat == null || heartbeat.node() == null) {
+            droppedPackets.incrementAndGet();
+            return;
+        }
+
+        if (heartbeat.node().equals(settings.nodeId())) {
+            if (heartbeat.incarnation() != incarnation && !duplicateIdWarned) {
+                duplicateIdWarned = true;
+                logger.warn("Another proxy at {} uses this proxy's node id '{}'; give each proxy its own coordination.node-id",
+                    packet.getSocketAddress(), settings.nodeId());
+            }
+            return;
+        }
+
+        Version last = versions.get(heartbeat.node());
+        if (last != null && (heartbeat.incarnation() < last.incarnation()
+            || (heartbeat.incarnation() == last.incarnation() && heartbeat.sequence() <= last.sequence()))) {
+            return;
+        }
+        versions.put(heartbeat.node(), new Version(heartbeat.incarnation(), heartbeat.sequence()));
+
+        if (heartbeat.leaving()) {
+            view.removePeer(heartbeat.node());
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Map<String, ClusterView.Lease> leases = new HashMap<>();
+        if (heartbeat.leases() != null) {
+            heartbeat.leases().forEach((backendName, lease) ->
+                leases.put(backendName, new ClusterView.Lease(lease.claimedAt(), now + lease.remainingMillis())));
+        }
+        view.updatePeer(heartbeat.node(), new ClusterView.Peer(now,
+            heartbeat.counts() == null ? Map.of() : heartbeat.counts(), leases));
+    }
+
+    private byte[] sign(byte[] json) {
+        if (key == null) {
+            return json;
+        }
+        byte[] signed = new byte[MAC_BYTES + json.length];
+        System.arraycopy(mac(json, 0, json.length), 0, signed, 0, MAC_BYTES);
+        System.arraycopy(json, 0, signed, MAC_BYTES, json.length);
+        return signed;
+    }
+
+    /** Returns the JSON part of a datagram, or null if a secret is configured and it does not check out. */
+    private byte[] verify(byte[] data, int offset, int length) {
+        if (key == null) {
+            return Arrays.copyOfRange(data, offset, offset + length);
+        }
+        if (length <= MAC_BYTES) {
+            return null;
+        }
+        byte[] expected = mac(data, offset + MAC_BYTES, length - MAC_BYTES);
+        byte[] actual = Arrays.copyOfRange(data, offset, offset + MAC_BYTES);
+        return MessageDigest.isEqual(expected, actual)
+            ? Arrays.copyOfRange(data, offset + MAC_BYTES, offset + length)
+            : null;
+    }
+
+    private byte[] mac(byte[] data, int offset, int length) {
+        try {
+            // Mac instances are not thread-safe, and sends come from several threads
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            mac.update(data, offset, length);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.jacocanete.autoshutdown;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record of every backend lifecycle transition, so a proxy restart or reload picks up
+ * idle countdowns and startups where they were instead of starting them over.
+ *
+ * File layout: a 4-byte magic, then records of
+ * <pre>
+ * int    length of the rest of the record
+ * long   seq (per backend; a record with a lower one is stale)
+ * long   sinceMillis (when the backend entered the state)
+ * byte   BackendState ordinal
+ * short  name length, then the UTF-8 backend name
+ * int    CRC32 of the bytes above, after the length
+ * </pre>
+ *
+ * Appends are queued and written by one task on the blocking I/O executor, so a burst of
+ * transitions becomes a single gathering write and one {@code force}. Transitions can reach
+ * {@link #append} out of order, so each record carries its backend's lifecycle sequence number and
+ * the highest one wins, in memory, at flush and on replay. On open the file is replayed up to the
+ * first torn or corrupt record, and the tail is cut off there. Once the file passes
+ * {@link #COMPACT_THRESHOLD_BYTES} it is rewritten with only the latest record per backend.
+ */
+public class LifecycleJournal {
+
+    public record Entry(BackendState state, long sinceMillis, long seq) {
+    }
+
+    /** A record waiting to be written; skipped at flush if a newer one has been appended since. */
+    private record Pending(String name, Entry entry) {
+    }
+
+    private static final int MAGIC = 0x41534A32; // "ASJ2"
+    private static final int MIN_BODY_LENGTH = Long.BYTES + Long.BYTES + 1 + Short.BYTES;
+    private static final long COMPACT_THRESHOLD_BYTES = 256 * 1024;
+
+    private final Path file;
+    private final BlockingIoExecutor ioExecutor;
+    private final Logger logger;
+
+    private final ConcurrentHashMap<String, Entry> latest = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private FileChannel channel;
+
+    public LifecycleJournal(Path file, BlockingIoExecutor ioExecutor, Logger logger) {
+        this.file = file;
+        this.ioExecutor = ioExecutor;
+        this.logger = logger;
+    }
+
+    /** Replays the journal into memory and opens it for appending. */
+    public synchronized void open() throws IOException {
+        long validLength = replay();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (validLength == 0) {
+            channel.truncate(0);
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, MAGIC));
+        } else if (channel.size() > validLength) {
+            logger.warn("Lifecycle journal had a damaged tail, discarding {} byte(s)", channel.size() - validLength);
+            channel.truncate(validLength);
+        }
+        channel.position(channel.size());
+
+        if (channel.size() > COMPACT_THRESHOLD_BYTES) {
+            compact();
+        }
+        logger.info("Lifecycle journal: restored state for {} backend(s)", latest.size());
+    }
+
+    /** Reads every intact record into {@link #latest}; returns how many bytes of the file were valid. */
+    private long replay() throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC) {
+            logger.warn("Lifecycle journal {} is not recognised, starting a new one", file);
+            return 0;
+        }
+
+        BackendState[] states = BackendState.values();
+        while (buffer.remaining() >= Integer.BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length < MIN_BODY_LENGTH + Integer.BYTES || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+
+            int bodyStart = buffer.position();
+            int bodyLength = length - Integer.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(bodyStart, bodyLength));
+            long seq = buffer.getLong();
+            long sinceMillis = buffer.getLong();
+            int ordinal = buffer.get();
+            int nameLength = buffer.getShort();
+            if (nameLength < 0 || nameLength != bodyLength - MIN_BODY_LENGTH
+                || ordinal < 0 || ordinal >= states.length) {
+                buffer.position(start);
+                break;
+            }
+            byte[] name = new byte[nameLength];
+            buffer.get(name);
+            if (buffer.getInt() != (int) crc.getValue()) {
+                buffer.position(start);
+                break;
+            }
+
+            latest.merge(new String(name, StandardCharsets.UTF_8), new Entry(states[ordinal], sinceMillis, seq),
+                LifecycleJournal::newer);
+        }
+        return buffer.position();
+    }
+
+    /** Last recorded state of the backend, or null if the journal has never seen it. */
+    public Entry get(String backendName) {
+        return latest.get(backendName.toLowerCase());
+    }
+
+    /** Records a transition, unless a later one for the same backend got here first. */
+    public void append(String backendName, BackendState state, long sinceMillis, long seq) {
+        String key = backendName.toLowerCase();
+        Entry entry = new Entry(state, sinceMillis, seq);
+        if (latest.merge(key, entry, LifecycleJournal::newer) != entry) {
+            return;
+        }
+        pending.add(new Pending(key, entry));
+
+        if (flushScheduled.compareAndSet(false, true)) {
+            ioExecutor.supply(() -> {
+                flushScheduled.set(false);
+                flush();
+                return null;
+            });
+        }
+    }
+
+    private static Entry newer(Entry current, Entry candidate) {
+        return candidate.seq() > current.seq() ? candidate : current;
+    }
+
+    private static ByteBuffer encode(String name, Entry entry) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = MIN_BODY_LENGTH + nameBytes.length;
+        ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bodyLength + Integer.BYTES);
+        record.putInt(bodyLength + Integer.BYTES)
+            .putLong(entry.seq())
+            .putLong(entry.sinceMillis())
+            .put((byte) entry.state().ordinal())
+            .putShort((short) nameBytes.length)
+            .put(nameBytes);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), Integer.BYTES, bodyLength);
+        record.putInt((int) crc.getValue());
+        return record.flip();
+    }
+
+    private synchronized void flush() {
+        if (channel == null || pending.isEmpty()) {
+            return;
+        }
+
+        try {
+            ByteBuffer[] batch = drainPending();
+            if (batch.length == 0) {
+                return;
+            }
+            long remaining = 0;
+            for (ByteBuffer record : batch) {
+                remaining += record.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(batch);
+            }
+            channel.force(false);
+
+            if (channel.size() > COMPACT_THRESHOLD_BYTES) {
+                compact();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write lifecycle journal {}: {}", file, e.toString());
+        }
+    }
+
+    /** Encodes the queued records, leaving out any that a later transition has already superseded. */
+    private ByteBuffer[] drainPending() {
+        List<ByteBuffer> records = new ArrayList<>();
+        Pending record;
+        while ((record = pending.poll()) != null) {
+            if (record.entry().seq() >= latest.get(record.name()).seq()) {
+                records.add(encode(record.name(), record.entry()));
+            }
+        }
+        return records.toArray(new ByteBuffer[0]);
+    }
+
+    /** Rewrites the journal with only the latest record per backend, then swaps it in atomically. */
+    private void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, MAGIC));
+            for (Map.Entry<String, Entry> entry : latest.entrySet()) {
+                ByteBuffer record = encode(entry.getKey(), entry.getValue());
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        logger.debug("Compacted lifecycle journal to {} bytes", channel.size());
+    }
+
+    public synchronized void close() {
+        flush();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close lifecycle journal {}: {}", file, e.toString());
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,886 @@
+package com.jacocanete.autoshutdown;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.slf4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lifecycle of one sleepable backend: starting it when players need it, watching it come up,
+ * and stopping it once it has been empty for its configured delay.
+ *
+ * The current {@link BackendState} lives in an {@link AtomicReference} and only changes through
+ * compare-and-set, so whichever thread wins a transition is the only one that acts on it. That is
+ * what guarantees a single power signal per start or stop, however many joins and leaves race.
+ *
+ * With several proxies in front of the backend, player counts include the other proxies' and
+ * every start or stop first takes the backend's power lease from the {@link ProxyCoordinator}.
+ * A proxy that is refused the lease leaves the action to the holder and watches the outcome.
+ *
+ * Instances own no threads and no repeating tasks. All timing (startup polls, startup timeout,
+ * idle deadline) goes through {@link #scheduleTimeout} on the plugin's {@link TimerWheel}, which
+ * keeps at most one pending timer per backend and drops it as soon as the state it was armed for
+ * is gone.
+ */
+public class ManagedBackend {
+
+    /** Readiness polls start fast and back off by half each time, up to the max. */
+    private static final long STARTUP_POLL_INITIAL_MILLIS = 500;
+    private static final long STARTUP_POLL_MAX_MILLIS = 5000;
+    /** The panel is asked less often than the backend is pinged, to spare the rate limit. */
+    private static final long STARTUP_PANEL_POLL_MILLIS = 5000;
+    /** A panel still reporting "offline" this long after the start signal means the boot failed. */
+    private static final long STARTUP_PANEL_GRACE_MILLIS = 15000;
+    private static final int STOP_POLL_SECONDS = 5;
+    private static final int STOP_RETRY_SECONDS = 30;
+
+    /** Pseudo player names for starts nobody joined for. */
+    private static final String CONSOLE = "console";
+    private static final String PREDICTOR = "predictor";
+    private static final String POOL = "pool";
+
+    private final AutoShutdownPlugin plugin;
+    private final ProxyServer server;
+    private final Logger logger;
+    private final BackendConfig config;
+
+    private final AtomicReference<Lifecycle> lifecycle =
+        new AtomicReference<>(new Lifecycle(BackendState.OFFLINE, System.currentTimeMillis(), 0));
+    private final AtomicReference<ArmedTimeout> timeoutTask = new AtomicReference<>();
+    private final AtomicBoolean restartRequested = new AtomicBoolean();
+    private final TransferQueue transferQueue;
+    /** Startups requested at login, until the same login reaches {@link #parkInLimbo} or the player leaves. */
+    private final Map<UUID, CompletableFuture<Void>> loginStartups = new ConcurrentHashMap<>();
+    /** This proxy's players on the backend, kept by the plugin's {@link PresenceIndex}. */
+    private final LongAdder presence;
+    private volatile ByteBuffer lastSnapshotPayload;
+
+    /** The autoscaled pool this backend is an instance of, if any; set before it is published. */
+    private volatile BackendPool pool;
+
+    private final BackendStats stats = new BackendStats();
+    private volatile PingResult lastTimedPing;
+    /** When the panel accepted the current start signal, 0 if unknown. */
+    private volatile long startupAckedAt;
+    /** When the backend last became ready after a start, until the first player arrives. */
+    private final AtomicLong readyAt = new AtomicLong();
+
+    /** Latest panel current_state seen while starting, and when the panel was last asked. */
+    private volatile String startupPanelState;
+    private volatile long startupPanelPolledAt;
+    /** Another proxy held the lease when this startup began, so no start signal was sent from here. */
+    private volatile boolean startupDeferred;
+
+    /**
+     * Immutable snapshot, so a CAS on the reference also guards the timestamp that goes with it.
+     * {@code seq} counts transitions, so the journal can tell which of two racing writes is newer.
+     */
+    private record Lifecycle(BackendState state, long sinceMillis, long seq) {
+    }
+
+    /** The pending timer and the snapshot it was armed for; only stale ones may be cancelled by others. */
+    private record ArmedTimeout(Lifecycle armedFor, TimerWheel.Timeout timeout) {
+    }
+
+    public ManagedBackend(AutoShutdownPlugin plugin, BackendConfig config) {
+        this.plugin = plugin;
+        this.server = plugin.getServer();
+        this.logger = plugin.getLogger();
+        this.config = config;
+        this.transferQueue = new TransferQueue(plugin, this);
+        this.presence = plugin.getPresence().counter(config.name());
+    }
+
+    public String getName() {
+        return config.name();
+    }
+
+    public BackendConfig getConfig() {
+        return config;
+    }
+
+    public BackendState getState() {
+        return lifecycle.get().state();
+    }
+
+    public boolean isStartupInProgress() {
+        return getState() == BackendState.STARTING;
+    }
+
+    /** Up and accepting players, whether or not anyone is on it. */
+    public boolean isReady() {
+        BackendState state = getState();
+        return state == BackendState.ONLINE || state == BackendState.IDLE;
+    }
+
+    public BackendPool getPool() {
+        return pool;
+    }
+
+    void setPool(BackendPool pool) {
+        this.pool = pool;
+    }
+
+    public BackendStats getStats() {
+        return stats;
+    }
+
+    public TransferQueue getTransferQueue() {
+        return transferQueue;
+    }
+
+    public long getMillisInState() {
+        return System.currentTimeMillis() - lifecycle.get().sinceMillis();
+    }
+
+    /** Time spent offline since the proxy started (or the backend was reloaded), right up to now. */
+    public long getAsleepMillis() {
+        Lifecycle current = lifecycle.get();
+        return current.state() == BackendState.OFFLINE
+            ? stats.getAsleepMillis(current.sinceMillis())
+            : stats.getAsleepMillis();
+    }
+
+    /** When the backend became empty, or 0 if no idle countdown is running. */
+    public long getLastPlayerLeftTime() {
+        Lifecycle current = lifecycle.get();
+        return current.state() == BackendState.IDLE ? current.sinceMillis() : 0;
+    }
+
+    public RegisteredServer getRegisteredServer() {
+        return server.getServer(config.name()).orElse(null);
+    }
+
+    /** Players on the backend through any proxy. */
+    public int getPlayerCount() {
+        return getLocalPlayerCount() + plugin.getCoordinator().getRemotePlayerCount(getName());
+    }
+
+    /** Players on the backend through this proxy only. */
+    public int getLocalPlayerCount() {
+        return (int) presence.sum();
+    }
+
+    public CompletableFuture<PingResult> ping() {
+        return plugin.getStatusCache().get(config.host(), config.port(), config.queryPort())
+            .whenComplete((result, error) -> {
+                // Cached results come back as the same instance; only time fresh probes
+                if (result != null && result != lastTimedPing) {
+                    lastTimedPing = result;
+                    stats.getPing().record(result.latencyMs());
+                }
+                captureSnapshot(result);
+            });
+    }
+
+    public CompletableFuture<Boolean> isOnline() {
+        return ping().thenApply(PingResult::hasStatus);
+    }
+
+    /**
+     * Keeps the server-list snapshot current. Cached results come back as the same payload, so
+     * the response is only parsed when its content has actually changed. Query answers carry no
+     * favicon and are skipped; the periodic status ping in query mode refreshes the snapshot.
+     */
+    private void captureSnapshot(PingResult result) {
+        if (result == null || result.statusPayload() == null || result.statusPayload().equals(lastSnapshotPayload)) {
+            return;
+        }
+        lastSnapshotPayload = result.statusPayload();
+        StatusSnapshot snapshot = StatusResponseParser.parseSnapshot(result.statusPayload());
+        if (snapshot != null) {
+            plugin.getSnapshotStore().update(getName(), snapshot);
+        }
+    }
+
+    /**
+     * Moves from {@code from} to {@code to} if, and only if, the backend is currently in
+     * {@code from}. Returns the new snapshot to the single caller that performed the
+     * transition, or null to everyone else.
+     */
+    private Lifecycle transition(BackendState from, BackendState to, long sinceMillis) {
+        while (true) {
+            Lifecycle current = lifecycle.get();
+            if (current.state() != from) {
+                return null;
+            }
+            Lifecycle next = new Lifecycle(to, sinceMillis, current.seq() + 1);
+            if (lifecycle.compareAndSet(current, next)) {
+                if (from != to) {
+                    logger.debug("Backend '{}': {} -> {}", getName(), from, to);
+                }
+                if (from == BackendState.OFFLINE && to != BackendState.OFFLINE) {
+                    stats.addAsleep(current.sinceMillis(), sinceMillis);
+                }
+                if (isPowerAction(from) && !isPowerAction(to)) {
+                    plugin.getCoordinator().release(getName()); // The start or stop has settled
+                }
+                plugin.getJournal().append(getName(), to, sinceMillis, next.seq());
+                return next;
+            }
+        }
+    }
+
+    private Lifecycle transition(BackendState from, BackendState to) {
+        return transition(from, to, System.currentTimeMillis());
+    }
+
+    private static boolean isPowerAction(BackendState state) {
+        return state == BackendState.STARTING || state == BackendState.STOPPING;
+    }
+
+    /** Gives back a lease that was granted for an action that no longer applies, unless a start or stop now owns it. */
+    private void releaseStaleLease() {
+        if (!isPowerAction(getState())) {
+            plugin.getCoordinator().release(getName());
+        }
+    }
+
+    /**
+     * The one place timeouts are armed. Any previously pending timeout for this backend is
+     * cancelled, and the action only runs if the backend is still in exactly the snapshot it
+     * was armed for. A caller whose snapshot is already gone arms nothing, so a late caller can
+     * never replace the timer of a newer state.
+     */
+    private void scheduleTimeout(Lifecycle armedFor, long delayMs, Runnable action) {
+        TimerWheel.Timeout task = plugin.getTimers().schedule(() -> {
+            if (lifecycle.get() == armedFor && !plugin.isShuttingDown()) {
+                action.run();
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+        ArmedTimeout armed = new ArmedTimeout(armedFor, task);
+
+        while (true) {
+            ArmedTimeout previous = timeoutTask.get();
+            if (lifecycle.get() != armedFor) {
+                task.cancel();
+                return;
+            }
+            if (timeoutTask.compareAndSet(previous, armed)) {
+                if (previous != null) {
+                    previous.timeout().cancel();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Cancels the pending timer if the snapshot it was armed for is gone. Called after a
+     * transition; a timer armed meanwhile for the new state is left alone, since it is no longer
+     * the one this compare-and-set would see.
+     */
+    private void cancelStaleTimeout() {
+        ArmedTimeout armed = timeoutTask.get();
+        if (armed != null && armed.armedFor() != lifecycle.get() && timeoutTask.compareAndSet(armed, null)) {
+            armed.timeout().cancel();
+        }
+    }
+
+    /** Whether a timer is pending for the state the backend is in now. */
+    boolean hasPendingTimeout() {
+        return hasPendingTimeout(lifecycle.get());
+    }
+
+    private boolean hasPendingTimeout(Lifecycle current) {
+        ArmedTimeout armed = timeoutTask.get();
+        return armed != null && armed.armedFor() == current && armed.timeout().isPending();
+    }
+
+    private void cancelTimeout() {
+        ArmedTimeout previous = timeoutTask.getAndSet(null);
+        if (previous != null) {
+            previous.timeout().cancel();
+        }
+    }
+
+    /**
+     * Picks up where a previous run left off, from the lifecycle journal. Must be called before
+     * the backend is published to event handlers. Timers resume with the time already spent, and
+     * the reconciliation that follows corrects anything the backend itself disagrees with.
+     */
+    public void restore(LifecycleJournal.Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        BackendState state = entry.state();
+        if (state == BackendState.IDLE && (!config.autoShutdownEnabled() || pool != null)) {
+            state = BackendState.ONLINE;
+        }
+        Lifecycle restored = new Lifecycle(state, entry.sinceMillis(), entry.seq());
+        lifecycle.set(restored);
+
+        long elapsedMs = System.currentTimeMillis() - entry.sinceMillis();
+        logger.info("Restored '{}' as {} (since {} seconds ago)", getName(), state, TimeUnit.MILLISECONDS.toSeconds(elapsedMs));
+        switch (state) {
+            case IDLE:
+                long remainingMs = TimeUnit.SECONDS.toMillis(config.autoShutdownDelay()) - elapsedMs;
+                scheduleTimeout(restored, Math.max(0, remainingMs), () -> performIdleShutdown(restored));
+                break;
+            case STARTING:
+                scheduleTimeout(restored, STARTUP_POLL_INITIAL_MILLIS,
+                    () -> pollStartup(restored, CONSOLE, STARTUP_POLL_INITIAL_MILLIS));
+                break;
+            case STOPPING:
+                scheduleTimeout(restored, TimeUnit.SECONDS.toMillis(STOP_POLL_SECONDS), () -> pollStopped(restored));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Called when a player needs this backend. Starts it if it is offline and queues the player,
+     * who waits in limbo until the transfer queue moves them over. The returned future completes
+     * once the backend has been checked and, if need be, its startup begun.
+     */
+    public CompletableFuture<Void> requestStartup(Player player) {
+        String playerName = player.getUsername();
+        plugin.getDemandPredictor().recordDemand(getName());
+
+        switch (getState()) {
+            case STARTING:
+                logger.info("Server '{}' startup in progress, connecting '{}' to limbo server", getName(), playerName);
+                player.sendMessage(
+                    Component.text("Server is starting up, please wait... (#" + transferQueue.add(player) + " in queue)")
+                        .color(NamedTextColor.YELLOW)
+                );
+                return CompletableFuture.completedFuture(null);
+            case STOPPING:
+                // The stop signal is already out; start again as soon as it has gone through
+                restartRequested.set(true);
+                transferQueue.add(player);
+                logger.info("Server '{}' is stopping, will restart it for player '{}'", getName(), playerName);
+                player.sendMessage(
+                    Component.text("Server is shutting down and will restart shortly, please wait...")
+                        .color(NamedTextColor.YELLOW)
+                );
+                return CompletableFuture.completedFuture(null);
+            default:
+                break;
+        }
+
+        return isOnline().thenAccept(online -> {
+            if (online) {
+                logger.info("Server '{}' is online, player '{}' can connect normally", getName(), playerName);
+                if (transition(BackendState.OFFLINE, BackendState.ONLINE) != null) {
+                    // Anyone parked in limbo on the strength of a stale OFFLINE can go over now
+                    transferQueue.drain();
+                }
+                return;
+            }
+
+            // We may still think it is up if it crashed or was stopped from the panel
+            transition(BackendState.ONLINE, BackendState.OFFLINE);
+            if (transition(BackendState.IDLE, BackendState.OFFLINE) != null) {
+                cancelStaleTimeout();
+            }
+
+            logger.info("Server '{}' is offline, triggering startup for player '{}'", getName(), playerName);
+            transferQueue.add(player);
+            startServer(playerName);
+        });
+    }
+
+    /**
+     * {@link #requestStartup} from the login event, remembered so the limbo path of the same login
+     * does not ask a second time.
+     */
+    public void requestStartupOnLogin(Player player) {
+        loginStartups.put(player.getUniqueId(), requestStartup(player));
+    }
+
+    /**
+     * The player was sent to limbo instead of this backend at login. Queues them, and starts the
+     * backend (or, if it turned out to be up after all, moves them straight over). A startup the
+     * login already asked for is not asked for again, unless it has come to nothing.
+     */
+    public void parkInLimbo(Player player) {
+        transferQueue.add(player);
+        CompletableFuture<Void> atLogin = loginStartups.remove(player.getUniqueId());
+        if (isReady()) {
+            transferQueue.drain();
+        } else if (atLogin == null || atLogin.isDone() && getState() == BackendState.OFFLINE) {
+            requestStartup(player);
+        }
+    }
+
+    /** The player left the proxy before their login reached {@link #parkInLimbo}, if it ever was going to. */
+    public void forgetLogin(UUID playerId) {
+        loginStartups.remove(playerId);
+    }
+
+    private void startServer(String playerName) {
+        Lifecycle starting = transition(BackendState.OFFLINE, BackendState.STARTING);
+        if (starting == null) {
+            return; // Another join won the race, or the backend is not offline
+        }
+
+        logger.info("Player '{}' triggered startup of '{}' - limbo plugin will handle connection", playerName, getName());
+        if (!CONSOLE.equals(playerName) && !PREDICTOR.equals(playerName) && !POOL.equals(playerName)) {
+            plugin.getDemandPredictor().recordColdStart(getName());
+        }
+        startupPanelState = null;
+        startupPanelPolledAt = 0;
+        startupAckedAt = 0;
+        startupDeferred = false;
+
+        plugin.getCoordinator().tryAcquire(getName()).thenAccept(granted -> {
+            if (lifecycle.get() != starting) {
+                if (granted) {
+                    releaseStaleLease();
+                }
+                return;
+            }
+            if (granted) {
+                sendStartSignal(starting, playerName);
+                return;
+            }
+            startupDeferred = true;
+            logger.info("Another proxy holds the power lease for '{}', waiting for it to come up", getName());
+            scheduleTimeout(starting, STARTUP_POLL_INITIAL_MILLIS,
+                () -> pollStartup(starting, playerName, STARTUP_POLL_INITIAL_MILLIS));
+        });
+    }
+
+    private void sendStartSignal(Lifecycle starting, String playerName) {
+        // Start the server via Pterodactyl API
+        plugin.getPterodactylAPI().startServer(config.pterodactylServerId())
+            .thenAccept(success -> {
+                invalidateStatus();
+                if (success) {
+                    logger.info("Successfully sent start command to '{}'", getName());
+                    startupAckedAt = System.currentTimeMillis();
+                    stats.getTriggerToAck().record(startupAckedAt - starting.sinceMillis());
+
+                    // Notify player AFTER API call succeeds
+                    server.getPlayer(playerName).ifPresent(player -> {
+                        player.sendMessage(
+                            Component.text("Server is offline. Starting server...")
+                                .color(NamedTextColor.YELLOW)
+                        );
+                    });
+
+                    // Wait for server to come online
+                    scheduleTimeout(starting, STARTUP_POLL_INITIAL_MILLIS,
+                        () -> pollStartup(starting, playerName, STARTUP_POLL_INITIAL_MILLIS));
+                } else {
+                    logger.error("Failed to start '{}' via Pterodactyl API", getName());
+                    transition(BackendState.STARTING, BackendState.OFFLINE);
+                    transferQueue.failAll("Failed to start server. Please contact an administrator.");
+                }
+            });
+    }
+
+    /**
+     * Ready means the backend answers a fresh status ping. The panel's current_state steers the
+     * polling around that: once it reports "running" the backend is about to accept players, so
+     * polls go back to the fastest rate; if it still reports "offline" well after the start
+     * signal, the boot has failed and there is no point waiting for the timeout.
+     */
+    private void pollStartup(Lifecycle starting, String playerName, long intervalMs) {
+        long now = System.currentTimeMillis();
+        if (now - startupPanelPolledAt >= STARTUP_PANEL_POLL_MILLIS) {
+            startupPanelPolledAt = now;
+            plugin.getPterodactylAPI().getServerStatus(config.pterodactylServerId())
+                .thenAccept(panelState -> {
+                    if (panelState != null) {
+                        startupPanelState = panelState;
+                    }
+                });
+        }
+
+        invalidateStatus();
+        ping().thenAccept(result -> {
+            // Something else (a player connecting, a reload) may have moved us on meanwhile
+            if (lifecycle.get() != starting || plugin.isShuttingDown()) {
+                return;
+            }
+
+            long elapsedMs = System.currentTimeMillis() - starting.sinceMillis();
+            if (result.hasStatus()) {
+                if (transition(BackendState.STARTING, BackendState.ONLINE) == null) {
+                    return;
+                }
+                logger.info("Server '{}' is now online! (ready after {} ms)", getName(), elapsedMs);
+                long readyMillis = System.currentTimeMillis();
+                if (startupAckedAt > 0) {
+                    stats.getAckToReady().record(readyMillis - startupAckedAt);
+                }
+                readyAt.set(readyMillis);
+
+                // Nobody may ever make it onto the server, so the idle countdown starts now
+                if (getPlayerCount() == 0) {
+                    onEmpty();
+                }
+
+                transferQueue.drain();
+                return;
+            }
+
+            String panelState = startupPanelState;
+            if (startupDeferred && "offline".equals(panelState)) {
+                // Whoever held the lease has not started it, or gave up; try to take over
+                takeOverStartup(starting, playerName, intervalMs);
+                return;
+            }
+            boolean bootFailed = !startupDeferred && "offline".equals(panelState) && elapsedMs >= STARTUP_PANEL_GRACE_MILLIS;
+            if (bootFailed || elapsedMs >= TimeUnit.SECONDS.toMillis(config.startupTimeoutSeconds())) {
+                if (transition(BackendState.STARTING, BackendState.OFFLINE) == null) {
+                    return;
+                }
+                if (bootFailed) {
+                    logger.error("Server '{}' went back offline on the panel while starting", getName());
+                } else {
+                    logger.error("Server '{}' failed to start within the timeout period ({} seconds)",
+                        getName(), config.startupTimeoutSeconds());
+                }
+
+                transferQueue.failAll(bootFailed
+                    ? "Server failed to start. Please contact an administrator."
+                    : "Server startup timed out. Please contact an administrator.");
+                return;
+            }
+
+            long nextIntervalMs = "running".equals(panelState)
+                ? STARTUP_POLL_INITIAL_MILLIS
+                : Math.min(intervalMs + intervalMs / 2, STARTUP_POLL_MAX_MILLIS);
+            scheduleTimeout(starting, intervalMs, () -> pollStartup(starting, playerName, nextIntervalMs));
+        });
+    }
+
+    private void takeOverStartup(Lifecycle starting, String playerName, long intervalMs) {
+        plugin.getCoordinator().tryAcquire(getName()).thenAccept(granted -> {
+            if (lifecycle.get() != starting || plugin.isShuttingDown()) {
+                if (granted) {
+                    releaseStaleLease();
+                }
+                return;
+            }
+            if (granted) {
+                logger.info("Server '{}' is still offline on the panel, starting it from this proxy", getName());
+                startupDeferred = false;
+                startupPanelState = null;
+                sendStartSignal(starting, playerName);
+                return;
+            }
+            scheduleTimeout(starting, intervalMs, () -> pollStartup(starting, playerName, intervalMs));
+        });
+    }
+
+    /** A player is on the backend, so it is up and must not be stopped. */
+    public void onOccupied() {
+        plugin.getDemandPredictor().recordDemand(getName());
+        long ready = readyAt.getAndSet(0);
+        if (ready > 0) {
+            stats.getReadyToConnected().record(System.currentTimeMillis() - ready);
+        }
+        if (transition(BackendState.IDLE, BackendState.ONLINE) != null) {
+            logger.info("Player joined '{}', cancelling auto-shutdown", getName());
+            cancelStaleTimeout();
+            return;
+        }
+
+        // Someone got on while we still thought it was down or booting
+        if (transition(BackendState.OFFLINE, BackendState.ONLINE) != null
+            || transition(BackendState.STARTING, BackendState.ONLINE) != null) {
+            cancelStaleTimeout();
+            transferQueue.drain();
+        }
+    }
+
+    /**
+     * Called when {@code player} leaves this backend, before Velocity has dropped them from it but
+     * after the presence index has, so the count no longer includes them.
+     */
+    public void onPlayerLeft(Player player) {
+        if (getPlayerCount() == 0) {
+            onEmpty();
+        }
+    }
+
+    /**
+     * Starts the idle countdown the moment the backend becomes empty. The stop itself runs on a
+     * one-shot task at the exact deadline. Pool instances have no countdown: their pool stops them.
+     */
+    public void onEmpty() {
+        if (!config.autoShutdownEnabled() || pool != null || plugin.isShuttingDown()) {
+            return;
+        }
+
+        Lifecycle idle = transition(BackendState.ONLINE, BackendState.IDLE);
+        if (idle == null) {
+            return;
+        }
+
+        logger.info("Server '{}' is empty (0 players), starting auto-shutdown timer ({} seconds)",
+            getName(), config.autoShutdownDelay());
+        scheduleTimeout(idle, TimeUnit.SECONDS.toMillis(config.autoShutdownDelay()), () -> performIdleShutdown(idle));
+    }
+
+    private void performIdleShutdown(Lifecycle idle) {
+        if (getPlayerCount() > 0) {
+            onOccupied();
+            return;
+        }
+
+        DemandPredictor predictor = plugin.getDemandPredictor();
+        if (predictor.shouldHold(getName())) {
+            long holdMs = predictor.getSettings().holdMillis();
+            logger.info("Keeping '{}' up for another {} seconds, a player is likely to join soon",
+                getName(), TimeUnit.MILLISECONDS.toSeconds(holdMs));
+            predictor.recordHold(getName());
+            scheduleTimeout(idle, holdMs, () -> performIdleShutdown(idle));
+            return;
+        }
+
+        stopIdle(idle);
+    }
+
+    /** Takes the power lease and stops the idle backend; if another proxy holds the lease, leaves the stop to it. */
+    private void stopIdle(Lifecycle idle) {
+        plugin.getCoordinator().tryAcquire(getName()).thenAccept(granted -> {
+            if (lifecycle.get() != idle || plugin.isShuttingDown()) {
+                if (granted) {
+                    releaseStaleLease();
+                }
+                return;
+            }
+            if (!granted) {
+                logger.info("Another proxy holds the power lease for '{}', leaving the stop to it", getName());
+                scheduleTimeout(idle, TimeUnit.SECONDS.toMillis(STOP_POLL_SECONDS), () -> awaitPeerStop(idle));
+                return;
+            }
+            if (getPlayerCount() > 0) {
+                // Someone joined through another proxy while the lease was being settled
+                releaseStaleLease();
+                onOccupied();
+                return;
+            }
+            sendIdleStop(idle);
+        });
+    }
+
+    /** Another proxy held the lease when this one wanted to stop the backend; see whether it did. */
+    private void awaitPeerStop(Lifecycle idle) {
+        if (getPlayerCount() > 0) {
+            onOccupied();
+            return;
+        }
+        isOnline().thenAccept(online -> {
+            if (lifecycle.get() != idle || plugin.isShuttingDown()) {
+                return;
+            }
+            if (online) {
+                stopIdle(idle);
+            } else if (transition(BackendState.IDLE, BackendState.OFFLINE) != null) {
+                logger.info("Server '{}' was stopped by another proxy", getName());
+            }
+        });
+    }
+
+    private void sendIdleStop(Lifecycle idle) {
+        Lifecycle stopping = transition(BackendState.IDLE, BackendState.STOPPING);
+        if (stopping == null) {
+            releaseStaleLease();
+            return; // A player joined at the last moment
+        }
+        plugin.getDemandPredictor().recordStopping(getName());
+        stats.getIdleBeforeStop().record(stopping.sinceMillis() - idle.sinceMillis());
+
+        long timeSinceEmpty = (System.currentTimeMillis() - idle.sinceMillis()) / 1000;
+        logger.info("No players in '{}', shutting down now (empty for {} seconds)", getName(), timeSinceEmpty);
+
+        sendStopSignal().thenAccept(success -> {
+            if (success) {
+                logger.info("Successfully sent shutdown command to '{}' via Pterodactyl API", getName());
+                scheduleTimeout(stopping, TimeUnit.SECONDS.toMillis(STOP_POLL_SECONDS), () -> pollStopped(stopping));
+                return;
+            }
+
+            logger.error("Failed to shutdown '{}' via Pterodactyl API - check credentials and server ID", getName());
+            // Keep the original idle start so the countdown is not extended, and retry shortly
+            Lifecycle retry = transition(BackendState.STOPPING, BackendState.IDLE, idle.sinceMillis());
+            if (retry != null) {
+                scheduleTimeout(retry, TimeUnit.SECONDS.toMillis(STOP_RETRY_SECONDS), () -> performIdleShutdown(retry));
+            }
+        });
+    }
+
+    /** Watches a stopping backend until it actually goes down, so a pending restart is not delayed. */
+    private void pollStopped(Lifecycle stopping) {
+        isOnline().thenAccept(online -> {
+            if (lifecycle.get() != stopping || plugin.isShuttingDown()) {
+                return;
+            }
+            if (online) {
+                scheduleTimeout(stopping, TimeUnit.SECONDS.toMillis(STOP_POLL_SECONDS), () -> pollStopped(stopping));
+                return;
+            }
+            if (transition(BackendState.STOPPING, BackendState.OFFLINE) != null) {
+                logger.info("Server '{}' is now offline", getName());
+                onStopped();
+            }
+        });
+    }
+
+    /**
+     * Manual stop from the command. Goes through STOPPING like the idle path, so it can not race
+     * an automatic stop into a second signal.
+     */
+    public CompletableFuture<Boolean> stopServer() {
+        return plugin.getCoordinator().tryAcquire(getName()).thenCompose(granted -> {
+            if (!granted) {
+                logger.warn("Another proxy holds the power lease for '{}', not stopping it from here", getName());
+                return CompletableFuture.completedFuture(false);
+            }
+            return sendManualStop();
+        });
+    }
+
+    /**
+     * Only a running backend is stopped by hand; one that is down, booting or already stopping is
+     * left alone. If the signal does not go through, the backend goes back to where it was.
+     */
+    private CompletableFuture<Boolean> sendManualStop() {
+        Lifecycle previous = lifecycle.get();
+        Lifecycle stopping = previous.state() == BackendState.ONLINE || previous.state() == BackendState.IDLE
+            ? transition(previous.state(), BackendState.STOPPING)
+            : null;
+        if (stopping == null) {
+            logger.info("Server '{}' is {}, not stopping it", getName(), getState());
+            releaseStaleLease();
+            return CompletableFuture.completedFuture(false);
+        }
+        // Only now is the idle countdown of the state we left stale; a stop already in flight keeps its poll
+        cancelStaleTimeout();
+        plugin.getDemandPredictor().recordStopping(getName());
+        return sendStopSignal().thenApply(success -> {
+            if (success) {
+                scheduleTimeout(stopping, TimeUnit.SECONDS.toMillis(STOP_POLL_SECONDS), () -> pollStopped(stopping));
+                return true;
+            }
+
+            Lifecycle restored = transition(BackendState.STOPPING, previous.state(), previous.sinceMillis());
+            if (restored == null) {
+                return false;
+            }
+            if (restored.state() == BackendState.IDLE) {
+                // Its countdown was cancelled with the stop; try again shortly, as the idle path does
+                scheduleTimeout(restored, TimeUnit.SECONDS.toMillis(STOP_RETRY_SECONDS), () -> performIdleShutdown(restored));
+            } else if (getPlayerCount() == 0) {
+                onEmpty(); // Everyone left while it was stopping
+            }
+            return false;
+        });
+    }
+
+    private CompletableFuture<Boolean> sendStopSignal() {
+        return plugin.getPterodactylAPI().stopServer(config.pterodactylServerId())
+            .whenComplete((success, error) -> invalidateStatus());
+    }
+
+    /**
+     * Reconciliation backstop for the event-driven state. Players are counted first, so an
+     * occupied backend is never pinged.
+     */
+    public void reconcile() {
+        if (plugin.isShuttingDown()) {
+            return;
+        }
+
+        int playerCount = getPlayerCount();
+        if (playerCount > 0) {
+            logger.debug("Server '{}' has {} players online, auto-shutdown not needed", getName(), playerCount);
+            onOccupied();
+            return;
+        }
+
+        isOnline().thenAccept(online -> {
+            BackendState state = getState();
+            if (online) {
+                if (state == BackendState.OFFLINE && transition(BackendState.OFFLINE, BackendState.ONLINE) != null) {
+                    transferQueue.drain();
+                }
+                onEmpty();
+                rearmIdleDeadline();
+                return;
+            }
+
+            // Server is offline
+            switch (state) {
+                case ONLINE:
+                case IDLE:
+                case STOPPING:
+                    if (transition(state, BackendState.OFFLINE) != null) {
+                        cancelStaleTimeout();
+                        onStopped();
+                    }
+                    break;
+                default:
+                    // OFFLINE needs nothing; STARTING is owned by the startup poll
+                    break;
+            }
+        });
+    }
+
+    /** An IDLE backend must always have its deadline pending; arms it again if it got lost. */
+    private void rearmIdleDeadline() {
+        Lifecycle idle = lifecycle.get();
+        if (idle.state() != BackendState.IDLE || hasPendingTimeout(idle)) {
+            return;
+        }
+        long remainingMs = TimeUnit.SECONDS.toMillis(config.autoShutdownDelay()) - (System.currentTimeMillis() - idle.sinceMillis());
+        logger.warn("Server '{}' was idle without a pending shutdown timer, re-arming it", getName());
+        scheduleTimeout(idle, Math.max(0, remainingMs), () -> performIdleShutdown(idle));
+    }
+
+    /** Starts the backend ahead of time if it is asleep and players are likely to want it soon. */
+    public void maybePrewarm() {
+        if (getState() != BackendState.OFFLINE || plugin.isShuttingDown()) {
+            return;
+        }
+        if (plugin.getDemandPredictor().shouldPrewarm(getName())) {
+            logger.info("Pre-warming '{}' ahead of expected demand", getName());
+            startServer(PREDICTOR);
+        }
+    }
+
+    /** Starts this instance for its pool's scaler; does nothing unless it is offline. */
+    public void startForPool() {
+        if (getState() == BackendState.OFFLINE && !plugin.isShuttingDown()) {
+            startServer(POOL);
+        }
+    }
+
+    /** A player asked for the backend while it was stopping; start it again now that it is down. */
+    private void onStopped() {
+        if (restartRequested.getAndSet(false)) {
+            logger.info("Restarting '{}' for players who joined while it was stopping", getName());
+            startServer(CONSOLE);
+        }
+    }
+
+    public void shutdown() {
+        cancelTimeout();
+        restartRequested.set(false);
+        transferQueue.shutdown();
+    }
+
+    private void invalidateStatus() {
+        plugin.getStatusCache().invalidate(config.host(), config.port());
+    }
+}
@@ -0,0 +1,180 @@
+package com.jacocanete.autoshutdown;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+/**
+ * Optional Prometheus scrape endpoint on the JDK's built-in HTTP server, serving
+ * {@code GET /metrics} in the text exposition format.
+ *
+ * Everything is read from counters and histograms the plugin keeps anyway, at scrape time, into
+ * one reused buffer; the scrape handler runs on the HTTP server's own dispatcher thread, so a
+ * slow scraper never holds up the proxy.
+ */
+public class MetricsServer {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final BackendState[] BACKEND_STATES = BackendState.values();
+    private static final CircuitBreaker.State[] CIRCUIT_STATES = CircuitBreaker.State.values();
+
+    private final AutoShutdownPlugin plugin;
+    private final Logger logger;
+    private final PrometheusTextWriter writer = new PrometheusTextWriter();
+    private HttpServer httpServer;
+
+    public MetricsServer(AutoShutdownPlugin plugin) {
+        this.plugin = plugin;
+        this.logger = plugin.getLogger();
+    }
+
+    public void start(String bindAddress, int port) throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        httpServer.createContext("/metrics", this::handle);
+        httpServer.start();
+        logger.info("Serving Prometheus metrics on http://{}:{}/metrics", bindAddress, port);
+    }
+
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            synchronized (writer) {
+                writer.reset();
+                render();
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, writer.size());
+                try (OutputStream body = exchange.getResponseBody()) {
+                    writer.writeTo(body);
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to render metrics: {}", e.toString());
+        }
+    }
+
+    private void render() {
+        BackendRegistry backends = plugin.getBackends();
+
+        writer.family("autoshutdown_backend_state", "gauge", "Lifecycle state of each backend (1 for the current state)");
+        for (ManagedBackend backend : backends.all()) {
+            BackendState current = backend.getState();
+            for (BackendState state : BACKEND_STATES) {
+                writer.sample("autoshutdown_backend_state", "backend", backend.getName(), "state", state.name())
+                    .value(state == current ? 1 : 0);
+            }
+        }
+
+        // Only this proxy's players, so summing the gauge over every proxy gives the real total
+        writer.family("autoshutdown_backend_players", "gauge", "Players connected to each backend through this proxy");
+        for (ManagedBackend backend : backends.all()) {
+            writer.sample("autoshutdown_backend_players", "backend", backend.getName()).value(backend.getLocalPlayerCount());
+        }
+
+        writer.family("autoshutdown_pool_draining", "gauge", "Whether each pool instance is being drained for scale-down");
+        for (BackendPool pool : plugin.getPools()) {
+            for (ManagedBackend member : pool.getMembers()) {
+                writer.sample("autoshutdown_pool_draining", "pool", pool.getName(), "backend", member.getName())
+                    .value(pool.isDraining(member) ? 1 : 0);
+            }
+        }
+
+        writer.family("autoshutdown_timers_pending", "gauge", "Idle deadlines, startup polls and queue batches waiting on the timer wheel");
+        writer.sample("autoshutdown_timers_pending", null, null).value(plugin.getTimers().getPendingCount());
+
+        QueryClient queryClient = plugin.getQueryClient();
+        if (queryClient != null) {
+            writer.family("autoshutdown_query_requests_total", "counter", "Query datagrams sent, handshakes included");
+            writer.sample("autoshutdown_query_requests_total", null, null).value(queryClient.getRequestCount());
+            writer.family("autoshutdown_query_timeouts_total", "counter", "Query exchanges that got no answer in time");
+            writer.sample("autoshutdown_query_timeouts_total", null, null).value(queryClient.getTimeoutCount());
+        }
+
+        writer.family("autoshutdown_coordination_peers", "gauge", "Other proxies heard from within the node timeout");
+        writer.sample("autoshutdown_coordination_peers", null, null).value(plugin.getCoordinator().getLivePeerCount());
+
+        writer.family("autoshutdown_transfer_queue_players", "gauge", "Players waiting in limbo for each backend");
+        for (ManagedBackend backend : backends.all()) {
+            writer.sample("autoshutdown_transfer_queue_players", "backend", backend.getName())
+                .value(backend.getTransferQueue().size());
+        }
+
+        writer.family("autoshutdown_backend_asleep_seconds_total", "counter", "Time each backend has spent offline");
+        for (ManagedBackend backend : backends.all()) {
+            writer.sample("autoshutdown_backend_asleep_seconds_total", "backend", backend.getName())
+                .secondsValue(backend.getAsleepMillis());
+        }
+
+        writer.family("autoshutdown_ping_seconds", "histogram", "Status ping latency per backend");
+        for (ManagedBackend backend : backends.all()) {
+            writer.histogram("autoshutdown_ping_seconds", "backend", backend.getName(), null, null,
+                backend.getStats().getPing());
+        }
+
+        writer.family("autoshutdown_startup_stage_seconds", "histogram", "Duration of each cold-start stage per backend");
+        for (ManagedBackend backend : backends.all()) {
+            BackendStats stats = backend.getStats();
+            writer.histogram("autoshutdown_startup_stage_seconds", "backend", backend.getName(), "stage", "trigger_to_ack",
+                stats.getTriggerToAck());
+            writer.histogram("autoshutdown_startup_stage_seconds", "backend", backend.getName(), "stage", "ack_to_ready",
+                stats.getAckToReady());
+            writer.histogram("autoshutdown_startup_stage_seconds", "backend", backend.getName(), "stage", "ready_to_connected",
+                stats.getReadyToConnected());
+        }
+
+        writer.family("autoshutdown_idle_before_stop_seconds", "histogram", "How long backends sat empty before an idle stop");
+        for (ManagedBackend backend : backends.all()) {
+            writer.histogram("autoshutdown_idle_before_stop_seconds", "backend", backend.getName(), null, null,
+                backend.getStats().getIdleBeforeStop());
+        }
+
+        PterodactylAPI api = plugin.getPterodactylAPI();
+        if (api == null) {
+            return;
+        }
+
+        writer.family("autoshutdown_panel_request_seconds", "histogram", "Pterodactyl API request latency, per attempt");
+        writer.histogram("autoshutdown_panel_request_seconds", null, null, null, null, api.getRequestLatency());
+
+        writer.family("autoshutdown_panel_requests_total", "counter", "Pterodactyl API request attempts");
+        writer.sample("autoshutdown_panel_requests_total", null, null).value(api.getRequestAttempts());
+        writer.family("autoshutdown_panel_request_failures_total", "counter",
+            "Pterodactyl API attempts that failed with a retryable status or I/O error");
+        writer.sample("autoshutdown_panel_request_failures_total", null, null).value(api.getFailedAttempts());
+        writer.family("autoshutdown_panel_request_rejections_total", "counter",
+            "Pterodactyl API requests refused with a non-retryable status");
+        writer.sample("autoshutdown_panel_request_rejections_total", null, null).value(api.getRejectedRequests());
+        writer.family("autoshutdown_panel_retries_total", "counter", "Pterodactyl API retries");
+        writer.sample("autoshutdown_panel_retries_total", null, null).value(api.getRetries());
+
+        writer.family("autoshutdown_panel_power_signals_total", "counter", "Power signals sent to the panel");
+        writer.sample("autoshutdown_panel_power_signals_total", "signal", "start").value(api.getStartSignals());
+        writer.sample("autoshutdown_panel_power_signals_total", "signal", "stop").value(api.getStopSignals());
+
+        writer.family("autoshutdown_panel_circuit_state", "gauge", "Pterodactyl API circuit breaker state (1 for the current state)");
+        CircuitBreaker.State circuit = api.getCircuitState();
+        for (CircuitBreaker.State state : CIRCUIT_STATES) {
+            writer.sample("autoshutdown_panel_circuit_state", "state", state.name()).value(state == circuit ? 1 : 0);
+        }
+
+        PanelRateLimiter limiter = api.getRateLimiter();
+        writer.family("autoshutdown_panel_queue_depth", "gauge", "Pterodactyl API calls waiting for a rate-limit token");
+        writer.sample("autoshutdown_panel_queue_depth", null, null).value(limiter.getQueueDepth());
+        writer.family("autoshutdown_panel_dropped_polls_total", "counter", "Status polls dropped because the rate-limit queue was full");
+        writer.sample("autoshutdown_panel_dropped_polls_total", null, null).value(limiter.getDroppedCount());
+    }
+}
@@ -0,0 +1,162 @@
+package com.jacocanete.autoshutdown;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket in front of the panel API, shared by every call this proxy makes with its key.
+ *
+ * Callers block in {@link #acquire} (on their own virtual thread) until a token is free and
+ * no more important call is waiting: start signals go first, then stop signals, then status
+ * polls. Status polls are refused outright once too many of them are already queued, since a
+ * stale poll is worth less than the quota it would burn.
+ */
+public class PanelRateLimiter {
+
+    /** In order of precedence. */
+    public enum Priority { START, STOP, STATUS }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+        Comparator.comparingInt((Waiter waiter) -> waiter.priority.ordinal()).thenComparingLong(waiter -> waiter.sequence));
+
+    private double capacity;
+    private double tokensPerNano;
+    private int maxQueuedStatus;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private long nextSequence;
+    private int queuedStatus;
+
+    private final AtomicLong acquiredCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public PanelRateLimiter(int requestsPerMinute, int burst, int maxQueuedStatus) {
+        this.capacity = Math.max(1, burst);
+        this.tokensPerNano = requestsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.maxQueuedStatus = maxQueuedStatus;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Applies new limits on reload. Tokens already spent and callers already waiting carry over,
+     * so a reload never hands out a fresh burst.
+     */
+    public void setLimits(int requestsPerMinute, int burst, int maxQueuedStatus) {
+        lock.lock();
+        try {
+            refill();
+            this.capacity = Math.max(1, burst);
+            this.tokensPerNano = requestsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.maxQueuedStatus = maxQueuedStatus;
+            this.tokens = Math.min(tokens, capacity);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a token. Returns false if a status poll was dropped because the queue is backed up.
+     */
+    public boolean acquire(Priority priority) throws InterruptedException {
+        long startNanos = System.nanoTime();
+
+        lock.lock();
+        try {
+            if (priority == Priority.STATUS) {
+                if (queuedStatus >= maxQueuedStatus) {
+                    droppedCount.incrementAndGet();
+                    return false;
+                }
+                queuedStatus++;
+            }
+
+            Waiter waiter = new Waiter(priority, nextSequence++);
+            waiters.add(waiter);
+            try {
+                while (true) {
+                    refill();
+                    if (waiters.peek() == waiter) {
+                        if (tokens >= 1) {
+                            tokens -= 1;
+                            break;
+                        }
+                        changed.awaitNanos(nanosUntilNextToken());
+                    } else {
+                        changed.await();
+                    }
+                }
+            } finally {
+                waiters.remove(waiter);
+                if (priority == Priority.STATUS) {
+                    queuedStatus--;
+                }
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        long waited = System.nanoTime() - startNanos;
+        acquiredCount.incrementAndGet();
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+
+    private long nanosUntilNextToken() {
+        if (tokensPerNano <= 0) {
+            return TimeUnit.SECONDS.toNanos(1);
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public double getAverageWaitMillis() {
+        long acquired = acquiredCount.get();
+        return acquired == 0 ? 0 : totalWaitNanos.sum() / (double) acquired / 1_000_000.0;
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    private static final class Waiter {
+        private final Priority priority;
+        private final long sequence;
+
+        private Waiter(Priority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
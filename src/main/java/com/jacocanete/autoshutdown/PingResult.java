@@ -0,0 +1,46 @@
+package com.jacocanete.autoshutdown;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Outcome of a single status probe: a status ping, or a Query stat in query mode.
+ *
+ * @param reachable     whether the TCP connection was established, or the Query answered
+ * @param statusPayload the UTF-8 status JSON as a read-only buffer, or null if the server never
+ *                      answered the status request or was asked over Query
+ * @param query         the Query answer, or null for a status ping
+ * @param latencyMs     time from submitting the probe until it completed
+ */
+public record PingResult(boolean reachable, ByteBuffer statusPayload, QueryResult query, long latencyMs) {
+
+    public static PingResult unreachable(long latencyMs) {
+        return new PingResult(false, null, null, latencyMs);
+    }
+
+    public static PingResult connectedOnly(long latencyMs) {
+        return new PingResult(true, null, null, latencyMs);
+    }
+
+    public static PingResult withStatus(ByteBuffer statusPayload, long latencyMs) {
+        return new PingResult(true, statusPayload, null, latencyMs);
+    }
+
+    public static PingResult fromQuery(QueryResult query, long latencyMs) {
+        return new PingResult(true, null, query, latencyMs);
+    }
+
+    /** Whether the server answered, over either protocol; only a fully booted server does. */
+    public boolean hasStatus() {
+        return statusPayload != null || query != null;
+    }
+
+    public PlayerCountResult playerCount() {
+        return query != null ? query.playerCount() : StatusResponseParser.parsePlayerCount(statusPayload);
+    }
+
+    /** Decodes the whole payload; prefer {@link StatusResponseParser} when only a few fields are needed. */
+    public String statusJson() {
+        return statusPayload == null ? null : StandardCharsets.UTF_8.decode(statusPayload.duplicate()).toString();
+    }
+}
@@ -0,0 +1,37 @@
+package com.jacocanete.autoshutdown;
+
+/**
+ * Player count reported by a server's status response. A server that could not be asked and a
+ * server whose answer could not be understood are kept apart from a genuine "0 players", since
+ * only the latter may count towards an auto-shutdown.
+ */
+public record PlayerCountResult(Outcome outcome, int online, int max) {
+
+    public enum Outcome {
+        /** The response was parsed and {@link #online()} / {@link #max()} are valid. */
+        OK,
+        /** The server did not answer the status request. */
+        OFFLINE,
+        /** The server answered, but the payload had no usable player section. */
+        MALFORMED
+    }
+
+    private static final PlayerCountResult OFFLINE_RESULT = new PlayerCountResult(Outcome.OFFLINE, -1, -1);
+    private static final PlayerCountResult MALFORMED_RESULT = new PlayerCountResult(Outcome.MALFORMED, -1, -1);
+
+    public static PlayerCountResult of(int online, int max) {
+        return new PlayerCountResult(Outcome.OK, online, max);
+    }
+
+    public static PlayerCountResult offline() {
+        return OFFLINE_RESULT;
+    }
+
+    public static PlayerCountResult malformed() {
+        return MALFORMED_RESULT;
+    }
+
+    public boolean isKnown() {
+        return outcome == Outcome.OK;
+    }
+}
@@ -0,0 +1,94 @@
+package com.jacocanete.autoshutdown;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Settings for one autoscaled pool: a logical server backed by several identical backends.
+ *
+ * Pools are listed in {@code pools=a,b} with their settings under {@code pool.<name>.*}. Each
+ * member must also be configured as a backend ({@code backend.<member>.*}), which is where its
+ * host, port and Pterodactyl server ID come from. A backend can belong to one pool at most.
+ */
+public record PoolConfig(
+    String name,
+    List<String> members,
+    int minInstances,
+    int maxInstances,
+    double scaleUpPlayers,
+    double scaleDownPlayers,
+    int scaleDownSeconds,
+    int cooldownSeconds
+) {
+
+    public static List<PoolConfig> parseAll(Properties config, Collection<BackendConfig> backends) throws IOException {
+        List<PoolConfig> pools = new ArrayList<>();
+        String poolList = config.getProperty("pools");
+        if (poolList == null || poolList.isBlank()) {
+            return pools;
+        }
+
+        Set<String> backendNames = new HashSet<>();
+        for (BackendConfig backend : backends) {
+            backendNames.add(backend.name().toLowerCase(Locale.ROOT));
+        }
+        Set<String> pooled = new HashSet<>();
+
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : poolList.split(",")) {
+            if (!name.isBlank()) {
+                names.add(name.trim());
+            }
+        }
+
+        for (String name : names) {
+            String prefix = "pool." + name + ".";
+            List<String> members = new ArrayList<>();
+            for (String member : config.getProperty(prefix + "members", "").split(",")) {
+                member = member.trim();
+                if (member.isEmpty()) {
+                    continue;
+                }
+                if (!backendNames.contains(member.toLowerCase(Locale.ROOT))) {
+                    throw new IOException("Pool '" + name + "' member '" + member + "' is not a configured backend!");
+                }
+                if (!pooled.add(member.toLowerCase(Locale.ROOT))) {
+                    throw new IOException("Backend '" + member + "' is in more than one pool!");
+                }
+                members.add(member);
+            }
+            if (members.isEmpty()) {
+                throw new IOException("Pool '" + name + "' has no members!");
+            }
+
+            int maxInstances = Math.max(1, Math.min(members.size(),
+                Integer.parseInt(config.getProperty(prefix + "max-instances", String.valueOf(members.size())))));
+            int minInstances = Math.max(0, Math.min(maxInstances,
+                Integer.parseInt(config.getProperty(prefix + "min-instances", "0"))));
+            double scaleUp = Double.parseDouble(config.getProperty(prefix + "scale-up-players", "40"));
+            double scaleDown = Double.parseDouble(config.getProperty(prefix + "scale-down-players", "15"));
+            if (scaleDown >= scaleUp) {
+                throw new IOException("Pool '" + name + "' needs scale-down-players below scale-up-players!");
+            }
+
+            pools.add(new PoolConfig(
+                name,
+                List.copyOf(members),
+                minInstances,
+                maxInstances,
+                scaleUp,
+                scaleDown,
+                Integer.parseInt(config.getProperty(prefix + "scale-down-seconds", "120")),
+                Integer.parseInt(config.getProperty(prefix + "cooldown-seconds", "60"))
+            ));
+        }
+        return pools;
+    }
+}
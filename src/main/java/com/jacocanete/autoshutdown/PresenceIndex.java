@@ -0,0 +1,102 @@
+package com.jacocanete.autoshutdown;
+
+import com.velocitypowered.api.proxy.Player;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * How many of this proxy's players are on each server, kept up to date from connect, switch and
+ * disconnect events instead of asking Velocity, whose {@code getPlayersConnected()} copies the
+ * player collection on every call. Reading a count is a {@link LongAdder#sum()} on a counter the
+ * caller holds on to: no lookup, no allocation.
+ *
+ * Each player's current server is remembered too, so a repeated or out-of-order event moves them
+ * at most once and a disconnect takes them off the right counter. Counts are checked against
+ * Velocity on a slow schedule; a server is only corrected once the same mismatch has been seen on
+ * two passes in a row, so players caught mid-switch do not cause a false correction.
+ */
+public class PresenceIndex {
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private final Map<UUID, String> locations = new ConcurrentHashMap<>();
+    /** Server key to the mismatch seen on the last pass; only touched by reconciliation. */
+    private final Map<String, Long> drift = new ConcurrentHashMap<>();
+
+    /** The live counter for a server; hold on to it and read it with {@code sum()}. */
+    public LongAdder counter(String serverName) {
+        return counts.computeIfAbsent(key(serverName), name -> new LongAdder());
+    }
+
+    public int count(String serverName) {
+        LongAdder counter = counts.get(key(serverName));
+        return counter == null ? 0 : (int) counter.sum();
+    }
+
+    /** The player is now on {@code serverName}, wherever they were before. */
+    public void move(UUID playerId, String serverName) {
+        String next = key(serverName);
+        String previous = locations.put(playerId, next);
+        if (next.equals(previous)) {
+            return;
+        }
+        counter(next).increment();
+        if (previous != null) {
+            counter(previous).decrement();
+        }
+    }
+
+    /** The player left the proxy. */
+    public void remove(UUID playerId) {
+        String previous = locations.remove(playerId);
+        if (previous != null) {
+            counter(previous).decrement();
+        }
+    }
+
+    /**
+     * Compares a server's count with the players Velocity lists on it. Returns true if it was
+     * corrected, which happens when the count was already off by the same amount last time.
+     */
+    public boolean reconcile(String serverName, Collection<Player> connected) {
+        String server = key(serverName);
+        long mismatch = connected.size() - counter(server).sum();
+        if (mismatch == 0) {
+            drift.remove(server);
+            return false;
+        }
+        Long previous = drift.put(server, mismatch);
+        if (previous == null || previous != mismatch) {
+            return false;
+        }
+        drift.remove(server);
+        reset(server, connected);
+        return true;
+    }
+
+    /** Takes Velocity's word for who is on the server, as on load when no events are in flight. */
+    public void reset(String serverName, Collection<Player> connected) {
+        String server = key(serverName);
+        Set<UUID> actual = new HashSet<>();
+        for (Player player : connected) {
+            actual.add(player.getUniqueId());
+            move(player.getUniqueId(), server);
+        }
+        for (Map.Entry<UUID, String> entry : locations.entrySet()) {
+            if (entry.getValue().equals(server) && !actual.contains(entry.getKey())
+                && locations.remove(entry.getKey(), server)) {
+                counter(server).decrement();
+            }
+        }
+    }
+
+    private static String key(String serverName) {
+        return serverName.toLowerCase(Locale.ROOT);
+    }
+}
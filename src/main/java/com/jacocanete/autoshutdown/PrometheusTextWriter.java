@@ -0,0 +1,206 @@
+package com.jacocanete.autoshutdown;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes the Prometheus text exposition format straight into a reusable byte buffer. Numbers are
+ * written digit by digit and durations as fixed-point seconds, so a scrape allocates nothing once
+ * the buffer has grown to fit (non-ASCII label values excepted). Not thread-safe; one instance
+ * per exporter, used under its lock.
+ */
+final class PrometheusTextWriter {
+
+    /** Histogram bucket bounds, in milliseconds, and their {@code le} label values in seconds. */
+    private static final long[] BUCKET_BOUNDS_MS = {
+        1, 5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000, 120_000,
+        300_000, 600_000, 1_800_000, 3_600_000
+    };
+    private static final byte[][] BUCKET_LABELS = new byte[BUCKET_BOUNDS_MS.length][];
+
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            BUCKET_LABELS[i] = formatSeconds(BUCKET_BOUNDS_MS[i]).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private byte[] buffer = new byte[16 * 1024];
+    private int size;
+
+    void reset() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    void family(String name, String type, String help) {
+        text("# HELP ").text(name).text(" ").text(help).newline();
+        text("# TYPE ").text(name).text(" ").text(type).newline();
+    }
+
+    /** Starts a sample line: {@code name{label="value"}}. Pass null for no labels. */
+    PrometheusTextWriter sample(String name, String labelName, String labelValue) {
+        text(name);
+        if (labelName != null) {
+            text("{").text(labelName).text("=\"").escaped(labelValue).text("\"}");
+        }
+        return this;
+    }
+
+    PrometheusTextWriter sample(String name, String labelName, String labelValue, String label2Name, String label2Value) {
+        text(name).text("{").text(labelName).text("=\"").escaped(labelValue).text("\",")
+            .text(label2Name).text("=\"").escaped(label2Value).text("\"}");
+        return this;
+    }
+
+    void value(long value) {
+        text(" ").number(value).newline();
+    }
+
+    void secondsValue(long millis) {
+        text(" ").seconds(millis).newline();
+    }
+
+    /**
+     * Writes a histogram in seconds from a {@link LatencyHistogram} in milliseconds. Each source
+     * bucket is counted under the first bound that is at least its highest value, so counts near
+     * a bound may land one bucket higher than the exact value would.
+     */
+    void histogram(String name, String labelName, String labelValue, String label2Name, String label2Value,
+                   LatencyHistogram histogram) {
+        long cumulative = 0;
+        int source = 0;
+        for (int bound = 0; bound < BUCKET_BOUNDS_MS.length; bound++) {
+            while (source < LatencyHistogram.BUCKETS
+                && LatencyHistogram.highestValueIn(source) <= BUCKET_BOUNDS_MS[bound]) {
+                cumulative += histogram.getCountAt(source++);
+            }
+            bucketLine(name, labelName, labelValue, label2Name, label2Value, BUCKET_LABELS[bound], cumulative);
+        }
+
+        long count = histogram.getCount();
+        bucketLine(name, labelName, labelValue, label2Name, label2Value, null, count);
+        labels(text(name).text("_sum"), labelName, labelValue, label2Name, label2Value).text(" ")
+            .seconds(histogram.getSum()).newline();
+        labels(text(name).text("_count"), labelName, labelValue, label2Name, label2Value).text(" ")
+            .number(count).newline();
+    }
+
+    private void bucketLine(String name, String labelName, String labelValue, String label2Name, String label2Value,
+                            byte[] le, long count) {
+        text(name).text("_bucket{");
+        if (labelName != null) {
+            text(labelName).text("=\"").escaped(labelValue).text("\",");
+        }
+        if (label2Name != null) {
+            text(label2Name).text("=\"").escaped(label2Value).text("\",");
+        }
+        text("le=\"");
+        if (le != null) {
+            raw(le);
+        } else {
+            text("+Inf");
+        }
+        text("\"} ").number(count).newline();
+    }
+
+    private PrometheusTextWriter labels(PrometheusTextWriter writer, String labelName, String labelValue,
+                                        String label2Name, String label2Value) {
+        if (labelName == null) {
+            return writer;
+        }
+        text("{").text(labelName).text("=\"").escaped(labelValue).text("\"");
+        if (label2Name != null) {
+            text(",").text(label2Name).text("=\"").escaped(label2Value).text("\"");
+        }
+        return text("}");
+    }
+
+    private PrometheusTextWriter text(String text) {
+        int length = text.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                // Rare (a non-ASCII backend name): fall back to encoding the rest properly
+                raw(text.substring(i).getBytes(StandardCharsets.UTF_8));
+                return this;
+            }
+            buffer[size++] = (byte) c;
+        }
+        return this;
+    }
+
+    private PrometheusTextWriter escaped(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"' || c == '\n') {
+                return text(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"));
+            }
+        }
+        return text(value);
+    }
+
+    private void raw(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    private PrometheusTextWriter number(long value) {
+        ensure(20);
+        if (value == 0) {
+            buffer[size++] = '0';
+            return this;
+        }
+        if (value < 0) {
+            buffer[size++] = '-';
+            value = -value;
+        }
+        int start = size;
+        while (value > 0) {
+            buffer[size++] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        for (int left = start, right = size - 1; left < right; left++, right--) {
+            byte swap = buffer[left];
+            buffer[left] = buffer[right];
+            buffer[right] = swap;
+        }
+        return this;
+    }
+
+    private PrometheusTextWriter seconds(long millis) {
+        number(millis / 1000);
+        long fraction = Math.abs(millis % 1000);
+        ensure(4);
+        buffer[size++] = '.';
+        buffer[size++] = (byte) ('0' + fraction / 100);
+        buffer[size++] = (byte) ('0' + fraction / 10 % 10);
+        buffer[size++] = (byte) ('0' + fraction % 10);
+        return this;
+    }
+
+    private void newline() {
+        ensure(1);
+        buffer[size++] = '\n';
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+
+    private static String formatSeconds(long millis) {
+        return millis % 1000 == 0 ? String.valueOf(millis / 1000) : String.valueOf(millis / 1000.0);
+    }
+}
@@ -0,0 +1,88 @@
+package com.jacocanete.autoshutdown;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Lets several proxies in front of the same backends act as one. Player counts are shared, so a
+ * backend only counts as empty when it is empty on every proxy, and power signals are guarded by
+ * a per-backend lease, so only one proxy at a time starts or stops a given backend.
+ *
+ * A lease is taken when a proxy is about to send a start or stop signal and released once that
+ * action has settled (the backend answers pings, or has gone down). It also lapses on its own
+ * after {@link Settings#leaseMillis()}, or as soon as its holder stops being heard from, so a
+ * proxy that dies mid-action does not lock the others out.
+ */
+public interface ProxyCoordinator {
+
+    enum Mode {
+        /** A single proxy: no counts from elsewhere, every lease is granted. */
+        NONE,
+        /** UDP heartbeats between the proxies listed as peers. */
+        GOSSIP,
+        /** A lock file shared by proxies on the same host. */
+        FILE
+    }
+
+    record Settings(
+        Mode mode,
+        String nodeId,
+        long heartbeatMillis,
+        long nodeTimeoutMillis,
+        long leaseMillis,
+        InetSocketAddress bindAddress,
+        List<InetSocketAddress> peers,
+        String secret,
+        long settleMillis,
+        Path file
+    ) {
+    }
+
+    /**
+     * Creates the coordinator for {@code settings.mode()}. {@code localCounts} is asked for this
+     * proxy's player count per backend whenever they are published.
+     */
+    static ProxyCoordinator create(Settings settings, Supplier<Map<String, Integer>> localCounts,
+                                   BlockingIoExecutor ioExecutor, TimerWheel timers, Logger logger) throws IOException {
+        return switch (settings.mode()) {
+            case NONE -> new StandaloneCoordinator();
+            case GOSSIP -> new GossipCoordinator(settings, localCounts, timers, logger);
+            case FILE -> new FileLockCoordinator(settings, localCounts, ioExecutor, logger);
+        };
+    }
+
+    Mode getMode();
+
+    String getNodeId();
+
+    /** Begins publishing this proxy's counts and listening for the others. */
+    void start() throws IOException;
+
+    /** Releases every lease held here and tells the other proxies this one is gone. */
+    void stop();
+
+    /** Players on {@code backendName} through other proxies, as last heard from them. */
+    int getRemotePlayerCount(String backendName);
+
+    /** Other proxies heard from within the node timeout. */
+    int getLivePeerCount();
+
+    /**
+     * Completes with true if this proxy now holds the power lease for {@code backendName}
+     * (already holding it counts), or false if another proxy does.
+     */
+    CompletableFuture<Boolean> tryAcquire(String backendName);
+
+    /** Gives up the lease on {@code backendName}, if this proxy holds it. */
+    void release(String backendName);
+
+    /** Node id of the current lease holder for {@code backendName}, or null if nobody holds it. */
+    String getLeaseHolder(String backendName);
+}
@@ -3,86 +3,368 @@ package com.jacocanete.autoshutdown;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import okhttp3.*;
+import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 public class PterodactylAPI {
     private final OkHttpClient client;
     private final String apiUrl;
     private final String apiKey;
+    private final BlockingIoExecutor ioExecutor;
+    /**
+     * The plugin's ungated executor: panel calls wait for rate-limiter tokens on their own virtual
+     * threads there, so only the HTTP exchange itself holds one of the blocking I/O permits.
+     */
+    private final ExecutorService panelExecutor;
+    private final TimerWheel timers;
+    private final Logger logger;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final PanelRateLimiter rateLimiter;
 
-    public PterodactylAPI(String apiUrl, String apiKey) {
-        this.client = new OkHttpClient();
+    private final LatencyHistogram requestLatency = new LatencyHistogram();
+    private final LongAdder requestAttempts = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder rejectedRequests = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder startSignals = new LongAdder();
+    private final LongAdder stopSignals = new LongAdder();
+
+    /** Requests currently in flight, keyed by server ID and what is being asked. */
+    private final ConcurrentHashMap<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The executors, timers, circuit breaker and rate limiter belong to the plugin and outlive this
+     * client, so calls still under way on a client replaced by a reload share the same quota.
+     */
+    public PterodactylAPI(String apiUrl, String apiKey, BlockingIoExecutor ioExecutor, ExecutorService panelExecutor,
+                          TimerWheel timers, Logger logger, RetryPolicy retryPolicy, CircuitBreaker circuitBreaker,
+                          PanelRateLimiter rateLimiter) {
+        this.client = new OkHttpClient.Builder()
+            // One panel host: a few warm connections are plenty, and HTTP/2 multiplexes onto one
+            .connectionPool(new ConnectionPool(4, 5, TimeUnit.MINUTES))
+            .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(5, TimeUnit.SECONDS)
+            .writeTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(10, TimeUnit.SECONDS)
+            .callTimeout(15, TimeUnit.SECONDS)
+            .build();
         this.apiUrl = apiUrl.endsWith("/") ? apiUrl : apiUrl + "/";
         this.apiKey = apiKey;
+        this.ioExecutor = ioExecutor;
+        this.panelExecutor = panelExecutor;
+        this.timers = timers;
+        this.logger = logger;
+        this.retryPolicy = retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
     }
 
     public CompletableFuture<Boolean> startServer(String serverId) {
-        return sendPowerSignal(serverId, "start");
+        return sendPowerSignal(serverId, "start", PanelRateLimiter.Priority.START);
     }
 
     public CompletableFuture<Boolean> stopServer(String serverId) {
-        return sendPowerSignal(serverId, "stop");
+        return sendPowerSignal(serverId, "stop", PanelRateLimiter.Priority.STOP);
     }
 
-    private CompletableFuture<Boolean> sendPowerSignal(String serverId, String signal) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                JsonObject powerAction = new JsonObject();
-                powerAction.addProperty("signal", signal);
-
-                RequestBody body = RequestBody.create(
-                    MediaType.parse("application/json"),
-                    powerAction.toString()
-                );
-
-                Request request = new Request.Builder()
-                    .url(apiUrl + "api/client/servers/" + serverId + "/power")
-                    .post(body)
-                    .addHeader("Authorization", "Bearer " + apiKey)
-                    .addHeader("Content-Type", "application/json")
-                    .addHeader("Accept", "application/json")
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    return response.isSuccessful();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-                return false;
-            }
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public PanelRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /** Duration of every HTTP attempt that reached the panel or failed with an I/O error. */
+    public LatencyHistogram getRequestLatency() {
+        return requestLatency;
+    }
+
+    public long getRequestAttempts() {
+        return requestAttempts.sum();
+    }
+
+    /** Attempts that failed with a retryable status or an I/O error. */
+    public long getFailedAttempts() {
+        return failedAttempts.sum();
+    }
+
+    /** Requests the panel refused with a non-retryable status, or answered with something unreadable. */
+    public long getRejectedRequests() {
+        return rejectedRequests.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /** Power signals dispatched (after deduplication), whatever their outcome. */
+    public long getStartSignals() {
+        return startSignals.sum();
+    }
+
+    public long getStopSignals() {
+        return stopSignals.sum();
+    }
+
+    private CompletableFuture<Boolean> sendPowerSignal(String serverId, String signal, PanelRateLimiter.Priority priority) {
+        return deduplicate(serverId + ":" + signal, () -> {
+            (priority == PanelRateLimiter.Priority.START ? startSignals : stopSignals).increment();
+            JsonObject powerAction = new JsonObject();
+            powerAction.addProperty("signal", signal);
+
+            RequestBody body = RequestBody.create(
+                MediaType.parse("application/json"),
+                powerAction.toString()
+            );
+
+            Request request = new Request.Builder()
+                .url(apiUrl + "api/client/servers/" + serverId + "/power")
+                .post(body)
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .addHeader("Content-Type", "application/json")
+                .addHeader("Accept", "application/json")
+                .build();
+
+            return execute(request, "power " + signal + " for " + serverId, priority, response -> true, false);
         });
     }
 
+    /**
+     * Returns the panel's current_state for the server, or null if the panel could not be asked
+     * (errors, open circuit, or the poll was dropped because the rate-limit queue is backed up).
+     */
     public CompletableFuture<String> getServerStatus(String serverId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                Request request = new Request.Builder()
-                    .url(apiUrl + "api/client/servers/" + serverId + "/resources")
-                    .get()
-                    .addHeader("Authorization", "Bearer " + apiKey)
-                    .addHeader("Accept", "application/json")
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (response.isSuccessful() && response.body() != null) {
-                        String responseBody = response.body().string();
-                        JsonObject json = JsonParser.parseString(responseBody).getAsJsonObject();
-                        JsonObject attributes = json.getAsJsonObject("attributes");
-                        return attributes.get("current_state").getAsString();
-                    }
+        return deduplicate(serverId + ":resources", () -> {
+            Request request = new Request.Builder()
+                .url(apiUrl + "api/client/servers/" + serverId + "/resources")
+                .get()
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .addHeader("Accept", "application/json")
+                .build();
+
+            return execute(request, "resources for " + serverId, PanelRateLimiter.Priority.STATUS, response -> {
+                if (response.body() == null) {
                     return "offline";
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
-                return "offline";
+                String responseBody = response.body().string();
+                JsonObject json = JsonParser.parseString(responseBody).getAsJsonObject();
+                JsonObject attributes = json.getAsJsonObject("attributes");
+                return attributes.get("current_state").getAsString();
+            }, null);
+        });
+    }
+
+    /**
+     * Identical requests share one call: callers arriving while it is in flight (queued behind the
+     * rate limiter or waiting to retry included) get the same future.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> deduplicate(String key, Supplier<CompletableFuture<T>> work) {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        CompletableFuture<T> call;
+        try {
+            call = work.get();
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((result, error) -> {
+            inFlight.remove(key, created);
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(result);
             }
         });
+
+        return created;
+    }
+
+    private interface ResponseHandler<T> {
+        T handle(Response response) throws IOException;
+    }
+
+    /** One request and where its result goes, carried from attempt to attempt. */
+    private record Call<T>(Request request, String description, PanelRateLimiter.Priority priority,
+                           ResponseHandler<T> handler, T fallback, CompletableFuture<T> result) {
+    }
+
+    /** What one HTTP exchange came to: a result, or another try after a delay. */
+    private record Attempt<T>(T result, long retryDelayMs) {
+        static <T> Attempt<T> done(T result) {
+            return new Attempt<>(result, -1);
+        }
+
+        static <T> Attempt<T> retryAfter(long delayMs) {
+            return new Attempt<>(null, delayMs);
+        }
+
+        boolean done() {
+            return retryDelayMs < 0;
+        }
+    }
+
+    /**
+     * Runs a request, retrying 429, 5xx and I/O failures with jittered backoff. The wait between
+     * attempts is a timer on the plugin's {@link TimerWheel}, so a retrying call holds no thread.
+     * Other 4xx answers, and successful answers the handler can not make sense of, are returned
+     * as failures straight away since retrying cannot fix them. While the circuit is open the call
+     * is skipped entirely. Every attempt, retries included, spends a rate-limiter token at the
+     * given priority.
+     */
+    private <T> CompletableFuture<T> execute(Request request, String description, PanelRateLimiter.Priority priority,
+                                             ResponseHandler<T> handler, T fallback) {
+        Call<T> call = new Call<>(request, description, priority, handler, fallback, new CompletableFuture<>());
+        attempt(call, 0);
+        return call.result();
+    }
+
+    private <T> void attempt(Call<T> call, int attempt) {
+        if (!circuitBreaker.allowRequest()) {
+            logger.warn("Pterodactyl API circuit is open, skipping {}", call.description());
+            call.result().complete(call.fallback());
+            return;
+        }
+
+        try {
+            panelExecutor.execute(() -> {
+                try {
+                    if (!rateLimiter.acquire(call.priority())) {
+                        logger.debug("Pterodactyl API queue is backed up, dropping {}", call.description());
+                        call.result().complete(call.fallback());
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    call.result().complete(call.fallback());
+                    return;
+                }
+
+                if (attempt > 0) {
+                    retries.increment();
+                }
+                ioExecutor.supply(() -> exchange(call, attempt)).whenComplete((outcome, error) -> {
+                    if (error != null) {
+                        // Only when the executor is shut down: exchange() turns every failure into an outcome
+                        call.result().complete(call.fallback());
+                    } else if (outcome.done()) {
+                        call.result().complete(outcome.result());
+                    } else {
+                        retry(call, attempt, outcome.retryDelayMs());
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            call.result().complete(call.fallback());
+        }
+    }
+
+    private <T> void retry(Call<T> call, int attempt, long delayMs) {
+        if (attempt + 1 >= retryPolicy.maxAttempts()) {
+            logger.error("Pterodactyl API request for {} failed after {} attempts",
+                call.description(), retryPolicy.maxAttempts());
+            call.result().complete(call.fallback());
+            return;
+        }
+
+        TimerWheel.Timeout timeout = timers.schedule(() -> attempt(call, attempt + 1), delayMs, TimeUnit.MILLISECONDS);
+        if (timeout.isCancelled()) {
+            // The wheel is stopped, so the plugin is shutting down
+            call.result().complete(call.fallback());
+        }
+    }
+
+    /** One HTTP exchange, holding a blocking I/O permit for no longer than the call takes. */
+    private <T> Attempt<T> exchange(Call<T> call, int attempt) {
+        String description = call.description();
+        requestAttempts.increment();
+        long startNanos = System.nanoTime();
+        boolean timed = false;
+        try (Response response = client.newCall(call.request()).execute()) {
+            requestLatency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            timed = true;
+            if (response.isSuccessful()) {
+                T result;
+                try {
+                    result = call.handler().handle(response);
+                } catch (RuntimeException e) {
+                    // The panel is up, its answer just makes no sense to us; asking again will not change it
+                    circuitBreaker.recordSuccess();
+                    rejectedRequests.increment();
+                    logger.error("Pterodactyl API sent an unreadable answer to {}: {}", description, e.toString());
+                    return Attempt.done(call.fallback());
+                }
+                circuitBreaker.recordSuccess();
+                return Attempt.done(result);
+            }
+
+            if (!RetryPolicy.isRetryableStatus(response.code())) {
+                // The panel answered, it just refused this request
+                circuitBreaker.recordSuccess();
+                rejectedRequests.increment();
+                logger.error("Pterodactyl API rejected {} with HTTP {}", description, response.code());
+                return Attempt.done(call.fallback());
+            }
+
+            circuitBreaker.recordFailure();
+            failedAttempts.increment();
+            logger.warn("Pterodactyl API returned HTTP {} for {} (attempt {}/{})",
+                response.code(), description, attempt + 1, retryPolicy.maxAttempts());
+            return Attempt.retryAfter(retryAfterMillis(response.header("Retry-After"), attempt));
+        } catch (IOException | RuntimeException e) {
+            if (!timed) {
+                requestLatency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            }
+            circuitBreaker.recordFailure();
+            failedAttempts.increment();
+            logger.warn("Pterodactyl API request for {} failed (attempt {}/{}): {}",
+                description, attempt + 1, retryPolicy.maxAttempts(), e.toString());
+            return Attempt.retryAfter(retryPolicy.backoffMillis(attempt));
+        }
+    }
+
+    /** Honors a Retry-After header (seconds or HTTP date), capped at the policy's maximum delay. */
+    private long retryAfterMillis(String retryAfter, int attempt) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return retryPolicy.backoffMillis(attempt);
+        }
+
+        long delayMs;
+        try {
+            delayMs = TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime retryAt = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                delayMs = Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt).toMillis();
+            } catch (DateTimeParseException ignored) {
+                return retryPolicy.backoffMillis(attempt);
+            }
+        }
+        return Math.max(0, Math.min(delayMs, retryPolicy.maxDelayMs()));
     }
 
+    /** Releases the HTTP client's threads and idle connections; calls already under way still finish. */
     public void shutdown() {
         client.dispatcher().executorService().shutdown();
         client.connectionPool().evictAll();
     }
-}
\ No newline at end of file
+}
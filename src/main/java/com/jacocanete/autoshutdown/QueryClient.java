@@ -0,0 +1,221 @@
+package com.jacocanete.autoshutdown;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Query (GS4) client for every backend, over a single unconnected {@link DatagramChannel}.
+ *
+ * Requests to any number of servers are in flight at once: each exchange gets its own session id,
+ * one receiver thread matches answers to it, and a timer on the plugin's {@link TimerWheel}
+ * fails it if nothing comes back in time. A probe is one datagram each way, against a TCP connect,
+ * handshake and JSON status response for a status ping.
+ *
+ * Challenge tokens are cached per server for a little less than the 30 seconds a vanilla server
+ * keeps them, so most stats skip the handshake. A stat sent with a cached token that goes
+ * unanswered (the server restarted and forgot it) is retried once after a fresh handshake.
+ */
+public class QueryClient {
+
+    private static final long TOKEN_LIFETIME_NANOS = TimeUnit.SECONDS.toNanos(25);
+    private static final int MAX_PACKET_SIZE = 65_507;
+
+    private final DatagramChannel channel;
+    private final TimerWheel timers;
+    private final Logger logger;
+    private final Thread receiver;
+
+    private final Map<Integer, Exchange> pending = new ConcurrentHashMap<>();
+    private final Map<InetSocketAddress, Token> tokens = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSession = new AtomicInteger();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    private record Token(int value, long expiresAtNanos) {
+    }
+
+    /** One datagram out, waiting for the answer with the same session id. */
+    private record Exchange(InetSocketAddress address, byte type, CompletableFuture<ByteBuffer> future) {
+    }
+
+    public QueryClient(TimerWheel timers, Logger logger) throws IOException {
+        this.timers = timers;
+        this.logger = logger;
+        this.channel = DatagramChannel.open();
+        channel.bind(null);
+        this.receiver = Thread.ofPlatform().daemon().name("AutoShutdown-Query").start(this::receiveLoop);
+    }
+
+    /** Online and max players, MOTD and map; the cheapest probe. */
+    public CompletableFuture<QueryResult> basicStat(InetSocketAddress address, int timeoutMs) {
+        return stat(address, false, timeoutMs);
+    }
+
+    /** Everything a basic stat has, plus the version, plugins and player names. */
+    public CompletableFuture<QueryResult> fullStat(InetSocketAddress address, int timeoutMs) {
+        return stat(address, true, timeoutMs);
+    }
+
+    /** Datagrams sent, handshakes included. */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /** Exchanges that got no answer in time. */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    public int getCachedTokenCount() {
+        return tokens.size();
+    }
+
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close the query channel: {}", e.toString());
+        }
+        receiver.interrupt();
+        for (Exchange exchange : pending.values()) {
+            exchange.future().completeExceptionally(new ClosedChannelException());
+        }
+        pending.clear();
+    }
+
+    private CompletableFuture<QueryResult> stat(InetSocketAddress address, boolean full, int timeoutMs) {
+        Token cached = tokens.get(address);
+        if (cached == null || System.nanoTime() - cached.expiresAtNanos() >= 0) {
+            return handshake(address, timeoutMs).thenCompose(token -> sendStat(address, token, full, timeoutMs));
+        }
+        return sendStat(address, cached.value(), full, timeoutMs)
+            .exceptionallyCompose(error -> {
+                if (!(unwrap(error) instanceof TimeoutException)) {
+                    return CompletableFuture.failedFuture(error);
+                }
+                tokens.remove(address, cached);
+                return handshake(address, timeoutMs).thenCompose(token -> sendStat(address, token, full, timeoutMs));
+            });
+    }
+
+    private CompletableFuture<Integer> handshake(InetSocketAddress address, int timeoutMs) {
+        long requestedAt = System.nanoTime();
+        return exchange(address, QueryProtocolCodec.TYPE_HANDSHAKE, QueryProtocolCodec.HANDSHAKE_REQUEST_SIZE, timeoutMs,
+                QueryProtocolCodec::writeHandshake)
+            .thenApply(decoding(QueryProtocolCodec::readToken))
+            .thenApply(token -> {
+                tokens.put(address, new Token(token, requestedAt + TOKEN_LIFETIME_NANOS));
+                return token;
+            });
+    }
+
+    private CompletableFuture<QueryResult> sendStat(InetSocketAddress address, int token, boolean full, int timeoutMs) {
+        int size = full ? QueryProtocolCodec.FULL_STAT_REQUEST_SIZE : QueryProtocolCodec.BASIC_STAT_REQUEST_SIZE;
+        PayloadReader<QueryResult> reader = full ? QueryProtocolCodec::readFullStat : QueryProtocolCodec::readBasicStat;
+        return exchange(address, QueryProtocolCodec.TYPE_STAT, size, timeoutMs,
+                (buffer, session) -> QueryProtocolCodec.writeStatRequest(buffer, session, token, full))
+            .thenApply(decoding(reader));
+    }
+
+    private interface RequestWriter {
+        void write(ByteBuffer buffer, int sessionId);
+    }
+
+    private CompletableFuture<ByteBuffer> exchange(InetSocketAddress address, byte type, int size, int timeoutMs,
+                                                   RequestWriter writer) {
+        Exchange exchange = new Exchange(address, type, new CompletableFuture<>());
+        int session;
+        do {
+            session = nextSession.incrementAndGet() & QueryProtocolCodec.SESSION_MASK;
+        } while (pending.putIfAbsent(session, exchange) != null);
+
+        int sessionId = session;
+        TimerWheel.Timeout timeout = timers.schedule(() -> {
+            if (pending.remove(sessionId, exchange)) {
+                timeouts.increment();
+                exchange.future().completeExceptionally(
+                    new TimeoutException("No query answer from " + address + " within " + timeoutMs + " ms"));
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        exchange.future().whenComplete((payload, error) -> timeout.cancel());
+
+        ByteBuffer request = ByteBuffer.allocate(size);
+        writer.write(request, sessionId);
+        request.flip();
+        try {
+            requests.increment();
+            channel.send(request, address);
+        } catch (IOException e) {
+            pending.remove(sessionId, exchange);
+            exchange.future().completeExceptionally(e);
+        }
+        return exchange.future();
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_PACKET_SIZE);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                SocketAddress from = channel.receive(buffer);
+                buffer.flip();
+                if (buffer.remaining() < 5) {
+                    continue;
+                }
+                byte type = buffer.get();
+                int session = buffer.getInt();
+                Exchange exchange = pending.get(session);
+                // A late or stray answer must not complete somebody else's exchange
+                if (exchange == null || exchange.type() != type || !exchange.address().equals(from)
+                    || !pending.remove(session, exchange)) {
+                    continue;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(buffer.remaining());
+                payload.put(buffer).flip();
+                exchange.future().complete(payload);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                logger.debug("Query receive failed: {}", e.toString());
+            }
+        }
+    }
+
+    private interface PayloadReader<T> {
+        T read(ByteBuffer payload) throws IOException;
+    }
+
+    /** A malformed answer fails the probe like a missing one. */
+    private static <T> Function<ByteBuffer, T> decoding(PayloadReader<T> reader) {
+        return payload -> {
+            try {
+                return reader.read(payload);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        };
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
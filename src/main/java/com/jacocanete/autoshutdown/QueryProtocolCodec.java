@@ -0,0 +1,146 @@
+package com.jacocanete.autoshutdown;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encoder and decoder for the Query (GS4) protocol a Minecraft server speaks over UDP when
+ * {@code enable-query=true}.
+ *
+ * Every request starts with the magic {@code FE FD}, a type and a 4-byte session id; every
+ * response with the type and the session id echoed back. A handshake returns a challenge token
+ * as a decimal string, which a stat request must carry. A basic stat answers with fixed fields,
+ * a full stat (the same request padded to 15 bytes) with key/value pairs and the player names.
+ * Strings are null-terminated.
+ */
+public final class QueryProtocolCodec {
+
+    public static final byte TYPE_HANDSHAKE = 0x09;
+    public static final byte TYPE_STAT = 0x00;
+
+    /** Servers ignore session ids with the high bits of any byte set. */
+    public static final int SESSION_MASK = 0x0F0F0F0F;
+
+    public static final int HANDSHAKE_REQUEST_SIZE = 7;
+    public static final int BASIC_STAT_REQUEST_SIZE = 11;
+    public static final int FULL_STAT_REQUEST_SIZE = 15;
+
+    /** "splitnum\0" 0x80 0x00 before the key/value section of a full stat. */
+    private static final int FULL_STAT_PADDING = 11;
+    /** 0x01 "player_\0\0" before the player names of a full stat. */
+    private static final int PLAYERS_PADDING = 10;
+
+    private QueryProtocolCodec() {
+    }
+
+    public static void writeHandshake(ByteBuffer buffer, int sessionId) {
+        writeHeader(buffer, TYPE_HANDSHAKE, sessionId);
+    }
+
+    public static void writeStatRequest(ByteBuffer buffer, int sessionId, int token, boolean full) {
+        writeHeader(buffer, TYPE_STAT, sessionId);
+        buffer.putInt(token);
+        if (full) {
+            buffer.putInt(0);
+        }
+    }
+
+    private static void writeHeader(ByteBuffer buffer, byte type, int sessionId) {
+        buffer.put((byte) 0xFE).put((byte) 0xFD).put(type).putInt(sessionId);
+    }
+
+    /** The challenge token from a handshake response, positioned after the session id. */
+    public static int readToken(ByteBuffer payload) throws IOException {
+        String token = readString(payload);
+        try {
+            // Some servers print it as an unsigned number; either way it goes back as 4 bytes
+            return (int) Long.parseLong(token.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed challenge token: " + token);
+        }
+    }
+
+    public static QueryResult readBasicStat(ByteBuffer payload) throws IOException {
+        try {
+            String motd = readString(payload);
+            String gameType = readString(payload);
+            String map = readString(payload);
+            int online = parseCount(readString(payload));
+            int max = parseCount(readString(payload));
+            int hostPort = Short.toUnsignedInt(payload.order(ByteOrder.LITTLE_ENDIAN).getShort());
+            payload.order(ByteOrder.BIG_ENDIAN);
+            String hostIp = readString(payload);
+            return new QueryResult(motd, gameType, map, online, max, hostPort, hostIp, Map.of(), List.of());
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated basic stat response");
+        }
+    }
+
+    public static QueryResult readFullStat(ByteBuffer payload) throws IOException {
+        try {
+            payload.position(payload.position() + FULL_STAT_PADDING);
+            Map<String, String> rules = new LinkedHashMap<>();
+            for (String key = readString(payload); !key.isEmpty(); key = readString(payload)) {
+                rules.put(key, readString(payload));
+            }
+
+            List<String> players = new ArrayList<>();
+            if (payload.remaining() >= PLAYERS_PADDING) {
+                payload.position(payload.position() + PLAYERS_PADDING);
+                while (payload.hasRemaining()) {
+                    String player = readString(payload);
+                    if (player.isEmpty()) {
+                        break;
+                    }
+                    players.add(player);
+                }
+            }
+
+            return new QueryResult(
+                rules.getOrDefault("hostname", ""),
+                rules.getOrDefault("gametype", ""),
+                rules.getOrDefault("map", ""),
+                parseCount(rules.getOrDefault("numplayers", "")),
+                parseCount(rules.getOrDefault("maxplayers", "")),
+                parseCount(rules.getOrDefault("hostport", "")),
+                rules.getOrDefault("hostip", ""),
+                Collections.unmodifiableMap(rules),
+                List.copyOf(players));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated full stat response");
+        }
+    }
+
+    /** Reads up to the next null byte; a string cut off by the end of the packet is returned as is. */
+    public static String readString(ByteBuffer payload) {
+        int start = payload.position();
+        int end = start;
+        while (end < payload.limit() && payload.get(end) != 0) {
+            end++;
+        }
+        String value = new String(payload.array(), payload.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        payload.position(Math.min(end + 1, payload.limit()));
+        return value;
+    }
+
+    public static void writeString(ByteBuffer buffer, String value) {
+        buffer.put(value.getBytes(StandardCharsets.UTF_8)).put((byte) 0);
+    }
+
+    /** -1 for a count the server left out or garbled, which callers report as malformed. */
+    private static int parseCount(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
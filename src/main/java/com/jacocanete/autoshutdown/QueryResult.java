@@ -0,0 +1,32 @@
+package com.jacocanete.autoshutdown;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A server's answer to a Query (GS4) stat request.
+ *
+ * @param rules   every key/value pair of a full stat (version, plugins, ...); empty for a basic stat
+ * @param players the names of the players online for a full stat; empty for a basic stat
+ */
+public record QueryResult(
+    String motd,
+    String gameType,
+    String map,
+    int online,
+    int max,
+    int hostPort,
+    String hostIp,
+    Map<String, String> rules,
+    List<String> players
+) {
+
+    public PlayerCountResult playerCount() {
+        return online < 0 ? PlayerCountResult.malformed() : PlayerCountResult.of(online, Math.max(max, 0));
+    }
+
+    /** The server version from a full stat, or null after a basic one. */
+    public String version() {
+        return rules.get("version");
+    }
+}
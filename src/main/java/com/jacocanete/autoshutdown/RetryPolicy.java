@@ -0,0 +1,24 @@
+package com.jacocanete.autoshutdown;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter: attempt {@code n} waits a random time between 0 and
+ * {@code min(maxDelayMs, baseDelayMs * 2^n)}, so proxies that fail together do not retry in lockstep.
+ *
+ * @param maxAttempts total attempts including the first one
+ */
+public record RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs) {
+
+    public long backoffMillis(int attempt) {
+        long ceiling = baseDelayMs << Math.min(attempt, 20);
+        if (ceiling <= 0 || ceiling > maxDelayMs) {
+            ceiling = maxDelayMs;
+        }
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public static boolean isRetryableStatus(int code) {
+        return code == 429 || code >= 500;
+    }
+}
@@ -0,0 +1,51 @@
+package com.jacocanete.autoshutdown;
+
+import java.util.concurrent.CompletableFuture;
+
+/** The default for a proxy that is alone in front of its backends. */
+public class StandaloneCoordinator implements ProxyCoordinator {
+
+    private static final CompletableFuture<Boolean> GRANTED = CompletableFuture.completedFuture(true);
+
+    @Override
+    public Mode getMode() {
+        return Mode.NONE;
+    }
+
+    @Override
+    public String getNodeId() {
+        return "standalone";
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public int getRemotePlayerCount(String backendName) {
+        return 0;
+    }
+
+    @Override
+    public int getLivePeerCount() {
+        return 0;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tryAcquire(String backendName) {
+        return GRANTED;
+    }
+
+    @Override
+    public void release(String backendName) {
+    }
+
+    @Override
+    public String getLeaseHolder(String backendName) {
+        return null;
+    }
+}
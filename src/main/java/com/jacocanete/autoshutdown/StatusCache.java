@@ -0,0 +1,165 @@
+package com.jacocanete.autoshutdown;
+
+import org.slf4j.Logger;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived cache of status pings, keyed by backend address.
+ *
+ * Concurrent callers for the same backend share a single in-flight probe, and the finished
+ * result (online or offline) is then served until its TTL runs out. A join burst therefore
+ * costs one ping instead of one per player.
+ *
+ * With a {@link QueryClient}, a backend that has just answered a status ping is probed with Query
+ * basic stats for the next few minutes, one datagram each way, then pinged again so its
+ * server-list snapshot stays fresh. A Query that goes unanswered falls back to a status ping
+ * straight away. If the ping answers where the Query did not, the server has Query turned off
+ * (or on another port) and is only pinged for a while.
+ */
+public class StatusCache {
+
+    private static final long QUERY_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final long QUERY_BACKOFF_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long onlineTtlNanos;
+    private final long offlineTtlNanos;
+    private final int pingTimeoutMs;
+
+    private final QueryClient queryClient;
+    private final int queryTimeoutMs;
+    private final ConcurrentHashMap<String, QueryState> queryStates = new ConcurrentHashMap<>();
+    private final Logger logger;
+
+    public StatusCache(long onlineTtlMs, long offlineTtlMs, int pingTimeoutMs) {
+        this(onlineTtlMs, offlineTtlMs, pingTimeoutMs, null, 0, null);
+    }
+
+    /** In query mode; {@code queryClient} may be null to only ever ping. */
+    public StatusCache(long onlineTtlMs, long offlineTtlMs, int pingTimeoutMs, QueryClient queryClient,
+                       int queryTimeoutMs, Logger logger) {
+        this.onlineTtlNanos = TimeUnit.MILLISECONDS.toNanos(onlineTtlMs);
+        this.offlineTtlNanos = TimeUnit.MILLISECONDS.toNanos(offlineTtlMs);
+        this.pingTimeoutMs = pingTimeoutMs;
+        this.queryClient = queryClient;
+        this.queryTimeoutMs = queryTimeoutMs;
+        this.logger = logger;
+    }
+
+    public CompletableFuture<PingResult> get(String host, int port) {
+        return get(host, port, 0);
+    }
+
+    /** As {@link #get(String, int)}, asking over Query on {@code queryPort} when in query mode. */
+    public CompletableFuture<PingResult> get(String host, int port, int queryPort) {
+        String key = key(host, port);
+        long now = System.nanoTime();
+
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isExpired(now)) {
+            return entry.future;
+        }
+
+        return entries.compute(key, (k, existing) -> {
+            if (existing != null && !existing.isExpired(System.nanoTime())) {
+                return existing; // Someone else refreshed it first
+            }
+            return new Entry(probe(host, port, queryPort));
+        }).future;
+    }
+
+    private CompletableFuture<PingResult> probe(String host, int port, int queryPort) {
+        if (queryClient == null || queryPort <= 0) {
+            return ServerPinger.ping(host, port, pingTimeoutMs);
+        }
+        QueryState state = queryStates.computeIfAbsent(key(host, port),
+            k -> new QueryState(new InetSocketAddress(host, queryPort)));
+        if (System.nanoTime() - state.queryUntilNanos >= 0) {
+            return statusPing(state, host, port, false);
+        }
+
+        long startNanos = System.nanoTime();
+        return queryClient.basicStat(state.address, queryTimeoutMs)
+            .thenApply(query -> PingResult.fromQuery(query, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)))
+            .exceptionallyCompose(error -> {
+                state.queryUntilNanos = System.nanoTime();
+                return statusPing(state, host, port, true);
+            });
+    }
+
+    private CompletableFuture<PingResult> statusPing(QueryState state, String host, int port, boolean queryFailed) {
+        return ServerPinger.ping(host, port, pingTimeoutMs).thenApply(result -> {
+            if (!result.hasStatus()) {
+                return result; // Down or booting; keep pinging until it answers
+            }
+            long now = System.nanoTime();
+            if (queryFailed) {
+                state.pingOnlyUntilNanos = now + QUERY_BACKOFF_NANOS;
+                if (logger != null) {
+                    logger.warn("{} answers status pings but not Query on port {}; pinging it for the next {} minutes",
+                        key(host, port), state.address.getPort(), TimeUnit.NANOSECONDS.toMinutes(QUERY_BACKOFF_NANOS));
+                }
+            } else if (now - state.pingOnlyUntilNanos >= 0) {
+                state.queryUntilNanos = now + QUERY_WINDOW_NANOS;
+            }
+            return result;
+        });
+    }
+
+    public CompletableFuture<Boolean> isServerOnline(String host, int port) {
+        return get(host, port).thenApply(PingResult::hasStatus);
+    }
+
+    /**
+     * Drops the cached state for a backend, e.g. right after a power signal was sent and the
+     * previous answer is known to be stale. Probes already in flight still complete for their callers.
+     */
+    public void invalidate(String host, int port) {
+        entries.remove(key(host, port));
+        // The server is restarting; ping it until it answers again
+        queryStates.remove(key(host, port));
+    }
+
+    public void clear() {
+        entries.clear();
+        queryStates.clear();
+    }
+
+    private static String key(String host, int port) {
+        return host + ":" + port;
+    }
+
+    /** When a backend is asked over Query; both deadlines start out passed. */
+    private static final class QueryState {
+        private final InetSocketAddress address;
+        private volatile long queryUntilNanos = System.nanoTime();
+        private volatile long pingOnlyUntilNanos = System.nanoTime();
+
+        private QueryState(InetSocketAddress address) {
+            this.address = address;
+        }
+    }
+
+    private final class Entry {
+        private final CompletableFuture<PingResult> future;
+        private volatile long expiresAtNanos;
+        private volatile boolean completed;
+
+        private Entry(CompletableFuture<PingResult> future) {
+            this.future = future;
+            future.whenComplete((result, error) -> {
+                boolean online = result != null && result.hasStatus();
+                expiresAtNanos = System.nanoTime() + (online ? onlineTtlNanos : offlineTtlNanos);
+                completed = true;
+            });
+        }
+
+        private boolean isExpired(long now) {
+            return completed && now - expiresAtNanos >= 0;
+        }
+    }
+}
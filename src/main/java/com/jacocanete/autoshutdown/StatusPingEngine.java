@@ -0,0 +1,397 @@
+package com.jacocanete.autoshutdown;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs Minecraft status pings for any number of servers on a single selector thread.
+ *
+ * Every probe opens exactly one non-blocking connection, sends the handshake and status
+ * request, and completes its future once the status response has been read, the peer
+ * closes the connection or the probe's deadline passes. Host names are looked up on a virtual
+ * thread and the answer reused for {@link #RESOLVE_TTL_SECONDS} seconds, so nothing here ever
+ * blocks the caller, not even on DNS; the lookup counts towards the probe's timeout.
+ */
+public class StatusPingEngine {
+
+    private static final int POOLED_BUFFER_SIZE = 4096;
+
+    /** Status responses are a few KB; anything far beyond a large favicon is not a real server. */
+    public static final int DEFAULT_MAX_RESPONSE_BYTES = 256 * 1024;
+
+    /** As long as the JVM's own DNS cache keeps a positive answer by default. */
+    public static final int RESOLVE_TTL_SECONDS = 30;
+
+    /** A lookup of one host, in flight or done; failed lookups are dropped so the next ping retries. */
+    private record Resolution(CompletableFuture<InetAddress> address, long expiresAtNanos) {
+    }
+
+    private static StatusPingEngine shared;
+
+    private final Selector selector;
+    private final Thread ioThread;
+    private final Queue<Probe> pendingProbes = new ConcurrentLinkedQueue<>();
+    private final List<Probe> activeProbes = new ArrayList<>();
+    private final ByteBufferPool bufferPool = new ByteBufferPool(POOLED_BUFFER_SIZE, 256);
+    private final Map<String, Resolution> resolutions = new ConcurrentHashMap<>();
+    private final ExecutorService resolver =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("AutoShutdown-Resolver-", 0).factory());
+    private final int maxResponseBytes;
+    private volatile boolean running = true;
+
+    public StatusPingEngine() throws IOException {
+        this(DEFAULT_MAX_RESPONSE_BYTES);
+    }
+
+    public StatusPingEngine(int maxResponseBytes) throws IOException {
+        this.maxResponseBytes = maxResponseBytes;
+        this.selector = Selector.open();
+        this.ioThread = new Thread(this::runLoop, "AutoShutdown-PingEngine");
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    /**
+     * Returns the engine shared by {@link ServerPinger} and {@link PlayerCountChecker},
+     * starting it on first use.
+     */
+    public static synchronized StatusPingEngine getShared() {
+        if (shared == null) {
+            try {
+                shared = new StatusPingEngine();
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to open selector for status pings", e);
+            }
+        }
+        return shared;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.shutdown();
+            shared = null;
+        }
+    }
+
+    public CompletableFuture<PingResult> ping(String host, int port, int timeoutMs) {
+        if (!running) {
+            return CompletableFuture.completedFuture(PingResult.unreachable(0));
+        }
+
+        long now = System.nanoTime();
+        long deadline = now + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        CompletableFuture<InetAddress> resolved = resolve(host, now);
+        if (!resolved.isDone()) {
+            // A lookup that hangs must not outlast the probe it is for
+            resolved = resolved.copy().completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        return resolved.thenCompose(address -> {
+            if (address == null || !running) {
+                return CompletableFuture.completedFuture(PingResult.unreachable(0));
+            }
+            CompletableFuture<PingResult> future = new CompletableFuture<>();
+            pendingProbes.add(new Probe(new InetSocketAddress(address, port), host, port, now, deadline, future));
+            selector.wakeup();
+            return future;
+        });
+    }
+
+    /** The cached address of {@code host}, looking it up off the caller's thread if there is none; null if unknown. */
+    private CompletableFuture<InetAddress> resolve(String host, long now) {
+        Resolution resolution = resolutions.get(host);
+        if (resolution == null || now - resolution.expiresAtNanos() >= 0) {
+            resolution = resolutions.compute(host, (key, existing) -> existing != null && now - existing.expiresAtNanos() < 0
+                ? existing
+                : new Resolution(lookUp(key), now + TimeUnit.SECONDS.toNanos(RESOLVE_TTL_SECONDS)));
+            Resolution current = resolution;
+            current.address().thenAccept(address -> {
+                if (address == null) {
+                    resolutions.remove(host, current);
+                }
+            });
+        }
+        return resolution.address();
+    }
+
+    private CompletableFuture<InetAddress> lookUp(String host) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return InetAddress.getByName(host);
+                } catch (UnknownHostException e) {
+                    return null;
+                }
+            }, resolver);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(null); // Shutting down
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+        resolver.shutdownNow();
+    }
+
+    private void runLoop() {
+        try {
+            while (running) {
+                registerPendingProbes();
+
+                long timeoutMs = millisUntilNextDeadline();
+                if (timeoutMs < 0) {
+                    selector.select();
+                } else {
+                    selector.select(Math.max(1, timeoutMs));
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handleKey(key);
+                }
+
+                expireProbes();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // Selector is gone, fall through and fail whatever is left
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void registerPendingProbes() {
+        Probe probe;
+        while ((probe = pendingProbes.poll()) != null) {
+            try {
+                SocketChannel channel = SocketChannel.open();
+                probe.channel = channel;
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                activeProbes.add(probe);
+
+                if (channel.connect(probe.address)) {
+                    onConnected(probe, channel.register(selector, 0, probe));
+                } else {
+                    channel.register(selector, SelectionKey.OP_CONNECT, probe);
+                }
+            } catch (IOException e) {
+                finish(probe);
+            }
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        Probe probe = (Probe) key.attachment();
+        if (!key.isValid()) {
+            finish(probe);
+            return;
+        }
+
+        try {
+            if (key.isConnectable()) {
+                if (!probe.channel.finishConnect()) {
+                    return;
+                }
+                onConnected(probe, key);
+                return;
+            }
+            if (key.isWritable()) {
+                writeRequest(probe, key);
+                return;
+            }
+            if (key.isReadable()) {
+                readResponse(probe);
+            }
+        } catch (IOException e) {
+            finish(probe);
+        }
+    }
+
+    private void onConnected(Probe probe, SelectionKey key) throws IOException {
+        probe.connected = true;
+        probe.request = encodeRequest(probe.host, probe.port);
+        probe.request.flip();
+        writeRequest(probe, key);
+    }
+
+    private void writeRequest(Probe probe, SelectionKey key) throws IOException {
+        probe.channel.write(probe.request);
+        if (probe.request.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else {
+            bufferPool.release(probe.request);
+            probe.request = null;
+            probe.response = bufferPool.acquire();
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void readResponse(Probe probe) throws IOException {
+        int read = probe.channel.read(probe.response);
+        if (read < 0) {
+            finish(probe);
+            return;
+        }
+
+        probe.response.flip();
+        try {
+            ByteBuffer json = StatusProtocolCodec.readStatusResponse(probe.response);
+            if (json != null) {
+                probe.statusPayload = detachPayload(probe.response, json);
+                finish(probe);
+                return;
+            }
+            ensureCapacityForFrame(probe);
+        } finally {
+            if (probe.response != null) {
+                probe.response.compact();
+            }
+        }
+    }
+
+    /** Swaps the pooled read buffer for a dedicated one once the server announces a larger frame. */
+    private void ensureCapacityForFrame(Probe probe) throws IOException {
+        int frameSize = StatusProtocolCodec.peekFrameSize(probe.response);
+        if (frameSize == StatusProtocolCodec.INCOMPLETE || frameSize <= probe.response.capacity()) {
+            return;
+        }
+        if (frameSize > maxResponseBytes) {
+            throw new IOException("Status response of " + frameSize + " bytes exceeds the " + maxResponseBytes + " byte limit");
+        }
+
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(frameSize, probe.response.remaining()));
+        larger.put(probe.response);
+        larger.flip();
+        bufferPool.release(probe.response);
+        probe.response = larger;
+    }
+
+    /**
+     * Pooled buffers are recycled as soon as the probe finishes, so their payload is copied out.
+     * An oversized buffer belongs to this probe alone and can be handed over as is.
+     */
+    private static ByteBuffer detachPayload(ByteBuffer response, ByteBuffer payload) {
+        if (!response.isDirect()) {
+            return payload.asReadOnlyBuffer();
+        }
+        ByteBuffer copy = ByteBuffer.allocate(payload.remaining());
+        copy.put(payload).flip();
+        return copy.asReadOnlyBuffer();
+    }
+
+    private void expireProbes() {
+        if (activeProbes.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (Probe probe : new ArrayList<>(activeProbes)) {
+            if (now - probe.deadlineNanos >= 0) {
+                finish(probe);
+            }
+        }
+    }
+
+    private long millisUntilNextDeadline() {
+        if (activeProbes.isEmpty()) {
+            return -1;
+        }
+        long earliest = Long.MAX_VALUE;
+        for (Probe probe : activeProbes) {
+            earliest = Math.min(earliest, probe.deadlineNanos);
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(earliest - System.nanoTime()));
+    }
+
+    private void finish(Probe probe) {
+        activeProbes.remove(probe);
+        bufferPool.release(probe.request);
+        bufferPool.release(probe.response);
+        probe.request = null;
+        probe.response = null;
+        if (probe.channel != null) {
+            try {
+                probe.channel.close();
+            } catch (IOException ignored) {
+                // Nothing useful to do with a failed close
+            }
+        }
+
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - probe.startNanos);
+        if (probe.statusPayload != null) {
+            probe.future.complete(PingResult.withStatus(probe.statusPayload, latencyMs));
+        } else if (probe.connected) {
+            probe.future.complete(PingResult.connectedOnly(latencyMs));
+        } else {
+            probe.future.complete(PingResult.unreachable(latencyMs));
+        }
+    }
+
+    private void closeAll() {
+        for (Probe probe : new ArrayList<>(activeProbes)) {
+            finish(probe);
+        }
+        Probe probe;
+        while ((probe = pendingProbes.poll()) != null) {
+            finish(probe);
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // Shutting down anyway
+        }
+    }
+
+    private ByteBuffer encodeRequest(String host, int port) {
+        int size = StatusProtocolCodec.statusRequestSize(host);
+        ByteBuffer buffer = size <= bufferPool.getBufferSize() ? bufferPool.acquire() : ByteBuffer.allocate(size);
+        StatusProtocolCodec.writeStatusRequest(buffer, host, port);
+        return buffer;
+    }
+
+    private static final class Probe {
+        private final InetSocketAddress address;
+        private final String host;
+        private final int port;
+        private final long startNanos;
+        private final long deadlineNanos;
+        private final CompletableFuture<PingResult> future;
+
+        private SocketChannel channel;
+        private ByteBuffer request;
+        private ByteBuffer response;
+        private boolean connected;
+        private ByteBuffer statusPayload;
+
+        private Probe(InetSocketAddress address, String host, int port, long startNanos, long deadlineNanos,
+                      CompletableFuture<PingResult> future) {
+            this.address = address;
+            this.host = host;
+            this.port = port;
+            this.startNanos = startNanos;
+            this.deadlineNanos = deadlineNanos;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.jacocanete.autoshutdown;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encoder and decoder for the handful of Minecraft packets used by a status ping.
+ *
+ * Everything works directly on {@link ByteBuffer}s: VarInts are written and read without
+ * allocating, packets are always length-prefixed, and decoding never consumes a partial
+ * frame, so callers can simply retry once more bytes have arrived.
+ */
+public final class StatusProtocolCodec {
+
+    public static final int PROTOCOL_VERSION = 47; // 1.8.x, answered by every modern server
+    public static final int STATUS_PACKET_ID = 0x00;
+
+    /** Returned by the read methods when the buffer does not hold enough bytes yet. */
+    public static final int INCOMPLETE = -1;
+
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private StatusProtocolCodec() {
+    }
+
+    public static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+    public static void writeVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads a non-negative VarInt. If the buffer ends in the middle of it, the position is
+     * left untouched and {@link #INCOMPLETE} is returned.
+     */
+    public static int readVarInt(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        int value = 0;
+
+        for (int i = 0; i < MAX_VARINT_BYTES; i++) {
+            if (!buffer.hasRemaining()) {
+                buffer.position(start);
+                return INCOMPLETE;
+            }
+
+            byte currentByte = buffer.get();
+            value |= (currentByte & 0x7F) << (7 * i);
+
+            if ((currentByte & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("Negative VarInt where a length was expected");
+                }
+                return value;
+            }
+        }
+        throw new IOException("VarInt is too big");
+    }
+
+    /**
+     * Number of bytes {@link #writeString} will produce for the given string, ignoring the
+     * length prefix.
+     */
+    public static int utf8Length(CharSequence string) {
+        int length = 0;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < string.length()
+                && Character.isLowSurrogate(string.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    public static void writeString(ByteBuffer buffer, String string) {
+        int length = utf8Length(string);
+        writeVarInt(buffer, length);
+        if (length == string.length()) {
+            // Plain ASCII, which is what host names are in practice
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) string.charAt(i));
+            }
+        } else {
+            buffer.put(string.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /** Size of the framed handshake plus status request produced by {@link #writeStatusRequest}. */
+    public static int statusRequestSize(String host) {
+        int handshakeLength = handshakeLength(host);
+        return varIntSize(handshakeLength) + handshakeLength + 2;
+    }
+
+    /**
+     * Writes a length-prefixed handshake packet (next state: status) followed by a
+     * length-prefixed status request packet.
+     */
+    public static void writeStatusRequest(ByteBuffer buffer, String host, int port) {
+        // Handshake packet
+        writeVarInt(buffer, handshakeLength(host));
+        writeVarInt(buffer, 0x00); // Packet ID
+        writeVarInt(buffer, PROTOCOL_VERSION);
+        writeString(buffer, host);
+        buffer.putShort((short) port);
+        writeVarInt(buffer, 1); // Next state (status)
+
+        // Status request
+        writeVarInt(buffer, 1);
+        writeVarInt(buffer, STATUS_PACKET_ID);
+    }
+
+    /**
+     * Looks for a complete status response frame at the start of {@code buffer} (in read mode).
+     * Returns a slice over the JSON payload bytes, or null if the frame is not complete yet.
+     * The buffer's position is only advanced when a full frame was decoded.
+     */
+    public static ByteBuffer readStatusResponse(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+
+        int frameLength = readVarInt(buffer);
+        if (frameLength == INCOMPLETE || buffer.remaining() < frameLength) {
+            buffer.position(start);
+            return null;
+        }
+        int frameEnd = buffer.position() + frameLength;
+
+        int packetId = readVarInt(buffer);
+        if (packetId != STATUS_PACKET_ID) {
+            throw new IOException("Unexpected status packet id " + packetId);
+        }
+
+        int jsonLength = readVarInt(buffer);
+        if (jsonLength == INCOMPLETE || buffer.position() + jsonLength > frameEnd) {
+            throw new IOException("Malformed status response");
+        }
+
+        ByteBuffer json = buffer.slice(buffer.position(), jsonLength);
+        buffer.position(frameEnd);
+        return json;
+    }
+
+    /**
+     * Reads as much of the frame header as is buffered and returns the total frame size
+     * (prefix included) it announces, or {@link #INCOMPLETE} if the prefix has not arrived yet.
+     * A frame too large to count in an int is reported as {@link Integer#MAX_VALUE}.
+     */
+    public static int peekFrameSize(ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        int frameLength = readVarInt(buffer);
+        int prefixLength = buffer.position() - start;
+        buffer.position(start);
+        return frameLength == INCOMPLETE ? INCOMPLETE : (int) Math.min((long) prefixLength + frameLength, Integer.MAX_VALUE);
+    }
+
+    private static int handshakeLength(String host) {
+        int hostLength = utf8Length(host);
+        return varIntSize(0x00) + varIntSize(PROTOCOL_VERSION) + varIntSize(hostLength) + hostLength + 2 + varIntSize(1);
+    }
+}
@@ -0,0 +1,130 @@
+package com.jacocanete.autoshutdown;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pulls the interesting fields out of a status response without materialising the JSON as a
+ * String. Parsing stops as soon as the requested fields have been read, so a large favicon or
+ * description after the player section is never decoded.
+ */
+public final class StatusResponseParser {
+
+    private StatusResponseParser() {
+    }
+
+    public static PlayerCountResult parsePlayerCount(ByteBuffer payload) {
+        if (payload == null) {
+            return PlayerCountResult.offline();
+        }
+
+        try (JsonReader reader = newReader(payload)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("players".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    return readPlayers(reader);
+                }
+                reader.skipValue();
+            }
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            // Fall through to malformed
+        }
+        return PlayerCountResult.malformed();
+    }
+
+    private static PlayerCountResult readPlayers(JsonReader reader) throws IOException {
+        int online = -1;
+        int max = -1;
+
+        reader.beginObject();
+        while (reader.hasNext() && (online < 0 || max < 0)) {
+            switch (reader.nextName()) {
+                case "online":
+                    online = reader.nextInt();
+                    break;
+                case "max":
+                    max = reader.nextInt();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+
+        if (online < 0) {
+            return PlayerCountResult.malformed();
+        }
+        return PlayerCountResult.of(online, Math.max(max, 0));
+    }
+
+    /**
+     * Reads the whole response into a {@link StatusSnapshot}, favicon included. Meant for the
+     * occasional snapshot refresh, not the hot path. Returns null if the payload is not a usable
+     * status response.
+     */
+    public static StatusSnapshot parseSnapshot(ByteBuffer payload) {
+        if (payload == null) {
+            return null;
+        }
+
+        try (JsonReader reader = newReader(payload)) {
+            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
+            JsonObject version = root.has("version") ? root.getAsJsonObject("version") : new JsonObject();
+            JsonObject players = root.has("players") ? root.getAsJsonObject("players") : new JsonObject();
+            JsonElement description = root.get("description");
+            JsonElement favicon = root.get("favicon");
+
+            return new StatusSnapshot(
+                description != null ? description.toString() : "\"\"",
+                version.has("name") ? version.get("name").getAsString() : "",
+                version.has("protocol") ? version.get("protocol").getAsInt() : -1,
+                players.has("max") ? players.get("max").getAsInt() : 0,
+                favicon != null && favicon.isJsonPrimitive() ? favicon.getAsString() : null
+            );
+        } catch (IOException | JsonParseException | IllegalStateException | ClassCastException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static JsonReader newReader(ByteBuffer payload) {
+        return new JsonReader(new InputStreamReader(new ByteBufferInputStream(payload.duplicate()), StandardCharsets.UTF_8));
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
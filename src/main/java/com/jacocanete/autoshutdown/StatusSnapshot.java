@@ -0,0 +1,15 @@
+package com.jacocanete.autoshutdown;
+
+/**
+ * The parts of a backend's status response worth showing in the server list while it sleeps.
+ * The description is kept as its raw JSON so any chat formatting survives unchanged, and the
+ * favicon as its {@code data:image/png;base64,...} string (null if the backend has none).
+ */
+public record StatusSnapshot(
+    String descriptionJson,
+    String versionName,
+    int protocol,
+    int maxPlayers,
+    String favicon
+) {
+}
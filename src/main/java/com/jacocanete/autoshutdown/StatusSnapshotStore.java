@@ -0,0 +1,93 @@
+package com.jacocanete.autoshutdown;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Last good {@link StatusSnapshot} of every backend, kept in memory for the server-list listener
+ * and mirrored to {@code status-snapshots.json} in the data directory so a sleeping backend still
+ * has something to show after a proxy restart.
+ *
+ * Snapshots only change when a backend's MOTD, version, favicon or slot count does, so writes are
+ * rare. They happen on the blocking I/O executor, replace the file atomically, and collapse into a
+ * single write if several changes arrive while one is pending.
+ */
+public class StatusSnapshotStore {
+
+    private static final Type FILE_TYPE = new TypeToken<Map<String, StatusSnapshot>>() { }.getType();
+
+    private final Path file;
+    private final BlockingIoExecutor ioExecutor;
+    private final Logger logger;
+    private final Gson gson = new Gson();
+
+    private final ConcurrentHashMap<String, StatusSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicBoolean savePending = new AtomicBoolean();
+
+    public StatusSnapshotStore(Path file, BlockingIoExecutor ioExecutor, Logger logger) {
+        this.file = file;
+        this.ioExecutor = ioExecutor;
+        this.logger = logger;
+    }
+
+    public void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Map<String, StatusSnapshot> loaded = gson.fromJson(reader, FILE_TYPE);
+            if (loaded != null) {
+                loaded.forEach((name, snapshot) -> snapshots.put(name.toLowerCase(), snapshot));
+            }
+            logger.info("Loaded {} cached status snapshot(s)", snapshots.size());
+        } catch (IOException | JsonParseException e) {
+            logger.warn("Ignoring unreadable status snapshot cache {}: {}", file, e.toString());
+        }
+    }
+
+    public StatusSnapshot get(String backendName) {
+        return snapshots.get(backendName.toLowerCase());
+    }
+
+    /** Stores the snapshot and schedules a save, unless it is identical to the one already held. */
+    public void update(String backendName, StatusSnapshot snapshot) {
+        StatusSnapshot previous = snapshots.put(backendName.toLowerCase(), snapshot);
+        if (snapshot.equals(previous)) {
+            return;
+        }
+        if (savePending.compareAndSet(false, true)) {
+            ioExecutor.supply(() -> {
+                savePending.set(false);
+                save();
+                return null;
+            });
+        }
+    }
+
+    private synchronized void save() {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                gson.toJson(new TreeMap<>(snapshots), FILE_TYPE, writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to save status snapshot cache {}: {}", file, e.toString());
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.jacocanete.autoshutdown;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Plugin-owned one-shot timers on a hashed timing wheel: idle deadlines, startup timeouts and
+ * re-polls, stop polls and transfer-queue batches.
+ *
+ * The wheel is an array of buckets, each {@code tickMillis} wide; a timer further out than one
+ * turn waits in its bucket for the remaining number of turns. Scheduling and cancelling are O(1)
+ * and allocate nothing beyond the timer itself: callers push it onto a lock-free stack, and the
+ * single wheel thread moves new timers into their bucket and unlinks cancelled ones at the next
+ * tick. Nothing is re-sorted, so re-arming a backend's timeout thousands of times costs no more
+ * than arming it once.
+ *
+ * Timers fire up to one tick late, never early. Expired tasks run on their own virtual thread, so
+ * a slow one cannot hold up the wheel.
+ */
+public class TimerWheel {
+
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Logger logger;
+    private final ExecutorService runner;
+
+    /** Handed from any thread to the wheel thread, linked through the timers themselves. */
+    private final AtomicReference<Timeout> added = new AtomicReference<>();
+    private final AtomicReference<Timeout> cancelled = new AtomicReference<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final long startNanos;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /** Only touched by the wheel thread. */
+    private long tick;
+
+    public TimerWheel(long tickMillis, int buckets, Logger logger) {
+        if (Integer.bitCount(buckets) != 1) {
+            throw new IllegalArgumentException("Bucket count must be a power of two: " + buckets);
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        this.wheel = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = buckets - 1;
+        this.logger = logger;
+        this.runner = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("AutoShutdown-Timer-", 0).factory());
+        this.startNanos = System.nanoTime();
+        this.thread = Thread.ofPlatform().daemon().name("AutoShutdown-Wheel").start(this::run);
+    }
+
+    /** Runs {@code task} once after {@code delay}; the returned handle cancels it. */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+        pending.incrementAndGet();
+        Timeout head;
+        do {
+            head = added.get();
+            timeout.nextAdded = head;
+        } while (!added.compareAndSet(head, timeout));
+        if (!running) {
+            timeout.cancel();
+        }
+        return timeout;
+    }
+
+    /** Timers scheduled and neither fired nor cancelled yet. */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /** Drops every pending timer and stops the wheel thread; tasks already running finish. */
+    public void stop() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        runner.shutdown();
+    }
+
+    private void run() {
+        while (running) {
+            long sleepNanos = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    continue; // Stopping
+                }
+            }
+            long now = System.nanoTime();
+            unlinkCancelled();
+            transferAdded();
+            wheel[(int) (tick & mask)].expire(now);
+            tick++;
+        }
+        pending.set(0);
+    }
+
+    private void transferAdded() {
+        // Newest first; the order within a bucket does not matter
+        Timeout timeout = added.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextAdded;
+            timeout.nextAdded = null;
+            if (timeout.state != CANCELLED) {
+                place(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    /** Into the bucket of the first tick at or after the deadline; overdue timers go in the current one. */
+    private void place(Timeout timeout) {
+        long ticks = Math.max(tick, (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+        timeout.remainingRounds = (ticks - tick) / wheel.length;
+        wheel[(int) (ticks & mask)].add(timeout);
+    }
+
+    private void unlinkCancelled() {
+        Timeout timeout = cancelled.getAndSet(null);
+        while (timeout != null) {
+            Timeout next = timeout.nextCancelled;
+            timeout.nextCancelled = null;
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+            timeout = next;
+        }
+    }
+
+    private void fire(Timeout timeout) {
+        try {
+            runner.execute(() -> {
+                try {
+                    timeout.task.run();
+                } catch (Throwable t) {
+                    logger.error("Timer task failed", t);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.debug("Timer task dropped, wheel is stopping: {}", e.toString());
+        }
+    }
+
+    /** Handle to one scheduled task. */
+    public final class Timeout {
+
+        private final Runnable task;
+        private final long deadlineNanos;
+        private volatile int state = INIT;
+        /** Links on the hand-over stacks; written before the push that publishes them. */
+        private Timeout nextAdded;
+        private Timeout nextCancelled;
+
+        /** Bucket links and turns left, owned by the wheel thread. */
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /** Returns true if this call kept the task from running. */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, INIT, CANCELLED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            Timeout head;
+            do {
+                head = cancelled.get();
+                nextCancelled = head;
+            } while (!cancelled.compareAndSet(head, this));
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        /** Neither fired nor cancelled yet. */
+        public boolean isPending() {
+            return state == INIT;
+        }
+    }
+
+    /** Intrusive doubly linked list, so a cancelled timer is unlinked without a search. */
+    private final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (tail == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            } else {
+                tail = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void expire(long nowNanos) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0 && timeout.deadlineNanos <= nowNanos) {
+                    remove(timeout);
+                    if (STATE.compareAndSet(timeout, INIT, EXPIRED)) {
+                        pending.decrementAndGet();
+                        fire(timeout);
+                    }
+                } else if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.jacocanete.autoshutdown;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Players waiting (in limbo) for one backend to come up, in arrival order.
+ *
+ * Once the backend is ready the queue is drained in batches: every batch interval the players at
+ * the head get a connection request, so a server that has only just booted is not hit by everyone
+ * at once. A failed connection puts the player back at the end of the queue until they run out of
+ * attempts. Everyone still waiting is told their position after each batch.
+ */
+public class TransferQueue {
+
+    public record Settings(int batchSize, long batchIntervalMs, int maxAttempts) {
+    }
+
+    private final AutoShutdownPlugin plugin;
+    private final ManagedBackend backend;
+    private final ProxyServer server;
+    private final Logger logger;
+
+    /** Players and how many connection attempts each has used, guarded by {@code this}. */
+    private final LinkedHashMap<UUID, Integer> waiting = new LinkedHashMap<>();
+    private final Map<UUID, Integer> connecting = new HashMap<>();
+    private TimerWheel.Timeout drainTask;
+
+    public TransferQueue(AutoShutdownPlugin plugin, ManagedBackend backend) {
+        this.plugin = plugin;
+        this.backend = backend;
+        this.server = plugin.getServer();
+        this.logger = plugin.getLogger();
+    }
+
+    /** Adds the player if they are not already queued and returns their 1-based position. */
+    public synchronized int add(Player player) {
+        UUID id = player.getUniqueId();
+        if (!connecting.containsKey(id)) {
+            waiting.putIfAbsent(id, 0);
+        }
+        return positionOf(id);
+    }
+
+    public synchronized void remove(UUID playerId) {
+        waiting.remove(playerId);
+        connecting.remove(playerId);
+    }
+
+    public synchronized int size() {
+        return waiting.size() + connecting.size();
+    }
+
+    /** 1-based position among players still waiting, or 0 if the player is not waiting (or already connecting). */
+    private int positionOf(UUID id) {
+        int position = 1;
+        for (UUID waitingId : waiting.keySet()) {
+            if (waitingId.equals(id)) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    /** Starts moving waiting players onto the backend, unless a drain is already running. */
+    public synchronized void drain() {
+        if (drainTask != null || waiting.isEmpty()) {
+            return;
+        }
+        scheduleBatch(0);
+    }
+
+    private void scheduleBatch(long delayMs) {
+        drainTask = plugin.getTimers().schedule(this::runBatch, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void runBatch() {
+        RegisteredServer target = backend.getRegisteredServer();
+        if (target == null || !backend.isReady() || plugin.isShuttingDown()) {
+            // Leave everyone queued; the next time the backend is ready drains them
+            synchronized (this) {
+                drainTask = null;
+            }
+            return;
+        }
+
+        Settings settings = plugin.getTransferSettings();
+        List<UUID> batch = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<UUID, Integer>> head = waiting.entrySet().iterator();
+            while (head.hasNext() && batch.size() < settings.batchSize()) {
+                Map.Entry<UUID, Integer> entry = head.next();
+                head.remove();
+                batch.add(entry.getKey());
+                connecting.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (UUID id : batch) {
+            connect(id, target, settings);
+        }
+        announcePositions();
+
+        // Players still connecting restart the drain themselves if they have to be requeued
+        synchronized (this) {
+            if (!waiting.isEmpty()) {
+                scheduleBatch(settings.batchIntervalMs());
+            } else {
+                drainTask = null;
+            }
+        }
+    }
+
+    private void connect(UUID id, RegisteredServer target, Settings settings) {
+        Player player = server.getPlayer(id).orElse(null);
+        if (player == null || !player.isActive()) {
+            remove(id);
+            return;
+        }
+        boolean alreadyThere = player.getCurrentServer()
+            .map(connection -> connection.getServer().equals(target))
+            .orElse(false);
+        if (alreadyThere) {
+            remove(id);
+            return;
+        }
+
+        player.sendMessage(Component.text("Server is online! Connecting you...").color(NamedTextColor.GREEN));
+        player.createConnectionRequest(target).connect().whenComplete((result, error) -> {
+            if (error == null && result.isSuccessful()) {
+                remove(id);
+                return;
+            }
+            requeue(player, settings.maxAttempts(), error != null ? error.toString() : String.valueOf(result.getStatus()));
+        });
+    }
+
+    private void requeue(Player player, int maxAttempts, String reason) {
+        UUID id = player.getUniqueId();
+        int attempts;
+        synchronized (this) {
+            Integer used = connecting.remove(id);
+            if (used == null) {
+                return; // Left the queue meanwhile
+            }
+            if (!player.isActive()) {
+                return;
+            }
+            attempts = used + 1;
+            if (attempts < maxAttempts) {
+                waiting.put(id, attempts);
+            }
+        }
+
+        if (attempts >= maxAttempts) {
+            logger.warn("Giving up moving '{}' to '{}' after {} attempts ({})",
+                player.getUsername(), backend.getName(), attempts, reason);
+            player.sendMessage(Component.text("Could not connect you to the server. Please try again.")
+                .color(NamedTextColor.RED));
+            return;
+        }
+
+        logger.debug("Moving '{}' to '{}' failed ({}), retrying", player.getUsername(), backend.getName(), reason);
+        drain();
+    }
+
+    private void announcePositions() {
+        List<UUID> order;
+        synchronized (this) {
+            order = new ArrayList<>(waiting.keySet());
+        }
+
+        int position = 1;
+        for (UUID id : order) {
+            int current = position++;
+            server.getPlayer(id).ifPresent(player -> player.sendMessage(
+                Component.text("You are #" + current + " in the queue for " + backend.getName() + "...")
+                    .color(NamedTextColor.YELLOW)));
+        }
+    }
+
+    /** Empties the queue, telling everyone in it why. */
+    public void failAll(String message) {
+        List<UUID> dropped;
+        synchronized (this) {
+            dropped = new ArrayList<>(waiting.keySet());
+            dropped.addAll(connecting.keySet());
+            waiting.clear();
+            connecting.clear();
+        }
+        for (UUID id : dropped) {
+            server.getPlayer(id).ifPresent(player ->
+                player.sendMessage(Component.text(message).color(NamedTextColor.RED)));
+        }
+    }
+
+    public synchronized void shutdown() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+        waiting.clear();
+        connecting.clear();
+    }
+}
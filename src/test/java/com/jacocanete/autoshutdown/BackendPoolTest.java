@@ -0,0 +1,224 @@
+package com.jacocanete.autoshutdown;
+
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Steps one pool of three instances through its scaling decisions with an explicit clock. Scale
+ * up at 4 players per instance, down below 2 after 120 seconds, and 60 seconds between actions.
+ */
+class BackendPoolTest {
+
+    private static final List<String> MEMBERS = List.of("minigames-1", "minigames-2", "minigames-3");
+    private static final long SCALE_DOWN_MS = TimeUnit.SECONDS.toMillis(120);
+    private static final long COOLDOWN_MS = TimeUnit.SECONDS.toMillis(60);
+
+    @TempDir
+    Path dataDirectory;
+
+    private CountingPanel panel;
+    private AutoShutdownPlugin plugin;
+    private BackendPool pool;
+    private ManagedBackend first;
+    private ManagedBackend second;
+    private ManagedBackend third;
+    private final Map<ManagedBackend, Deque<UUID>> online = new HashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        panel = new CountingPanel();
+        panel.setCurrentState("starting");
+
+        Properties config = new Properties();
+        config.setProperty("pterodactyl.url", panel.url());
+        config.setProperty("pterodactyl.api-key", "test");
+        config.setProperty("pterodactyl.max-attempts", "1");
+        config.setProperty("limbo-server.name", "limbo");
+        config.setProperty("backends", String.join(",", MEMBERS));
+        config.setProperty("pools", "minigames");
+        config.setProperty("pool.minigames.members", String.join(",", MEMBERS));
+        config.setProperty("pool.minigames.scale-up-players", "4");
+        config.setProperty("pool.minigames.scale-down-players", "2");
+        config.setProperty("pool.minigames.scale-down-seconds", "120");
+        config.setProperty("pool.minigames.cooldown-seconds", "60");
+
+        Map<String, RegisteredServer> servers = new HashMap<>();
+        for (String member : MEMBERS) {
+            // Nothing listens here, so every status ping says the instance is down
+            InetSocketAddress address;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                address = new InetSocketAddress("127.0.0.1", socket.getLocalPort());
+            }
+            config.setProperty("backend." + member + ".host", address.getHostString());
+            config.setProperty("backend." + member + ".port", String.valueOf(address.getPort()));
+            config.setProperty("backend." + member + ".pterodactyl-server-id", member);
+            servers.put(member, TestVelocity.registeredServer(member, address));
+        }
+        try (OutputStream out = Files.newOutputStream(dataDirectory.resolve("config.properties"))) {
+            config.store(out, null);
+        }
+
+        plugin = new AutoShutdownPlugin(TestVelocity.proxyServer(servers), TestVelocity.silentLogger(), dataDirectory);
+        plugin.onProxyInitialization(null);
+        pool = plugin.getPools().get(0);
+        first = plugin.getBackends().get(MEMBERS.get(0)).orElseThrow();
+        second = plugin.getBackends().get(MEMBERS.get(1)).orElseThrow();
+        third = plugin.getBackends().get(MEMBERS.get(2)).orElseThrow();
+
+        // Let the startup reconciliation find them down before the tests bring them up
+        for (ManagedBackend member : List.of(first, second, third)) {
+            member.ping().get(5, TimeUnit.SECONDS);
+        }
+        Thread.sleep(200);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        plugin.onProxyShutdown(null);
+        panel.close();
+    }
+
+    @Test
+    void startsAnInstanceAtTheHighWatermark() throws Exception {
+        long now = System.currentTimeMillis();
+        join(first, 3);
+        pool.evaluate(now);
+        assertEquals(BackendState.OFFLINE, second.getState());
+
+        join(first, 1);
+        pool.evaluate(now + 1_000);
+        assertEquals(BackendState.STARTING, second.getState());
+        assertEquals(BackendState.OFFLINE, third.getState());
+        assertTrue(await(() -> panel.getStartSignals() == 1), "no start signal was sent");
+    }
+
+    @Test
+    void waitsScaleDownSecondsBeforeDraining() throws Exception {
+        long now = System.currentTimeMillis();
+        join(first, 1);
+        join(second, 1);
+
+        pool.evaluate(now);
+        pool.evaluate(now + SCALE_DOWN_MS - 1);
+        assertFalse(pool.isDraining(first));
+        assertFalse(pool.isDraining(second));
+
+        // Load back above the low watermark for a moment starts the wait over
+        join(second, 2);
+        pool.evaluate(now + SCALE_DOWN_MS);
+        leave(second, 2);
+        pool.evaluate(now + SCALE_DOWN_MS + 1);
+        pool.evaluate(now + 2 * SCALE_DOWN_MS);
+        assertFalse(pool.isDraining(first));
+
+        pool.evaluate(now + 2 * SCALE_DOWN_MS + 1);
+        assertTrue(pool.isDraining(first));
+        assertFalse(pool.isDraining(second));
+        assertEquals(0, panel.getStopSignals());
+    }
+
+    @Test
+    void doesNotScaleBackUpInsideTheCooldown() throws Exception {
+        long now = System.currentTimeMillis();
+        join(first, 0);
+        join(second, 0);
+
+        pool.evaluate(now);
+        pool.evaluate(now + SCALE_DOWN_MS);
+        assertTrue(await(() -> panel.getStopSignals() == 1), "the empty instance was not stopped");
+        assertFalse(first.isReady());
+
+        // Players come straight back: the pool is over the watermark, but just scaled
+        long scaledDownAt = now + SCALE_DOWN_MS;
+        join(second, 5);
+        pool.evaluate(scaledDownAt + COOLDOWN_MS - 1);
+        assertEquals(BackendState.OFFLINE, third.getState());
+        assertEquals(0, panel.getStartSignals());
+
+        pool.evaluate(scaledDownAt + COOLDOWN_MS);
+        assertTrue(await(() -> panel.getStartSignals() == 1), "no instance was started after the cooldown");
+    }
+
+    @Test
+    void takesBackADrainingInstanceBeforeAColdStart() {
+        long now = System.currentTimeMillis();
+        join(first, 1);
+        join(second, 1);
+
+        // Nobody can be moved off it here, so it stays draining with its player on it
+        pool.evaluate(now);
+        pool.evaluate(now + SCALE_DOWN_MS);
+        assertTrue(pool.isDraining(first));
+
+        join(second, 7);
+        pool.evaluate(now + SCALE_DOWN_MS + COOLDOWN_MS);
+        assertFalse(pool.isDraining(first));
+        assertEquals(BackendState.ONLINE, first.getState());
+        assertEquals(BackendState.OFFLINE, third.getState());
+        assertEquals(0, panel.getStartSignals());
+    }
+
+    @Test
+    void spreadsAJoinStormOverTheInstances() {
+        join(first, 0);
+        join(second, 0);
+        join(third, 0);
+
+        Map<ManagedBackend, Integer> placed = new HashMap<>();
+        for (int i = 0; i < 30; i++) {
+            placed.merge(pool.place(TestVelocity.player("player" + i)), 1, Integer::sum);
+        }
+        // None of them has arrived yet, so only the placements in flight tell the instances apart
+        assertEquals(Map.of(first, 10, second, 10, third, 10), placed);
+    }
+
+    /** Puts {@code players} more players on {@code member}, which is up from then on. */
+    private void join(ManagedBackend member, int players) {
+        for (int i = 0; i < players; i++) {
+            UUID playerId = UUID.randomUUID();
+            plugin.getPresence().move(playerId, member.getName());
+            online.computeIfAbsent(member, m -> new ArrayDeque<>()).push(playerId);
+        }
+        member.onOccupied();
+    }
+
+    private void leave(ManagedBackend member, int players) {
+        for (int i = 0; i < players; i++) {
+            plugin.getPresence().remove(online.get(member).pop());
+        }
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(20);
+        }
+        return true;
+    }
+}
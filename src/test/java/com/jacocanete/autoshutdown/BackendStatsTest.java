@@ -0,0 +1,41 @@
+package com.jacocanete.autoshutdown;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackendStatsTest {
+
+    private static final long LONG_AGO = TimeUnit.DAYS.toMillis(3);
+
+    @Test
+    void restoredOfflinePeriodCountsFromStartOnly() {
+        long before = System.currentTimeMillis();
+        BackendStats stats = new BackendStats();
+        long after = System.currentTimeMillis();
+
+        stats.addAsleep(before - LONG_AGO, after + 1_000);
+        assertTrue(stats.getAsleepMillis() >= 1_000 && stats.getAsleepMillis() <= 1_000 + (after - before),
+            "counted " + stats.getAsleepMillis() + " ms");
+    }
+
+    @Test
+    void currentOfflinePeriodCountsFromStartOnly() throws InterruptedException {
+        BackendStats stats = new BackendStats();
+        Thread.sleep(20);
+        long asleepMs = stats.getAsleepMillis(System.currentTimeMillis() - LONG_AGO);
+        assertTrue(asleepMs >= 20 && asleepMs < 1_000, "counted " + asleepMs + " ms");
+    }
+
+    @Test
+    void periodsAfterStartCountInFull() {
+        BackendStats stats = new BackendStats();
+        long since = System.currentTimeMillis() + 1_000;
+        stats.addAsleep(since, since + 5_000);
+        stats.addAsleep(since + 6_000, since + 5_000); // Clock went backwards; nothing to add
+        assertEquals(5_000, stats.getAsleepMillis());
+    }
+}
@@ -0,0 +1,92 @@
+package com.jacocanete.autoshutdown;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterViewTest {
+
+    private static final String BACKEND = "survival";
+    private static final long NODE_TIMEOUT_MS = 5_000;
+    private static final long LEASE_MS = 60_000;
+
+    private final ClusterView view = new ClusterView("b", NODE_TIMEOUT_MS, LEASE_MS);
+
+    @Test
+    void earliestClaimWins() {
+        view.claim(BACKEND);
+        long claimedAt = view.ownLeases().get(BACKEND).claimedAt();
+        assertEquals("b", view.holder(BACKEND));
+
+        hear("c", claimedAt + 1);
+        assertEquals("b", view.holder(BACKEND));
+        hear("d", claimedAt - 1);
+        assertEquals("d", view.holder(BACKEND));
+    }
+
+    @Test
+    void tieGoesToTheLowestNodeId() {
+        view.claim(BACKEND);
+        long claimedAt = view.ownLeases().get(BACKEND).claimedAt();
+
+        hear("c", claimedAt);
+        assertEquals("b", view.holder(BACKEND));
+        hear("a", claimedAt);
+        assertEquals("a", view.holder(BACKEND));
+    }
+
+    @Test
+    void renewalKeepsTheOriginalClaimTime() throws InterruptedException {
+        view.claim(BACKEND);
+        long claimedAt = view.ownLeases().get(BACKEND).claimedAt();
+        Thread.sleep(5);
+        view.claim(BACKEND);
+        assertEquals(claimedAt, view.ownLeases().get(BACKEND).claimedAt());
+    }
+
+    @Test
+    void expiredLeasesDoNotCount() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        view.updatePeer("a", new ClusterView.Peer(now, Map.of(),
+            Map.of(BACKEND, new ClusterView.Lease(now - 10_000, now - 1))));
+        assertNull(view.holder(BACKEND));
+
+        ClusterView shortLeases = new ClusterView("b", NODE_TIMEOUT_MS, 20);
+        shortLeases.claim(BACKEND);
+        assertEquals("b", shortLeases.holder(BACKEND));
+        Thread.sleep(40);
+        assertNull(shortLeases.holder(BACKEND));
+        assertTrue(shortLeases.ownLeases().isEmpty());
+    }
+
+    @Test
+    void silentPeerNoLongerCounts() {
+        long now = System.currentTimeMillis();
+        view.updatePeer("a", new ClusterView.Peer(now - NODE_TIMEOUT_MS - 1, Map.of(BACKEND, 4),
+            Map.of(BACKEND, new ClusterView.Lease(now - 10_000, now + LEASE_MS))));
+        view.updatePeer("c", new ClusterView.Peer(now, Map.of(BACKEND, 2), Map.of()));
+
+        assertEquals(1, view.livePeerCount());
+        assertEquals(2, view.remotePlayerCount(BACKEND));
+        // Its lease lapses with it, even though the lease itself has time left
+        assertNull(view.holder(BACKEND));
+    }
+
+    @Test
+    void ownNodeIdIsNeverAPeer() {
+        view.updatePeer("b", new ClusterView.Peer(System.currentTimeMillis(), Map.of(BACKEND, 3), Map.of()));
+        assertEquals(0, view.livePeerCount());
+        assertFalse(view.release(BACKEND));
+    }
+
+    private void hear(String nodeId, long claimedAt) {
+        long now = System.currentTimeMillis();
+        view.updatePeer(nodeId, new ClusterView.Peer(now, Map.of(),
+            Map.of(BACKEND, new ClusterView.Lease(claimedAt, now + LEASE_MS))));
+    }
+}
@@ -0,0 +1,65 @@
+package com.jacocanete.autoshutdown;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Pterodactyl panel on {@link MockWebServer} that accepts every power signal and counts them.
+ * Status polls report {@code currentState}.
+ */
+final class CountingPanel implements AutoCloseable {
+
+    private final MockWebServer server = new MockWebServer();
+    private final AtomicInteger starts = new AtomicInteger();
+    private final AtomicInteger stops = new AtomicInteger();
+    private volatile String currentState = "offline";
+
+    CountingPanel() throws IOException {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath();
+                if (path != null && path.endsWith("/power")) {
+                    String body = request.getBody().readUtf8();
+                    if (body.contains("\"start\"")) {
+                        starts.incrementAndGet();
+                    } else if (body.contains("\"stop\"")) {
+                        stops.incrementAndGet();
+                    }
+                    return new MockResponse().setResponseCode(204);
+                }
+                if (path != null && path.endsWith("/resources")) {
+                    return new MockResponse().setBody("{\"attributes\":{\"current_state\":\"" + currentState + "\"}}");
+                }
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+        server.start();
+    }
+
+    String url() {
+        return server.url("/").toString();
+    }
+
+    void setCurrentState(String currentState) {
+        this.currentState = currentState;
+    }
+
+    int getStartSignals() {
+        return starts.get();
+    }
+
+    int getStopSignals() {
+        return stops.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.shutdown();
+    }
+}
@@ -0,0 +1,107 @@
+package com.jacocanete.autoshutdown;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LifecycleJournalTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSITIONS = 4_000;
+
+    @TempDir
+    Path dataDirectory;
+
+    private final Logger logger = TestVelocity.silentLogger();
+    private BlockingIoExecutor ioExecutor;
+
+    @BeforeEach
+    void setUp() {
+        ioExecutor = new BlockingIoExecutor(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ioExecutor.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    private LifecycleJournal open() throws IOException {
+        LifecycleJournal journal = new LifecycleJournal(dataDirectory.resolve("lifecycle.journal"), ioExecutor, logger);
+        journal.open();
+        return journal;
+    }
+
+    @Test
+    void lateWriteOfAnOlderTransitionIsIgnored() throws IOException {
+        LifecycleJournal journal = open();
+        journal.append("Survival", BackendState.IDLE, 2_000, 2);
+        journal.append("survival", BackendState.ONLINE, 1_000, 1);
+        assertEquals(new LifecycleJournal.Entry(BackendState.IDLE, 2_000, 2), journal.get("survival"));
+        assertNull(journal.get("creative"));
+        journal.close();
+
+        LifecycleJournal replayed = open();
+        assertEquals(new LifecycleJournal.Entry(BackendState.IDLE, 2_000, 2), replayed.get("survival"));
+        replayed.close();
+    }
+
+    /**
+     * Each transition is appended by whichever thread won its CAS, so the writes land in no
+     * particular order; the journal must still replay to the last transition, not the last write.
+     */
+    @Test
+    void replaysTheLastTransitionAfterRacingWrites() throws Exception {
+        List<Long> seqs = new ArrayList<>();
+        for (long seq = 1; seq <= TRANSITIONS; seq++) {
+            seqs.add(seq);
+        }
+        Collections.shuffle(seqs);
+
+        LifecycleJournal journal = open();
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int t = 0; t < THREADS; t++) {
+                List<Long> share = seqs.subList(t * TRANSITIONS / THREADS, (t + 1) * TRANSITIONS / THREADS);
+                writers.add(executor.submit(() -> {
+                    go.await();
+                    for (long seq : share) {
+                        journal.append("survival", stateFor(seq), seq * 1_000, seq);
+                    }
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+        }
+        journal.close();
+
+        LifecycleJournal.Entry last = new LifecycleJournal.Entry(stateFor(TRANSITIONS), TRANSITIONS * 1_000L, TRANSITIONS);
+        assertEquals(last, journal.get("survival"));
+        LifecycleJournal replayed = open();
+        assertEquals(last, replayed.get("survival"));
+        replayed.close();
+    }
+
+    private static BackendState stateFor(long seq) {
+        return seq % 2 == 0 ? BackendState.IDLE : BackendState.ONLINE;
+    }
+}
@@ -0,0 +1,221 @@
+package com.jacocanete.autoshutdown;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Races player joins, leaves and startup requests against one backend and checks that every
+ * lifecycle transition reaches the panel as exactly one power signal.
+ */
+class ManagedBackendStressTest {
+
+    private static final String BACKEND = "survival";
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 2_000;
+    private static final int BURSTS = 500;
+    private static final int BURST_ROUNDS = 20;
+
+    @TempDir
+    Path dataDirectory;
+
+    private CountingPanel panel;
+    private AutoShutdownPlugin plugin;
+    private ManagedBackend backend;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (plugin != null) {
+            plugin.onProxyShutdown(null);
+        }
+        panel.close();
+    }
+
+    private void start(int delaySeconds) throws IOException {
+        panel = new CountingPanel();
+        panel.setCurrentState("starting");
+
+        // Nothing listens here, so every status ping says the backend is down
+        InetSocketAddress address;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            address = new InetSocketAddress("127.0.0.1", socket.getLocalPort());
+        }
+
+        Properties config = new Properties();
+        config.setProperty("pterodactyl.url", panel.url());
+        config.setProperty("pterodactyl.api-key", "test");
+        config.setProperty("pterodactyl.max-attempts", "1");
+        config.setProperty("auto-shutdown.enabled", "true");
+        config.setProperty("auto-shutdown.delay-seconds", String.valueOf(delaySeconds));
+        config.setProperty("limbo-server.name", "limbo");
+        config.setProperty("backends", BACKEND);
+        config.setProperty("backend." + BACKEND + ".host", address.getHostString());
+        config.setProperty("backend." + BACKEND + ".port", String.valueOf(address.getPort()));
+        config.setProperty("backend." + BACKEND + ".pterodactyl-server-id", "abc123");
+        try (OutputStream out = Files.newOutputStream(dataDirectory.resolve("config.properties"))) {
+            config.store(out, null);
+        }
+
+        Map<String, RegisteredServer> servers = Map.of(BACKEND, TestVelocity.registeredServer(BACKEND, address));
+        plugin = new AutoShutdownPlugin(TestVelocity.proxyServer(servers), TestVelocity.silentLogger(), dataDirectory);
+        plugin.onProxyInitialization(null);
+        backend = plugin.getBackends().get(BACKEND).orElseThrow();
+    }
+
+    @Test
+    void everyEmptyingLeavesTheCountdownArmed() throws Exception {
+        start(3600);
+        backend.onOccupied();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int burst = 0; burst < BURSTS; burst++) {
+                churn(executor, BURST_ROUNDS);
+                assertEquals(BackendState.IDLE, backend.getState());
+                // A join that lost the race must not have cancelled the countdown the last leave armed
+                assertTrue(backend.hasPendingTimeout(), "burst " + burst + " left the backend idle without a countdown");
+            }
+        }
+        assertEquals(0, panel.getStopSignals());
+    }
+
+    @Test
+    void journalReplaysToTheStateTheRaceEndedIn() throws Exception {
+        start(3600);
+        backend.onOccupied();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            churn(executor, ROUNDS);
+        }
+        assertEquals(BackendState.IDLE, backend.getState());
+        plugin.onProxyShutdown(null);
+        plugin = null;
+
+        BlockingIoExecutor ioExecutor = new BlockingIoExecutor(1);
+        LifecycleJournal journal = new LifecycleJournal(dataDirectory.resolve("lifecycle.journal"), ioExecutor,
+            TestVelocity.silentLogger());
+        journal.open();
+        assertEquals(BackendState.IDLE, journal.get(BACKEND).state());
+        journal.close();
+        ioExecutor.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void joinsAndLeavesStopAnEmptiedBackendOnce() throws Exception {
+        start(1);
+        backend.onOccupied();
+        assertEquals(BackendState.ONLINE, backend.getState());
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            churn(executor, ROUNDS);
+        }
+
+        assertEquals(0, backend.getPlayerCount());
+        // Whoever left last armed the countdown; it must survive the joins that lost the race
+        assertTrue(await(() -> panel.getStopSignals() > 0, 5_000), "the emptied backend was never stopped");
+        Thread.sleep(1_500);
+        assertEquals(1, panel.getStopSignals());
+        assertEquals(0, panel.getStartSignals());
+        assertTrue(backend.getState() == BackendState.STOPPING || backend.getState() == BackendState.OFFLINE,
+            "unexpected state " + backend.getState());
+    }
+
+    @Test
+    void concurrentStartupRequestsSendOneStartSignal() throws Exception {
+        start(1);
+        assertEquals(BackendState.OFFLINE, backend.getState());
+
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> requests = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < ROUNDS; i++) {
+                Player player = TestVelocity.player("player" + i);
+                requests.add(executor.submit(() -> {
+                    go.await();
+                    backend.requestStartup(player);
+                    return null;
+                }));
+            }
+            go.countDown();
+            for (Future<?> request : requests) {
+                request.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        assertTrue(await(() -> panel.getStartSignals() > 0, 5_000), "the backend was never started");
+        Thread.sleep(500);
+        assertEquals(1, panel.getStartSignals());
+        assertEquals(0, panel.getStopSignals());
+        assertEquals(BackendState.STARTING, backend.getState());
+    }
+
+    /**
+     * Half the threads deliver joins and half deliver leaves for the same players, in no particular
+     * order, as Velocity's event threads may. Everyone is gone and the last leave seen when it returns.
+     */
+    private void churn(ExecutorService executor, int rounds) throws Exception {
+        CountDownLatch go = new CountDownLatch(1);
+        List<Player> players = new ArrayList<>();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS / 2; t++) {
+            Player player = TestVelocity.player("player" + t);
+            players.add(player);
+            workers.add(executor.submit(() -> {
+                go.await();
+                for (int i = 0; i < rounds; i++) {
+                    plugin.getPresence().move(player.getUniqueId(), BACKEND);
+                    backend.onOccupied();
+                }
+                return null;
+            }));
+            workers.add(executor.submit(() -> {
+                go.await();
+                for (int i = 0; i < rounds; i++) {
+                    plugin.getPresence().remove(player.getUniqueId());
+                    backend.onPlayerLeft(player);
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+        for (Player player : players) {
+            plugin.getPresence().remove(player.getUniqueId());
+            backend.onPlayerLeft(player);
+        }
+    }
+
+    private static boolean await(BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(20);
+        }
+        return true;
+    }
+}
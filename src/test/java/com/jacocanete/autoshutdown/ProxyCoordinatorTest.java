@@ -0,0 +1,143 @@
+package com.jacocanete.autoshutdown;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Two coordinators of the same kind, as two proxies would run them, racing for the same leases.
+ * Whatever the interleaving, exactly one of them may win each lease, and both must agree on which.
+ */
+class ProxyCoordinatorTest {
+
+    private static final int ROUNDS = 20;
+
+    @TempDir
+    Path dataDirectory;
+
+    private final Logger logger = TestVelocity.silentLogger();
+    private BlockingIoExecutor ioExecutor;
+    private TimerWheel timers;
+    private ProxyCoordinator first;
+    private ProxyCoordinator second;
+
+    @BeforeEach
+    void setUp() {
+        ioExecutor = new BlockingIoExecutor(4);
+        timers = new TimerWheel(10, 512, logger);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (first != null) {
+            first.stop();
+        }
+        if (second != null) {
+            second.stop();
+        }
+        timers.stop();
+        ioExecutor.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void gossipGrantsEachLeaseOnce() throws Exception {
+        InetSocketAddress firstAddress = freeLoopbackAddress();
+        InetSocketAddress secondAddress = freeLoopbackAddress();
+        first = start(settings(ProxyCoordinator.Mode.GOSSIP, "proxy-a", firstAddress, List.of(secondAddress)));
+        second = start(settings(ProxyCoordinator.Mode.GOSSIP, "proxy-b", secondAddress, List.of(firstAddress)));
+
+        awaitPeers();
+        assertEquals(1, first.getRemotePlayerCount("lobby"));
+        raceForLeases();
+    }
+
+    @Test
+    void fileLockGrantsEachLeaseOnce() throws Exception {
+        first = start(settings(ProxyCoordinator.Mode.FILE, "proxy-a", null, List.of()));
+        second = start(settings(ProxyCoordinator.Mode.FILE, "proxy-b", null, List.of()));
+
+        raceForLeases();
+    }
+
+    private void raceForLeases() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            String backend = "survival-" + round;
+            CountDownLatch go = new CountDownLatch(1);
+            CompletableFuture<Boolean> firstClaim = CompletableFuture.supplyAsync(() -> claim(first, backend, go));
+            CompletableFuture<Boolean> secondClaim = CompletableFuture.supplyAsync(() -> claim(second, backend, go));
+            go.countDown();
+
+            boolean firstWon = firstClaim.get(5, TimeUnit.SECONDS);
+            boolean secondWon = secondClaim.get(5, TimeUnit.SECONDS);
+            assertNotEquals(firstWon, secondWon, "round " + round + ": both or neither got the lease");
+
+            String winner = firstWon ? first.getNodeId() : second.getNodeId();
+            assertEquals(winner, first.getLeaseHolder(backend));
+            awaitHolder(second, backend, winner);
+        }
+    }
+
+    private static Boolean claim(ProxyCoordinator coordinator, String backend, CountDownLatch go) {
+        try {
+            go.await();
+            return coordinator.tryAcquire(backend).get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ProxyCoordinator start(ProxyCoordinator.Settings settings) throws IOException {
+        ProxyCoordinator coordinator = ProxyCoordinator.create(settings, () -> Map.of("lobby", 1), ioExecutor, timers,
+            logger);
+        coordinator.start();
+        return coordinator;
+    }
+
+    private ProxyCoordinator.Settings settings(ProxyCoordinator.Mode mode, String nodeId, InetSocketAddress bind,
+                                               List<InetSocketAddress> peers) {
+        return new ProxyCoordinator.Settings(mode, nodeId, 50, 2_000, 30_000, bind, peers, "secret", 200,
+            dataDirectory.resolve("coordination.json"));
+    }
+
+    private void awaitPeers() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (first.getLivePeerCount() == 0 || second.getLivePeerCount() == 0) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("the coordinators never heard from each other");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    /** The loser's copy of a winning gossip claim may still be on its way in. */
+    private static void awaitHolder(ProxyCoordinator coordinator, String backend, String expected)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (!expected.equals(coordinator.getLeaseHolder(backend)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, coordinator.getLeaseHolder(backend));
+    }
+
+    private static InetSocketAddress freeLoopbackAddress() throws IOException {
+        try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+        }
+    }
+}
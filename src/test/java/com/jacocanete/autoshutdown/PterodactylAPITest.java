@@ -0,0 +1,197 @@
+package com.jacocanete.autoshutdown;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PterodactylAPITest {
+
+    private static final String RUNNING = "{\"attributes\":{\"current_state\":\"running\"}}";
+
+    private final Logger logger = TestVelocity.silentLogger();
+    private MockWebServer panel;
+    private BlockingIoExecutor ioExecutor;
+    private final ExecutorService panelExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private TimerWheel timers;
+    private PterodactylAPI api;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        panel = new MockWebServer();
+        panel.start();
+        timers = new TimerWheel(10, 512, logger);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (api != null) {
+            api.shutdown();
+        }
+        timers.stop();
+        panelExecutor.shutdownNow();
+        ioExecutor.shutdown(1, TimeUnit.SECONDS);
+        panel.shutdown();
+    }
+
+    private void connect(int ioPermits, RetryPolicy retryPolicy, CircuitBreaker circuitBreaker) {
+        connect(ioPermits, retryPolicy, circuitBreaker, new PanelRateLimiter(60_000, 1_000, 1_000));
+    }
+
+    private void connect(int ioPermits, RetryPolicy retryPolicy, CircuitBreaker circuitBreaker,
+                         PanelRateLimiter rateLimiter) {
+        ioExecutor = new BlockingIoExecutor(ioPermits);
+        api = new PterodactylAPI(panel.url("/").toString(), "test", ioExecutor, panelExecutor, timers, logger,
+            retryPolicy, circuitBreaker, rateLimiter);
+    }
+
+    @Test
+    void identicalRequestsShareOneCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        panel.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                release.await(5, TimeUnit.SECONDS);
+                return new MockResponse().setBody(RUNNING);
+            }
+        });
+        connect(4, new RetryPolicy(1, 10, 10), new CircuitBreaker(5, 1_000));
+
+        List<CompletableFuture<String>> polls = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            polls.add(api.getServerStatus("abc123"));
+        }
+        release.countDown();
+
+        for (CompletableFuture<String> poll : polls) {
+            assertEquals("running", poll.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, panel.getRequestCount());
+        assertEquals(1, api.getRequestAttempts());
+    }
+
+    @Test
+    void retryAfterIsHonoured() throws Exception {
+        panel.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        panel.enqueue(new MockResponse().setResponseCode(204));
+        connect(4, new RetryPolicy(3, 10, 5_000), new CircuitBreaker(5, 1_000));
+
+        long startNanos = System.nanoTime();
+        assertTrue(api.startServer("abc123").get(5, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        assertTrue(elapsedMs >= 900, "retried after " + elapsedMs + " ms");
+        assertEquals(2, panel.getRequestCount());
+        assertEquals(1, api.getRetries());
+        assertEquals(1, api.getFailedAttempts());
+    }
+
+    @Test
+    void waitingRetryHoldsNoIoPermit() throws Exception {
+        panel.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getPath().contains("/slow/")) {
+                    return new MockResponse().setResponseCode(503).setHeader("Retry-After", "2");
+                }
+                return new MockResponse().setBody(RUNNING);
+            }
+        });
+        connect(1, new RetryPolicy(2, 10, 5_000), new CircuitBreaker(5, 1_000));
+
+        CompletableFuture<String> slow = api.getServerStatus("slow");
+        Thread.sleep(200);
+        assertEquals("running", api.getServerStatus("fast").get(1, TimeUnit.SECONDS));
+        assertFalse(slow.isDone());
+        assertNull(slow.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void replacedClientKeepsTheSharedQuota() throws Exception {
+        panel.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody(RUNNING);
+            }
+        });
+        RetryPolicy retryPolicy = new RetryPolicy(1, 10, 10);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(5, 1_000);
+        PanelRateLimiter rateLimiter = new PanelRateLimiter(1, 1, 8);
+        connect(4, retryPolicy, circuitBreaker, rateLimiter);
+        assertEquals("running", api.getServerStatus("abc123").get(5, TimeUnit.SECONDS));
+
+        // As a reload does it: a new client on the same limiter, then the old one shut down
+        PterodactylAPI previous = api;
+        api = new PterodactylAPI(panel.url("/").toString(), "test", ioExecutor, panelExecutor, timers, logger,
+            retryPolicy, circuitBreaker, rateLimiter);
+        previous.shutdown();
+
+        // The burst of one is spent, so the next call waits a minute for the refill instead of starting afresh
+        CompletableFuture<String> poll = api.getServerStatus("abc123");
+        Thread.sleep(300);
+        assertFalse(poll.isDone());
+        assertEquals(1, rateLimiter.getQueueDepth());
+        assertEquals(1, panel.getRequestCount());
+    }
+
+    @Test
+    void unreadableAnswerIsNotRetried() throws Exception {
+        panel.enqueue(new MockResponse().setBody("<html>Bad gateway</html>"));
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 60_000);
+        connect(4, new RetryPolicy(3, 10, 10), circuitBreaker);
+
+        assertNull(api.getServerStatus("abc123").get(5, TimeUnit.SECONDS));
+        assertEquals(1, panel.getRequestCount());
+        assertEquals(1, api.getRejectedRequests());
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void circuitOpensThenLetsOneTrialThrough() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 300);
+        connect(4, new RetryPolicy(1, 10, 10), circuitBreaker);
+
+        panel.enqueue(new MockResponse().setResponseCode(500));
+        panel.enqueue(new MockResponse().setResponseCode(500));
+        assertNull(api.getServerStatus("abc123").get(5, TimeUnit.SECONDS));
+        assertNull(api.getServerStatus("abc123").get(5, TimeUnit.SECONDS));
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        // Open: skipped without asking the panel
+        assertFalse(api.stopServer("abc123").get(5, TimeUnit.SECONDS));
+        assertEquals(2, panel.getRequestCount());
+
+        // Half-open: a failed trial opens it again for a full period
+        Thread.sleep(350);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        panel.enqueue(new MockResponse().setResponseCode(502));
+        assertNull(api.getServerStatus("abc123").get(5, TimeUnit.SECONDS));
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(3, panel.getRequestCount());
+
+        // A successful trial closes it
+        Thread.sleep(350);
+        panel.enqueue(new MockResponse().setBody(RUNNING));
+        assertEquals("running", api.getServerStatus("abc123").get(5, TimeUnit.SECONDS));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(4, panel.getRequestCount());
+    }
+}
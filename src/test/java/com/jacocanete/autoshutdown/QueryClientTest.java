@@ -0,0 +1,159 @@
+package com.jacocanete.autoshutdown;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryClientTest {
+
+    private static final int TIMEOUT_MS = 200;
+
+    private final Logger logger = TestVelocity.silentLogger();
+    private TimerWheel timers;
+    private QueryClient client;
+    private Responder server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        timers = new TimerWheel(10, 512, logger);
+        client = new QueryClient(timers, logger);
+        server = new Responder();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        client.close();
+        timers.stop();
+    }
+
+    @Test
+    void cachedTokenSkipsTheHandshake() throws Exception {
+        assertEquals(3, client.basicStat(server.address(), TIMEOUT_MS).get(5, TimeUnit.SECONDS).online());
+        assertEquals(3, client.basicStat(server.address(), TIMEOUT_MS).get(5, TimeUnit.SECONDS).online());
+
+        assertEquals(1, server.handshakes.get());
+        assertEquals(2, server.stats.get());
+        assertEquals(3, client.getRequestCount());
+        assertEquals(1, client.getCachedTokenCount());
+    }
+
+    @Test
+    void unansweredHandshakeTimesOut() {
+        server.answerHandshakes = false;
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> client.basicStat(server.address(), TIMEOUT_MS).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertEquals(1, client.getTimeoutCount());
+        assertEquals(0, client.getCachedTokenCount());
+    }
+
+    @Test
+    void forgottenTokenIsRetriedOnceWithAFreshOne() throws Exception {
+        client.basicStat(server.address(), TIMEOUT_MS).get(5, TimeUnit.SECONDS);
+
+        // The server restarted: the cached token is no good, and a new handshake gets a new one
+        server.token.incrementAndGet();
+        assertEquals(3, client.basicStat(server.address(), TIMEOUT_MS).get(5, TimeUnit.SECONDS).online());
+        assertEquals(2, server.handshakes.get());
+        assertEquals(3, server.stats.get());
+        assertEquals(1, client.getTimeoutCount());
+    }
+
+    @Test
+    void statThatNeverAnswersIsRetriedOnlyOnce() throws Exception {
+        client.basicStat(server.address(), TIMEOUT_MS).get(5, TimeUnit.SECONDS);
+
+        server.answerStats = false;
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> client.basicStat(server.address(), TIMEOUT_MS).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertEquals(2, server.handshakes.get());
+        assertEquals(3, server.stats.get());
+        assertEquals(2, client.getTimeoutCount());
+    }
+
+    /** A Query server on loopback that answers basic stats for 3 of 20 players. */
+    private static final class Responder {
+
+        private final DatagramSocket socket;
+        private final Thread thread;
+        final AtomicInteger token = new AtomicInteger(9513307);
+        final AtomicInteger handshakes = new AtomicInteger();
+        final AtomicInteger stats = new AtomicInteger();
+        volatile boolean answerHandshakes = true;
+        volatile boolean answerStats = true;
+
+        Responder() throws SocketException {
+            socket = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            thread = Thread.ofPlatform().daemon().start(this::serve);
+        }
+
+        InetSocketAddress address() {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), socket.getLocalPort());
+        }
+
+        private void serve() {
+            byte[] in = new byte[64];
+            while (!socket.isClosed()) {
+                try {
+                    DatagramPacket packet = new DatagramPacket(in, in.length);
+                    socket.receive(packet);
+                    ByteBuffer request = ByteBuffer.wrap(packet.getData(), 0, packet.getLength());
+                    if (request.getShort() != (short) 0xFEFD) {
+                        continue;
+                    }
+                    byte type = request.get();
+                    int session = request.getInt();
+
+                    ByteBuffer answer = ByteBuffer.allocate(128).put(type).putInt(session);
+                    if (type == QueryProtocolCodec.TYPE_HANDSHAKE) {
+                        handshakes.incrementAndGet();
+                        if (!answerHandshakes) {
+                            continue;
+                        }
+                        QueryProtocolCodec.writeString(answer, String.valueOf(token.get()));
+                    } else {
+                        stats.incrementAndGet();
+                        // A vanilla server drops a stat with a token it did not hand out
+                        if (!answerStats || request.getInt() != token.get()) {
+                            continue;
+                        }
+                        for (String field : new String[] {"A Minecraft Server", "SMP", "world", "3", "20"}) {
+                            QueryProtocolCodec.writeString(answer, field);
+                        }
+                        answer.put((byte) 0xDD).put((byte) 0x63);
+                        answer.put("127.0.0.1\0".getBytes(StandardCharsets.UTF_8));
+                    }
+                    socket.send(new DatagramPacket(answer.array(), answer.position(), packet.getSocketAddress()));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            socket.close();
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.jacocanete.autoshutdown;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryProtocolCodecTest {
+
+    private static final int SESSION = 1;
+    /** "9513307", the challenge token in the protocol's documented example exchange. */
+    private static final int TOKEN = 0x0091295B;
+
+    @Test
+    void handshakeRequest() {
+        ByteBuffer buffer = ByteBuffer.allocate(QueryProtocolCodec.HANDSHAKE_REQUEST_SIZE);
+        QueryProtocolCodec.writeHandshake(buffer, SESSION);
+        assertArrayEquals(hex("fefd0900000001"), buffer.array());
+    }
+
+    @Test
+    void challengeToken() throws IOException {
+        // Type and session id are read off by the client; the token follows as a decimal string
+        assertEquals(TOKEN, QueryProtocolCodec.readToken(bytes("3935313333303700")));
+
+        // A token above Integer.MAX_VALUE goes back as the same four bytes
+        assertEquals(0xF0000000, QueryProtocolCodec.readToken(bytes("3430323635333138343000")));
+        assertEquals(-5, QueryProtocolCodec.readToken(bytes("2d3500")));
+        assertThrows(IOException.class, () -> QueryProtocolCodec.readToken(bytes("6f6f707300")));
+    }
+
+    @Test
+    void basicStatRequestHasNoPadding() {
+        ByteBuffer buffer = ByteBuffer.allocate(QueryProtocolCodec.BASIC_STAT_REQUEST_SIZE);
+        QueryProtocolCodec.writeStatRequest(buffer, SESSION, TOKEN, false);
+        assertFalse(buffer.hasRemaining());
+        assertArrayEquals(hex("fefd000000000100 91295b"), buffer.array());
+    }
+
+    @Test
+    void fullStatRequestIsPaddedToFifteenBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(QueryProtocolCodec.FULL_STAT_REQUEST_SIZE);
+        QueryProtocolCodec.writeStatRequest(buffer, SESSION, TOKEN, true);
+        assertFalse(buffer.hasRemaining());
+        assertArrayEquals(hex("fefd000000000100 91295b 00000000"), buffer.array());
+    }
+
+    @Test
+    void basicStatResponse() throws IOException {
+        // MOTD, game type, map, online, max, then the host port little-endian and the host IP
+        ByteBuffer payload = bytes("41204d696e6563726166742053657276657200" + "534d5000" + "776f726c6400"
+            + "3200" + "323000" + "dd63" + "3132372e302e302e3100");
+
+        QueryResult result = QueryProtocolCodec.readBasicStat(payload);
+        assertEquals("A Minecraft Server", result.motd());
+        assertEquals("SMP", result.gameType());
+        assertEquals("world", result.map());
+        assertEquals(2, result.online());
+        assertEquals(20, result.max());
+        assertEquals(25565, result.hostPort());
+        assertEquals("127.0.0.1", result.hostIp());
+        assertTrue(result.players().isEmpty());
+        assertFalse(payload.hasRemaining());
+    }
+
+    @Test
+    void truncatedBasicStatIsRejected() {
+        // Cut off inside the host port
+        assertThrows(IOException.class, () -> QueryProtocolCodec.readBasicStat(
+            bytes("41204d696e6563726166742053657276657200" + "534d5000" + "776f726c6400" + "3200" + "323000" + "dd")));
+    }
+
+    @Test
+    void fullStatResponse() throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(256);
+        payload.put(hex("73706c69746e756d008000"));
+        for (String field : List.of("hostname", "A Minecraft Server", "version", "1.20.4", "numplayers", "2",
+                "maxplayers", "20", "hostport", "25565", "")) {
+            QueryProtocolCodec.writeString(payload, field);
+        }
+        payload.put(hex("01706c617965725f0000"));
+        QueryProtocolCodec.writeString(payload, "Alice");
+        QueryProtocolCodec.writeString(payload, "Bob");
+        QueryProtocolCodec.writeString(payload, "");
+        payload.flip();
+
+        QueryResult result = QueryProtocolCodec.readFullStat(payload);
+        assertEquals("A Minecraft Server", result.motd());
+        assertEquals("1.20.4", result.version());
+        assertEquals(2, result.online());
+        assertEquals(20, result.max());
+        assertEquals(25565, result.hostPort());
+        assertEquals(List.of("Alice", "Bob"), result.players());
+    }
+
+    @Test
+    void garbledCountIsMalformed() throws IOException {
+        ByteBuffer payload = bytes("6d6f746400" + "534d5000" + "776f726c6400" + "3f00" + "323000" + "dd63" + "00");
+        assertEquals(PlayerCountResult.Outcome.MALFORMED, QueryProtocolCodec.readBasicStat(payload).playerCount().outcome());
+    }
+
+    private static byte[] hex(String hex) {
+        return HexFormat.of().parseHex(hex.replace(" ", ""));
+    }
+
+    private static ByteBuffer bytes(String hex) {
+        return ByteBuffer.wrap(hex(hex));
+    }
+}
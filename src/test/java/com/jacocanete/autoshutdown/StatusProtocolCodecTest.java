@@ -0,0 +1,141 @@
+package com.jacocanete.autoshutdown;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusProtocolCodecTest {
+
+    /** Handshake (protocol 47, localhost:25565, next state status) and status request from a vanilla 1.8.9 client. */
+    private static final String VANILLA_LOCALHOST_PING = "0f002f096c6f63616c686f737463dd01" + "0100";
+
+    /** The same for mc.example.net:25566. */
+    private static final String VANILLA_EXAMPLE_PING = "14002f0e6d632e6578616d706c652e6e657463de01" + "0100";
+
+    @Test
+    void varIntEdgeCases() throws IOException {
+        assertVarInt(0, "00");
+        assertVarInt(127, "7f");
+        assertVarInt(128, "8001");
+        assertVarInt(25565, "ddc701");
+        assertVarInt(Integer.MAX_VALUE, "ffffffff07");
+    }
+
+    @Test
+    void negativeVarIntTakesFiveBytesAndIsNoLength() {
+        assertEquals(5, StatusProtocolCodec.varIntSize(-1));
+        ByteBuffer buffer = ByteBuffer.allocate(5);
+        StatusProtocolCodec.writeVarInt(buffer, -1);
+        assertEquals("ffffffff0f", HexFormat.of().formatHex(buffer.array()));
+
+        buffer.flip();
+        assertThrows(IOException.class, () -> StatusProtocolCodec.readVarInt(buffer));
+    }
+
+    @Test
+    void partialVarIntIsLeftForLater() throws IOException {
+        ByteBuffer buffer = bytes("ffff");
+        assertEquals(StatusProtocolCodec.INCOMPLETE, StatusProtocolCodec.readVarInt(buffer));
+        assertEquals(0, buffer.position());
+    }
+
+    @Test
+    void statusRequestMatchesVanillaClient() {
+        assertStatusRequest("localhost", 25565, VANILLA_LOCALHOST_PING);
+        assertStatusRequest("mc.example.net", 25566, VANILLA_EXAMPLE_PING);
+    }
+
+    @Test
+    void statusRequestSizeCountsMultiByteHosts() {
+        String host = "münchen.example";
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        StatusProtocolCodec.writeStatusRequest(buffer, host, 25565);
+        assertEquals(StatusProtocolCodec.statusRequestSize(host), buffer.position());
+    }
+
+    @Test
+    void decodesStatusResponseFrame() throws IOException {
+        byte[] json = "{\"players\":{\"max\":20,\"online\":3}}".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        StatusProtocolCodec.writeVarInt(buffer, 1 + 1 + json.length);
+        StatusProtocolCodec.writeVarInt(buffer, StatusProtocolCodec.STATUS_PACKET_ID);
+        StatusProtocolCodec.writeVarInt(buffer, json.length);
+        buffer.put(json);
+        int frameEnd = buffer.position();
+        buffer.put((byte) 0x09); // First byte of whatever comes next
+        buffer.flip();
+
+        assertEquals(frameEnd, StatusProtocolCodec.peekFrameSize(buffer));
+        ByteBuffer payload = StatusProtocolCodec.readStatusResponse(buffer);
+        assertEquals(new String(json, StandardCharsets.UTF_8), StandardCharsets.UTF_8.decode(payload).toString());
+        assertEquals(frameEnd, buffer.position());
+    }
+
+    @Test
+    void truncatedFrameIsNotConsumed() throws IOException {
+        // Announces 10 bytes, holds 4
+        ByteBuffer buffer = bytes("0a000861");
+        assertNull(StatusProtocolCodec.readStatusResponse(buffer));
+        assertEquals(0, buffer.position());
+        assertEquals(11, StatusProtocolCodec.peekFrameSize(buffer));
+
+        // Cut off inside the length prefix
+        ByteBuffer prefixOnly = bytes("80");
+        assertNull(StatusProtocolCodec.readStatusResponse(prefixOnly));
+        assertEquals(StatusProtocolCodec.INCOMPLETE, StatusProtocolCodec.peekFrameSize(prefixOnly));
+    }
+
+    @Test
+    void rejectsMalformedFrames() {
+        // JSON longer than the frame it is in
+        assertThrows(IOException.class, () -> StatusProtocolCodec.readStatusResponse(bytes("0300057b7d")));
+        // Not a status response
+        assertThrows(IOException.class, () -> StatusProtocolCodec.readStatusResponse(bytes("0201000000")));
+    }
+
+    @Test
+    void rejectsOversizedFrames() throws IOException {
+        // A length prefix longer than any VarInt
+        assertThrows(IOException.class, () -> StatusProtocolCodec.readStatusResponse(bytes("ffffffffff01")));
+        assertThrows(IOException.class, () -> StatusProtocolCodec.peekFrameSize(bytes("ffffffffff01")));
+
+        // The largest frame there is must still look too big to the caller, not wrap around
+        int announced = StatusProtocolCodec.peekFrameSize(bytes("ffffffff07"));
+        assertTrue(announced > StatusPingEngine.DEFAULT_MAX_RESPONSE_BYTES, "announced " + announced);
+    }
+
+    private static void assertVarInt(int value, String hex) throws IOException {
+        byte[] expected = HexFormat.of().parseHex(hex);
+        assertEquals(expected.length, StatusProtocolCodec.varIntSize(value));
+
+        ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+        StatusProtocolCodec.writeVarInt(buffer, value);
+        assertArrayEquals(expected, buffer.array());
+
+        buffer.flip();
+        assertEquals(value, StatusProtocolCodec.readVarInt(buffer));
+        assertEquals(expected.length, buffer.position());
+    }
+
+    private static void assertStatusRequest(String host, int port, String hex) {
+        byte[] expected = HexFormat.of().parseHex(hex);
+        assertEquals(expected.length, StatusProtocolCodec.statusRequestSize(host));
+
+        ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+        StatusProtocolCodec.writeStatusRequest(buffer, host, port);
+        assertArrayEquals(expected, buffer.array());
+    }
+
+    private static ByteBuffer bytes(String hex) {
+        return ByteBuffer.wrap(HexFormat.of().parseHex(hex));
+    }
+}
@@ -0,0 +1,102 @@
+package com.jacocanete.autoshutdown;
+
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import com.velocitypowered.api.scheduler.Scheduler;
+import org.slf4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Just enough of the Velocity API, from dynamic proxies, to load the plugin in a test. Scheduled
+ * tasks are accepted but never run, so the reconciliation backstop only runs when a test calls it.
+ */
+final class TestVelocity {
+
+    private TestVelocity() {
+    }
+
+    static ProxyServer proxyServer(Map<String, RegisteredServer> servers) {
+        Scheduler scheduler = fake(Scheduler.class, (proxy, method, args) -> fake(Scheduler.TaskBuilder.class,
+            (builder, builderMethod, builderArgs) -> builderMethod.getName().equals("schedule")
+                ? fake(ScheduledTask.class, TestVelocity::defaults)
+                : builder));
+        CommandManager commandManager = fake(CommandManager.class, TestVelocity::defaults);
+
+        return fake(ProxyServer.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getScheduler" -> scheduler;
+            case "getCommandManager" -> commandManager;
+            case "getServer" -> Optional.ofNullable(servers.get((String) args[0]));
+            case "getAllServers" -> servers.values();
+            case "getAllPlayers" -> List.of();
+            case "getPlayer" -> Optional.empty();
+            default -> defaults(proxy, method, args);
+        });
+    }
+
+    /** A registered server nobody is connected to. */
+    static RegisteredServer registeredServer(String name, InetSocketAddress address) {
+        ServerInfo info = new ServerInfo(name, address);
+        return fake(RegisteredServer.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getServerInfo" -> info;
+            case "getPlayersConnected" -> List.of();
+            default -> defaults(proxy, method, args);
+        });
+    }
+
+    static Player player(String name) {
+        UUID id = UUID.randomUUID();
+        return fake(Player.class, (proxy, method, args) -> switch (method.getName()) {
+            case "getUsername" -> name;
+            case "getUniqueId" -> id;
+            case "isActive" -> true;
+            case "getCurrentServer" -> Optional.empty();
+            default -> defaults(proxy, method, args);
+        });
+    }
+
+    static Logger silentLogger() {
+        return fake(Logger.class, TestVelocity::defaults);
+    }
+
+    static <T> T fake(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(TestVelocity.class.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    static Object defaults(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return method.getDeclaringClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            default:
+                break;
+        }
+
+        // A proxy must return exactly the boxed primitive type, or the call fails
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return Boolean.FALSE;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0.0d;
+        }
+        return null;
+    }
+}
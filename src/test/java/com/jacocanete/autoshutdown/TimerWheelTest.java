@@ -0,0 +1,78 @@
+package com.jacocanete.autoshutdown;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    /** 8 buckets of 2 ms: one turn of the wheel is 16 ms. */
+    private final TimerWheel wheel = new TimerWheel(2, 8, TestVelocity.silentLogger());
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void firesAfterSeveralTurnsAndNeverEarly() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(3);
+        AtomicLong early = new AtomicLong();
+        long startNanos = System.nanoTime();
+        for (long delayMs : new long[] {5, 50, 130}) {
+            long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(delayMs);
+            wheel.schedule(() -> {
+                if (System.nanoTime() < deadlineNanos) {
+                    early.incrementAndGet();
+                }
+                fired.countDown();
+            }, delayMs, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(3, wheel.getPendingCount());
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS), "not every timer fired");
+        assertEquals(0, early.get());
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    void cancelledTimerNeverFires() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        TimerWheel.Timeout timeout = wheel.schedule(runs::incrementAndGet, 40, TimeUnit.MILLISECONDS);
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.schedule(later::countDown, 80, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertEquals(1, wheel.getPendingCount());
+
+        // A timer due after it has fired, so the cancelled one's tick has long passed
+        assertTrue(later.await(5, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+        assertFalse(timeout.isPending());
+    }
+
+    @Test
+    void nothingRunsOnceStopped() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        wheel.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        wheel.stop();
+
+        TimerWheel.Timeout late = wheel.schedule(runs::incrementAndGet, 0, TimeUnit.MILLISECONDS);
+        assertTrue(late.isCancelled());
+        assertFalse(late.cancel());
+        assertEquals(0, wheel.getPendingCount());
+
+        Thread.sleep(100);
+        assertEquals(0, runs.get());
+    }
+}